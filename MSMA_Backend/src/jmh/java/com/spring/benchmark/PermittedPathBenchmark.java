@@ -0,0 +1,55 @@
+package com.spring.benchmark;
+
+import com.spring.constants.ApiEndpoints;
+import com.spring.security.PermittedPathMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of deciding whether a request skips the JWT check. {@code legacyScan} is the loop that
+ * JwtAuthenticationFilter ran on every request before PermittedPathMatcher; run with {@code -prof gc} and
+ * compare {@code gc.alloc.rate.norm} (bytes allocated per request).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermittedPathBenchmark {
+    @Param({"/api/v1/auth/sign-in", "/api/v1/account/song/42/stream", "/api/v1/user/playlists/7"})
+    public String path;
+
+    private PermittedPathMatcher matcher;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        matcher = new PermittedPathMatcher();
+        request = new MockHttpServletRequest("GET", path);
+    }
+
+    @Benchmark
+    public boolean legacyScan() {
+        for (String element : Arrays
+                .stream(ApiEndpoints.PERMITTED.getApis())
+                .map(s -> {
+                    if (s.endsWith("/**")) s = s.substring(0, s.length() - 3);
+                    return s;
+                })
+                .toList()) {
+            if (request.getRequestURI().contains(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean compiledMatcher() {
+        return matcher.matches(request);
+    }
+}
@@ -0,0 +1,123 @@
+package com.spring.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How many requests Tomcat keeps in flight when every request blocks on a downstream call (FastAPI, Cloudinary,
+ * SMTP), with platform request threads versus the {@code virtual} profile's {@code spring.threads.virtual.enabled}.
+ * Each invocation fires a burst of concurrent requests that each block for {@value #DOWNSTREAM_LATENCY_MS} ms and
+ * reports the burst time plus the peak number of requests the server was handling at once.
+ * <p>
+ * The {@code virtual} case needs a JDK 21+ {@code java} first on the PATH ({@code exec:exec} launches it from there);
+ * on JDK 17 Spring silently keeps platform threads and both cases report the same peak.
+ * Database-bound requests are not covered: in virtual mode the Hikari pool, not Tomcat, caps those.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestConcurrencyBenchmark {
+    private static final int REQUESTS = 2000;
+    private static final long DOWNSTREAM_LATENCY_MS = 1000;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class InFlight {
+        public int peakInFlight;
+    }
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        context = new SpringApplicationBuilder(BlockingDownstreamApp.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(
+                        // Không nạp application.properties của ứng dụng (datasource, Cloudinary, ...)
+                        "spring.config.name=request-concurrency-benchmark",
+                        "server.port=0",
+                        "server.tomcat.accept-count=" + REQUESTS,
+                        "spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        clientExecutor = Executors.newFixedThreadPool(8);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientExecutor).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/downstream")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        context.close();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public void burst(InFlight inFlight) {
+        BlockingDownstreamApp.PEAK.set(0);
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        inFlight.peakInFlight = BlockingDownstreamApp.PEAK.get();
+    }
+
+    @RestController
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            TaskExecutionAutoConfiguration.class
+    })
+    public static class BlockingDownstreamApp {
+        private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+        private static final AtomicInteger PEAK = new AtomicInteger();
+
+        @GetMapping("/downstream")
+        public String downstream() throws InterruptedException {
+            PEAK.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+            try {
+                // Giả lập request chờ I/O bên ngoài (FastAPI, Cloudinary, SMTP)
+                Thread.sleep(DOWNSTREAM_LATENCY_MS);
+                return "ok";
+            } finally {
+                IN_FLIGHT.decrementAndGet();
+            }
+        }
+    }
+}
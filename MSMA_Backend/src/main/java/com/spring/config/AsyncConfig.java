@@ -1,30 +1,85 @@
 package com.spring.config;
 
-import com.spring.service.impl.SongServiceImpl;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
 
+/**
+ * One executor per workload class so a slow dependency only saturates its own pool: song processing waits on
+ * FastAPI for minutes, notifications on Firebase, email on SMTP, cache refreshes on the database.
+ * Sizes, queue bounds and the behaviour when full are set under {@code executors.<name>.*}.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-    private static final Logger log = LoggerFactory.getLogger(SongServiceImpl.class);
+    private final BulkheadExecutorFactory executorFactory;
 
+    public AsyncConfig(MeterRegistry meterRegistry) {
+        this.executorFactory = new BulkheadExecutorFactory(meterRegistry);
+    }
+
+    // Executor mặc định cho @Async không chỉ định tên
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);        // Tối thiểu 4 thread
-        executor.setMaxPoolSize(4);         // Tối đa 4 thread
-        executor.setQueueCapacity(100);      // Có thể xếp hàng 100 tác vụ nếu thread bận
-        executor.setThreadNamePrefix("userThread-");
-        executor.setRejectedExecutionHandler((r, e) -> log.error("Task rejected: {}", r));
-        executor.initialize();
-        log.info("TaskExecutor initialized with corePoolSize=4");
-        return executor;
+    public Executor taskExecutor(
+            @Value("${executors.default.pool-size:4}") int poolSize,
+            @Value("${executors.default.queue-capacity:100}") int queueCapacity,
+            @Value("${executors.default.caller-runs:true}") boolean callerRuns
+    ) {
+        return executorFactory.create("default", poolSize, queueCapacity, callerRuns, false);
+    }
+
+    // Dùng cho các truy vấn tìm kiếm chạy song song; khi đầy thì chạy ngay trên thread gọi thay vì từ chối
+    @Bean(name = "searchExecutor")
+    public Executor searchExecutor(
+            @Value("${search.executor.pool-size:8}") int poolSize,
+            @Value("${search.executor.queue-capacity:200}") int queueCapacity
+    ) {
+        return executorFactory.create("search", poolSize, queueCapacity, true, false);
+    }
+
+    // Các bước gọi FastAPI của processSong chạy song song trên pool riêng
+    @Bean(name = "processingExecutor")
+    public Executor processingExecutor(
+            @Value("${executors.processing.pool-size:12}") int poolSize,
+            @Value("${executors.processing.queue-capacity:100}") int queueCapacity,
+            @Value("${executors.processing.caller-runs:true}") boolean callerRuns,
+            @Value("${executors.processing.virtual-threads:false}") boolean virtualThreads
+    ) {
+        return executorFactory.create("processing", poolSize, queueCapacity, callerRuns, virtualThreads);
+    }
+
+    // Chạy các fan-out tới người theo dõi do dispatcher của notification outbox giao
+    @Bean(name = "notificationExecutor")
+    public Executor notificationExecutor(
+            @Value("${executors.notification.pool-size:4}") int poolSize,
+            @Value("${executors.notification.queue-capacity:1000}") int queueCapacity,
+            @Value("${executors.notification.caller-runs:true}") boolean callerRuns,
+            @Value("${executors.notification.virtual-threads:false}") boolean virtualThreads
+    ) {
+        return executorFactory.create("notification", poolSize, queueCapacity, callerRuns, virtualThreads);
+    }
+
+    @Bean(name = "emailExecutor")
+    public Executor emailExecutor(
+            @Value("${executors.email.pool-size:2}") int poolSize,
+            @Value("${executors.email.queue-capacity:200}") int queueCapacity,
+            @Value("${executors.email.caller-runs:true}") boolean callerRuns,
+            @Value("${executors.email.virtual-threads:false}") boolean virtualThreads
+    ) {
+        return executorFactory.create("email", poolSize, queueCapacity, callerRuns, virtualThreads);
+    }
+
+    // Nạp lại cache/index sau khi dữ liệu thay đổi (search index, ...)
+    @Bean(name = "cacheRefreshExecutor")
+    public Executor cacheRefreshExecutor(
+            @Value("${executors.cache-refresh.pool-size:2}") int poolSize,
+            @Value("${executors.cache-refresh.queue-capacity:500}") int queueCapacity,
+            @Value("${executors.cache-refresh.caller-runs:true}") boolean callerRuns
+    ) {
+        return executorFactory.create("cache-refresh", poolSize, queueCapacity, callerRuns, false);
     }
 }
@@ -0,0 +1,138 @@
+package com.spring.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the named executors of {@link AsyncConfig}. Each one is its own bulkhead (fixed threads, bounded queue)
+ * and reports {@code msma.executor.*} metrics tagged with its name: active and queued tasks, rejections,
+ * time spent waiting in the queue and running.
+ * <p>
+ * Virtual-thread mode replaces the pool with one virtual thread per task, capped at {@code poolSize} concurrent
+ * tasks (further submitters wait). It is meant for pools that only block on I/O and needs JDK 21+;
+ * on older runtimes the executor falls back to the platform-thread pool.
+ */
+class BulkheadExecutorFactory {
+    private static final Logger log = LoggerFactory.getLogger(BulkheadExecutorFactory.class);
+
+    private final MeterRegistry meterRegistry;
+
+    BulkheadExecutorFactory(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param callerRuns true to run the task on the submitting thread when the queue is full,
+     *                   false to throw {@link org.springframework.core.task.TaskRejectedException}
+     */
+    Executor create(String name, int poolSize, int queueCapacity, boolean callerRuns, boolean virtualThreads) {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger queued = new AtomicInteger();
+        Counter rejected = Counter.builder("msma.executor.rejected")
+                .description("Tasks rejected because the executor was saturated")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Timer queueWait = Timer.builder("msma.executor.queue.wait")
+                .description("Time tasks spent waiting for a thread")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Timer execution = Timer.builder("msma.executor.execution")
+                .description("Time tasks spent running")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Gauge.builder("msma.executor.active", active, AtomicInteger::get)
+                .description("Tasks currently running")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Gauge.builder("msma.executor.queued", queued, AtomicInteger::get)
+                .description("Tasks submitted but not started yet")
+                .tag("executor", name)
+                .register(meterRegistry);
+
+        TaskDecorator decorator = task -> new InstrumentedTask(task, active, queued, queueWait, execution);
+
+        if (virtualThreads) {
+            if (Runtime.version().feature() >= 21) {
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(name + "-");
+                executor.setVirtualThreads(true);
+                executor.setConcurrencyLimit(poolSize);
+                executor.setTaskDecorator(decorator);
+                log.info("Executor [{}] initialized with virtual threads, concurrencyLimit={}", name, poolSize);
+                return executor;
+            }
+            log.warn("⚠️ Executor [{}]: virtual threads need JDK 21+ (running {}), using a platform thread pool",
+                    name, Runtime.version().feature());
+        }
+
+        RejectedExecutionHandler policy = callerRuns
+                ? new ThreadPoolExecutor.CallerRunsPolicy()
+                : new ThreadPoolExecutor.AbortPolicy();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(name + "-");
+        executor.setTaskDecorator(decorator);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            if (!callerRuns && task instanceof InstrumentedTask instrumented) {
+                // Task bị từ chối sẽ không bao giờ chạy
+                instrumented.abandon();
+            }
+            policy.rejectedExecution(task, pool);
+        });
+        executor.initialize();
+        log.info("Executor [{}] initialized with poolSize={}, queueCapacity={}, onFull={}",
+                name, poolSize, queueCapacity, callerRuns ? "caller-runs" : "reject");
+        return executor;
+    }
+
+    private static final class InstrumentedTask implements Runnable {
+        private final Runnable delegate;
+        private final AtomicInteger active;
+        private final AtomicInteger queued;
+        private final Timer queueWait;
+        private final Timer execution;
+        private final long submittedAt = System.nanoTime();
+
+        private InstrumentedTask(Runnable delegate, AtomicInteger active, AtomicInteger queued, Timer queueWait, Timer execution) {
+            this.delegate = delegate;
+            this.active = active;
+            this.queued = queued;
+            this.queueWait = queueWait;
+            this.execution = execution;
+            queued.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            queued.decrementAndGet();
+            queueWait.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+            active.incrementAndGet();
+            try {
+                delegate.run();
+            } finally {
+                active.decrementAndGet();
+                execution.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void abandon() {
+            queued.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.spring.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FastApiClientConfig {
+
+    @Bean
+    public PoolingHttpClientConnectionManager fastApiConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${fastapi.pool.max-total:20}") int maxTotal,
+            @Value("${fastapi.pool.max-per-route:20}") int maxPerRoute,
+            @Value("${fastapi.connect-timeout-ms:3000}") long connectTimeoutMs,
+            @Value("${fastapi.pool.validate-after-inactivity-ms:2000}") long validateAfterInactivityMs
+    ) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        // Kiểm tra lại kết nối nằm yên lâu trong pool trước khi dùng (uvicorn đóng keep-alive sau 5s)
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                        .build())
+                .build();
+
+        Gauge.builder("msma.fastapi.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .description("FastAPI connections currently in use")
+                .register(meterRegistry);
+        Gauge.builder("msma.fastapi.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .description("Requests waiting for a FastAPI connection")
+                .register(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient fastApiHttpClient(
+            PoolingHttpClientConnectionManager fastApiConnectionManager,
+            @Value("${fastapi.pool.idle-timeout-ms:30000}") long idleTimeoutMs
+    ) {
+        return HttpClients.custom()
+                .setConnectionManager(fastApiConnectionManager)
+                // Retry do FastApiClient quyết định, để không gửi lại file audio hai lần một cách ngầm định
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMs))
+                .build();
+    }
+}
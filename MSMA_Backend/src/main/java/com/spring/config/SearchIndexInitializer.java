@@ -0,0 +1,175 @@
+package com.spring.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the pg_trgm, full-text and keyset sort-key objects used by search. Runs after Hibernate has updated the schema
+ * (hence the EntityManagerFactory dependency) and every statement is idempotent, so it is safe on each startup.
+ * <p>
+ * A failed statement does not stop startup. Relevance ranking is only reported available when every search_*_ids
+ * function exists afterwards; otherwise search falls back to the plain LIKE queries ordered by release date.
+ */
+@Component
+public class SearchIndexInitializer {
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    private static final List<String> STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+
+            // Trigram index cho các cột tìm kiếm (hỗ trợ cả LIKE '%x%' và toán tử %)
+            "CREATE INDEX IF NOT EXISTS idx_songs_title_trgm ON songs USING gin (lower(title) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_playlists_name_trgm ON playlists USING gin (lower(playlist_name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_albums_name_trgm ON albums USING gin (lower(album_name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_artists_name_trgm ON artists USING gin (lower(artist_name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_genres_name_trgm ON genres USING gin (lower(genre_name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_users_first_name_trgm ON users USING gin (lower(first_name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_users_last_name_trgm ON users USING gin (lower(last_name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops)",
+
+            // tsvector: tiêu đề (trọng số A) + đoạn đầu lời bài hát (trọng số C)
+            """
+            ALTER TABLE songs ADD COLUMN IF NOT EXISTS search_vector tsvector
+                GENERATED ALWAYS AS (
+                    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+                    setweight(to_tsvector('simple', left(coalesce(lyrics, ''), 2000)), 'C')
+                ) STORED
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_songs_search_vector ON songs USING gin (search_vector)",
+
+            // Khoá sắp xếp cho keyset pagination: (khoá, id)
+            "CREATE INDEX IF NOT EXISTS idx_songs_release_date_id ON songs ((COALESCE(release_date, 'epoch')), id)",
+            "CREATE INDEX IF NOT EXISTS idx_songs_title_id ON songs ((COALESCE(title, '')), id)",
+            "CREATE INDEX IF NOT EXISTS idx_playlists_release_date_id ON playlists ((COALESCE(release_date, 'epoch')), id)",
+            "CREATE INDEX IF NOT EXISTS idx_playlists_name_id ON playlists ((COALESCE(playlist_name, '')), id)",
+            "CREATE INDEX IF NOT EXISTS idx_albums_release_date_id ON albums ((COALESCE(release_date, 'epoch')), id)",
+            "CREATE INDEX IF NOT EXISTS idx_albums_name_id ON albums ((COALESCE(album_name, '')), id)",
+            "CREATE INDEX IF NOT EXISTS idx_song_stats_total_listens ON song_stats (total_listens, song_id)",
+            "CREATE INDEX IF NOT EXISTS idx_song_stats_distinct_listeners ON song_stats (distinct_listeners, song_id)",
+
+            // Hàm trả về (id, rank) cho từng loại nội dung; q phải là chuỗi đã lower-case
+            """
+            CREATE OR REPLACE FUNCTION search_song_ids(q text)
+            RETURNS TABLE (song_id bigint, rank real)
+            LANGUAGE sql STABLE AS $$
+                SELECT m.song_id, SUM(m.rank)::real
+                FROM (
+                    SELECT s.id AS song_id,
+                           GREATEST(similarity(lower(s.title), q), word_similarity(q, lower(s.title)))
+                               + CASE WHEN lower(s.title) = q THEN 1 ELSE 0 END
+                               + ts_rank(s.search_vector, plainto_tsquery('simple', q)) AS rank
+                    FROM songs s
+                    WHERE lower(s.title) LIKE '%' || q || '%'
+                       OR lower(s.title) % q
+                       OR s.search_vector @@ plainto_tsquery('simple', q)
+                    UNION ALL
+                    SELECT ars.song_id,
+                           0.5 * GREATEST(similarity(lower(a.artist_name), q), word_similarity(q, lower(a.artist_name)))
+                    FROM artists a
+                    JOIN artist_songs ars ON ars.artist_id = a.id
+                    WHERE lower(a.artist_name) LIKE '%' || q || '%'
+                       OR lower(a.artist_name) % q
+                    UNION ALL
+                    SELECT gs.song_id, 0.3
+                    FROM genres g
+                    JOIN genre_songs gs ON gs.genre_id = g.id
+                    WHERE lower(g.genre_name) LIKE '%' || q || '%'
+                ) m
+                GROUP BY m.song_id
+            $$
+            """,
+            """
+            CREATE OR REPLACE FUNCTION search_playlist_ids(q text)
+            RETURNS TABLE (playlist_id bigint, rank real)
+            LANGUAGE sql STABLE AS $$
+                SELECT p.id,
+                       (GREATEST(similarity(lower(p.playlist_name), q), word_similarity(q, lower(p.playlist_name)))
+                           + CASE WHEN lower(p.playlist_name) = q THEN 1 ELSE 0 END)::real
+                FROM playlists p
+                WHERE lower(p.playlist_name) LIKE '%' || q || '%'
+                   OR lower(p.playlist_name) % q
+            $$
+            """,
+            """
+            CREATE OR REPLACE FUNCTION search_album_ids(q text)
+            RETURNS TABLE (album_id bigint, rank real)
+            LANGUAGE sql STABLE AS $$
+                SELECT a.id,
+                       (GREATEST(similarity(lower(a.album_name), q), word_similarity(q, lower(a.album_name)))
+                           + CASE WHEN lower(a.album_name) = q THEN 1 ELSE 0 END)::real
+                FROM albums a
+                WHERE lower(a.album_name) LIKE '%' || q || '%'
+                   OR lower(a.album_name) % q
+            $$
+            """,
+            """
+            CREATE OR REPLACE FUNCTION search_artist_ids(q text)
+            RETURNS TABLE (artist_id bigint, rank real)
+            LANGUAGE sql STABLE AS $$
+                SELECT a.id,
+                       (GREATEST(similarity(lower(a.artist_name), q), word_similarity(q, lower(a.artist_name)))
+                           + CASE WHEN lower(a.artist_name) = q THEN 1 ELSE 0 END)::real
+                FROM artists a
+                WHERE lower(a.artist_name) LIKE '%' || q || '%'
+                   OR lower(a.artist_name) % q
+            $$
+            """
+    );
+
+    private static final List<String> RANKING_FUNCTIONS = List.of(
+            "search_song_ids(text)", "search_playlist_ids(text)", "search_album_ids(text)", "search_artist_ids(text)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean relevanceAvailable;
+
+    public SearchIndexInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init() {
+        long start = System.currentTimeMillis();
+        for (String statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (Exception e) {
+                log.error("❌ Search index statement failed: {}\n{}", e.getMessage(), statement);
+            }
+        }
+        relevanceAvailable = rankingFunctionsExist();
+        if (relevanceAvailable) {
+            log.info("Search indexes ready in {} ms", System.currentTimeMillis() - start);
+        } else {
+            log.error("❌ Search ranking functions are missing: orderBy=relevance falls back to releaseDate");
+        }
+    }
+
+    /**
+     * Whether the search_*_ids ranking functions exist, i.e. orderBy=relevance can be served.
+     */
+    public boolean isRelevanceAvailable() {
+        return relevanceAvailable;
+    }
+
+    // Helper Method
+    private boolean rankingFunctionsExist() {
+        try {
+            for (String function : RANKING_FUNCTIONS) {
+                Boolean exists = jdbcTemplate.queryForObject("SELECT to_regprocedure(?) IS NOT NULL", Boolean.class, function);
+                if (!Boolean.TRUE.equals(exists)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("❌ Checking search ranking functions failed: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.spring.config;
 
 import com.spring.constants.UserType;
-import com.spring.constants.ApiEndpoints;
 import com.spring.security.JwtAuthenticationFilter;
+import com.spring.security.PermittedPathMatcher;
 import com.spring.security.UserStatusFilter;
 import com.spring.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +32,7 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final UserService userService;
     private final UserStatusFilter userStatusFilter;
+    private final PermittedPathMatcher permittedPathMatcher;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -39,7 +40,7 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(request -> request
-                        .requestMatchers(ApiEndpoints.PERMITTED.getApis()).permitAll()
+                        .requestMatchers(permittedPathMatcher).permitAll()
                         .requestMatchers("/api/v1/admin/**").hasAuthority(UserType.ADMIN.name())
                         .requestMatchers("/api/v1/user/**").hasAuthority(UserType.USER.name())
                         .requestMatchers("/api/v1/artist/**").hasAuthority(UserType.ARTIST.name())
@@ -24,7 +24,13 @@ public enum ApiResponseCode {
     INVALID_REFRESH_REQUEST_EXPIRED("401", "Refresh token is expired"),
     BAD_REQUEST("400", "BAD_REQUEST"),
     INVALID_RESET_KEY("404", "Reset key is invalid"),
+    TOO_MANY_REQUESTS("429", "Too many requests, please retry later"),
     INTERNAL_SERVER_ERROR("500", "Internal Server Error"),
+    FASTAPI_REJECTED("422", "Prediction service rejected the request"),
+    FASTAPI_ERROR("502", "Prediction service returned an error"),
+    FASTAPI_UNAVAILABLE("503", "Prediction service unavailable, please retry later"),
+    FASTAPI_TIMEOUT("504", "Prediction service timed out"),
+    SEARCH_UNAVAILABLE("503", "Search is unavailable, please retry later"),
     INVALID_STATUS("400", "Invalid status");
 
     private final String status;
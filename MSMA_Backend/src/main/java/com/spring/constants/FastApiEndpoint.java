@@ -0,0 +1,23 @@
+package com.spring.constants;
+
+import lombok.Getter;
+
+@Getter
+public enum FastApiEndpoint {
+    LYRICS_SIMILARITY("lyrics-similarity", "/check-similarity", 15_000),
+    AUDIO_SIMILARITY("audio-similarity", "/check-similarity", 120_000),
+    TRANSCRIBE_LYRICS("transcribe-lyrics", "/transcribe-lyrics", 300_000),
+    LYRICS_AUDIO_MATCH("lyrics-audio-match", "/check-similar-between-input-and-audio", 15_000),
+    LYRICS_GENRE("lyrics-genre", "/predict-genre", 15_000),
+    AUDIO_GENRE("audio-genre", "/predict-genre", 120_000);
+
+    private final String key;               // tag cho metrics và hậu tố của fastapi.read-timeout-ms.*
+    private final String path;
+    private final long defaultReadTimeoutMs;
+
+    FastApiEndpoint(String key, String path, long defaultReadTimeoutMs) {
+        this.key = key;
+        this.path = path;
+        this.defaultReadTimeoutMs = defaultReadTimeoutMs;
+    }
+}
@@ -0,0 +1,8 @@
+package com.spring.constants;
+
+public enum SearchContentType {
+    SONG,
+    PLAYLIST,
+    ALBUM,
+    ARTIST
+}
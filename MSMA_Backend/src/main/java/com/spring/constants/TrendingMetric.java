@@ -0,0 +1,7 @@
+package com.spring.constants;
+
+public enum TrendingMetric {
+    LISTENS,
+    DOWNLOADS,
+    LIKES
+}
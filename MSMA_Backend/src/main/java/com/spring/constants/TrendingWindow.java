@@ -0,0 +1,29 @@
+package com.spring.constants;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public enum TrendingWindow {
+    DAY("24h", Duration.ofHours(24)),
+    WEEK("7d", Duration.ofDays(7)),
+    ALL_TIME("all", null);
+
+    private final String value;
+    private final Duration duration;    // null = tính toàn bộ thời gian
+
+    TrendingWindow(String value, Duration duration) {
+        this.value = value;
+        this.duration = duration;
+    }
+
+    public static TrendingWindow fromValue(String value) {
+        for (TrendingWindow window : values()) {
+            if (window.value.equalsIgnoreCase(value) || window.name().equalsIgnoreCase(value)) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("Unknown trending window: " + value);
+    }
+}
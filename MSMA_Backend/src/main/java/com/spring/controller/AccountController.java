@@ -2,6 +2,8 @@ package com.spring.controller;
 
 import com.spring.constants.ApiResponseCode;
 import com.spring.constants.Gender;
+import com.spring.constants.TrendingMetric;
+import com.spring.constants.TrendingWindow;
 import com.spring.dto.request.account.*;
 import com.spring.dto.response.*;
 import com.spring.exceptions.BusinessException;
@@ -224,9 +226,27 @@ public class AccountController {
         return ResponseEntity.ok(songService.getTop15MostDownloadSong());
     }
 
+    @GetMapping("/song/trending")
+    public ResponseEntity<List<SongResponse>> getTrendingSongs(
+            @RequestParam(defaultValue = "LISTENS") TrendingMetric metric,
+            @RequestParam(defaultValue = "7d") String window,
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        TrendingWindow trendingWindow;
+        try {
+            trendingWindow = TrendingWindow.fromValue(window);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ApiResponseCode.INVALID_FORMAT);
+        }
+        return ResponseEntity.ok(songService.getTrendingSongs(metric, trendingWindow, Math.min(Math.max(size, 1), 100)));
+    }
+
     @GetMapping("/viewHistoryListen")
-    public ResponseEntity<List<HistoryListenResponse>> viewHistoryListen() {
-        return ResponseEntity.ok(userSongCountService.getAllHistoryListenByCurrentUser());
+    public ResponseEntity<List<HistoryListenResponse>> viewHistoryListen(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return ResponseEntity.ok(userSongCountService.getAllHistoryListenByCurrentUser(cursor, size));
     }
 
     @GetMapping("/recentListening")
@@ -1,11 +1,13 @@
 package com.spring.controller;
 
 import com.spring.dto.request.*;
+import com.spring.dto.response.SearchSuggestionResponse;
 import com.spring.service.SearchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -85,4 +87,13 @@ public class SearchController {
         Map<String, Object> response = searchService.getContents(title, genreId, type, limit, offset);
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SearchSuggestionResponse>> suggest(
+            @RequestParam(name = "q") String query,
+            @RequestParam(required = false, defaultValue = "all") String type,
+            @RequestParam(required = false, name = "limit", defaultValue = "10") Integer limit
+    ) {
+        return ResponseEntity.ok(searchService.suggest(query, type, Math.min(limit, 50)));
+    }
 }
@@ -5,6 +5,9 @@ import com.spring.dto.request.music.*;
 import com.spring.dto.response.*;
 import com.spring.service.AccountService;
 import com.spring.service.AlbumService;
+import com.spring.service.CatalogSearchIndex;
+import com.spring.service.HistoryListenPartitionService;
+import com.spring.service.NotificationFanout;
 import com.spring.service.PlaylistService;
 import com.spring.service.SongService;
 import jakarta.validation.Valid;
@@ -13,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/admin/manage")
@@ -22,6 +26,9 @@ public class AdminManagementController {
     private final PlaylistService playlistService;
     private final AlbumService albumService;
     private final AccountService accountService;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final NotificationFanout notificationFanout;
+    private final HistoryListenPartitionService historyListenPartitionService;
 
     /*
         TODO: Account
@@ -221,4 +228,33 @@ public class AdminManagementController {
     public ResponseEntity<List<AdminPresentation>> getInfoAllAdmin() {
         return ResponseEntity.ok(accountService.getAllAdminByLockedStatus());
     }
+
+    /*
+        TODO: Search Index
+    */
+    @PostMapping("/searchIndex/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSearchIndex() {
+        return ResponseEntity.ok(catalogSearchIndex.rebuild());
+    }
+
+    @GetMapping("/searchIndex/stats")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        return ResponseEntity.ok(catalogSearchIndex.getStats());
+    }
+
+    /*
+        TODO: Notifications
+    */
+    @GetMapping("/notifications/fanout/progress")
+    public ResponseEntity<List<Map<String, Object>>> getNotificationFanoutProgress() {
+        return ResponseEntity.ok(notificationFanout.getProgress());
+    }
+
+    /*
+        TODO: History Listens
+    */
+    @PostMapping("/historyListens/partition")
+    public ResponseEntity<Map<String, Object>> partitionHistoryListens() {
+        return ResponseEntity.ok(historyListenPartitionService.migrateToPartitionedTable());
+    }
 }
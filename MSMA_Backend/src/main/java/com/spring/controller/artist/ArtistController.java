@@ -1,13 +1,16 @@
 package com.spring.controller.artist;
 
 import com.spring.dto.response.ArtistPresentation;
+import com.spring.dto.response.DailyListenResponse;
 import com.spring.dto.response.GenreResponse;
 import com.spring.dto.response.SongResponse;
 import com.spring.service.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -57,6 +60,15 @@ public class ArtistController {
         return ResponseEntity.ok(songService.getCountListen(songId));
     }
 
+    @GetMapping("/song/daily-listens/{songId}")
+    public ResponseEntity<List<DailyListenResponse>> getDailyListens(
+            @PathVariable Long songId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(songService.getDailyListens(songId, from, to));
+    }
+
     @GetMapping("/otherArtists")
     public ResponseEntity<List<ArtistPresentation>> getAllOtherArtist() {
         return ResponseEntity.ok(accountService.getAllOtherArtist());
@@ -0,0 +1,21 @@
+package com.spring.dto;
+
+import com.spring.constants.SearchContentType;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when a song, playlist, album or artist may have been added to, changed in or removed from
+ * the searchable catalog. Listeners reload the entity by id, so the same event covers all three cases.
+ */
+@Getter
+public class CatalogChangedEvent extends ApplicationEvent {
+    private final SearchContentType type;
+    private final Long id;
+
+    public CatalogChangedEvent(Object source, SearchContentType type, Long id) {
+        super(source);
+        this.type = type;
+        this.id = id;
+    }
+}
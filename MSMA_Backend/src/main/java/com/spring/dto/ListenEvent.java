@@ -0,0 +1,14 @@
+package com.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class ListenEvent {
+    private final Long userId;
+    private final Long songId;
+    private final LocalDateTime listenedAt;
+}
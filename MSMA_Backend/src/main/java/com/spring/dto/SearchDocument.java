@@ -0,0 +1,15 @@
+package com.spring.dto;
+
+import com.spring.constants.SearchContentType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SearchDocument {
+    private final SearchContentType type;
+    private final Long id;
+    private final String name;
+    private final String keywords;  // Tên nghệ sĩ liên quan
+    private final long[] genreIds;
+}
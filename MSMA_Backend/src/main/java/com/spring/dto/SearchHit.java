@@ -0,0 +1,14 @@
+package com.spring.dto;
+
+import com.spring.constants.SearchContentType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SearchHit {
+    private final SearchContentType type;
+    private final Long id;
+    private final String name;
+    private final float score;
+}
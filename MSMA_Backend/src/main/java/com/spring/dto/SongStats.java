@@ -0,0 +1,15 @@
+package com.spring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SongStats {
+    public static final SongStats EMPTY = new SongStats(0L, 0L, 0L, 0L);
+
+    private final Long numberOfListeners;   // Số người nghe (USER)
+    private final Long countListen;         // Tổng số lượt nghe
+    private final Long numberOfDownload;
+    private final Long numberOfUserLike;
+}
@@ -0,0 +1,20 @@
+package com.spring.dto;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when a user's credentials, profile or status (ACTIVE, LOCKED, INACTIVE, DELETED) may have changed,
+ * or the user was removed. Listeners drop whatever they cached for that user.
+ */
+@Getter
+public class UserAuthChangedEvent extends ApplicationEvent {
+    private final Long userId;
+    private final String email;
+
+    public UserAuthChangedEvent(Object source, Long userId, String email) {
+        super(source);
+        this.userId = userId;
+        this.email = email;
+    }
+}
@@ -6,20 +6,30 @@ import lombok.Data;
 public class PaginationPlaylistRequest {
     private int page = 1;
     private int size = 10;
-    private String orderBy = "releaseDate";  // releaseDate | title
-    private String order = "asc";            // asc | desc
+    private String orderBy;                  // relevance | releaseDate | title (mặc định relevance)
+    private String order;                    // asc | desc (mặc định asc; relevance luôn giảm dần)
     private String search = "";
+    private String cursor;                   // Keyset: "" cho trang đầu, sau đó gửi lại nextCursor
+    private boolean includeTotal = false;    // Chỉ đếm tổng khi client cần (chế độ keyset)
 
     public String getOrder() {
         return order != null ? order : "asc";
     }
 
+    public boolean isOrderSpecified() {
+        return order != null;
+    }
+
+    public boolean isOrderBySpecified() {
+        return orderBy != null;
+    }
+
     public String getSearch() {
         return search != null ? search : "";
     }
 
     public String getOrderBy() {
-        return orderBy != null ? orderBy : "releaseDate";
+        return orderBy != null ? orderBy : "relevance";
     }
 }
 
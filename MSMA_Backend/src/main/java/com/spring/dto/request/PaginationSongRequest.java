@@ -7,20 +7,30 @@ public class PaginationSongRequest {
     private int page = 1;
     private int size = 10;
     private Long genreId;                    // Lọc theo thể loại
-    private String orderBy = "releaseDate";  // title | releaseDate | numberOfListeners| countListen
-    private String order = "asc";            // asc | desc
+    private String orderBy;                  // relevance | title | releaseDate | numberOfListeners| countListen (mặc định relevance)
+    private String order;                    // asc | desc (mặc định asc; relevance luôn giảm dần)
     private String search = "";
+    private String cursor;                   // Keyset: "" cho trang đầu, sau đó gửi lại nextCursor
+    private boolean includeTotal = false;    // Chỉ đếm tổng khi client cần (chế độ keyset)
 
     public String getOrder() {
         return order != null ? order.toLowerCase() : "asc";
     }
 
+    public boolean isOrderSpecified() {
+        return order != null;
+    }
+
+    public boolean isOrderBySpecified() {
+        return orderBy != null;
+    }
+
     public String getSearch() {
         return search != null ? search : "";
     }
 
     public String getOrderBy() {
-        return orderBy != null ? orderBy : "releaseDate";
+        return orderBy != null ? orderBy : "relevance";
     }
 }
 
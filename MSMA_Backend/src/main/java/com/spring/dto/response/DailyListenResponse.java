@@ -0,0 +1,16 @@
+package com.spring.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyListenResponse {
+    private String day;
+    private Long listens;
+    private Long listeners;
+}
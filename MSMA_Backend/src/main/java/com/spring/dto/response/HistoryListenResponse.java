@@ -29,4 +29,5 @@ public class HistoryListenResponse {
     private Long numberOfUserLike;
     private Long numberOfDownload;
     private String message;
+    private String cursor;      // Truyền lại để lấy trang tiếp theo
 }
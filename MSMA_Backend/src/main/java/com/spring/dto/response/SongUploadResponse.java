@@ -13,6 +13,7 @@ import java.util.List;
 public class SongUploadResponse {
     private MultipartFile mp3File;
     private String mp3Url;
+    private String audioSha256;
     private MultipartFile image;
     private String imageUrl;
     private String duration;
@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder(toBuilder = true)
 @Entity
-@Table(name = "history_listens")
+@Table(name = "history_listens", indexes = {
+        @Index(name = "idx_history_listens_user_date", columnList = "user_id, date DESC")
+})
 public class HistoryListen {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
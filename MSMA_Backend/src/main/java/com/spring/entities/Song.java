@@ -46,6 +46,9 @@ public class Song {
     @Column(name = "mp3_url", columnDefinition = "text")
     private String mp3Url;        // Song file url from Cloudinary
 
+    @Column(name = "audio_sha256", length = 64)
+    private String audioSha256;   // Khoá của file trong staging store cục bộ, dùng lại khi xử lý bài hát
+
     @Column(name = "count_listener")
     private Long countListener;     // Số người nghe
 
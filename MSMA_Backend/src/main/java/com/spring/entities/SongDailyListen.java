@@ -0,0 +1,24 @@
+package com.spring.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "listen_daily_song", indexes = {
+        @Index(name = "idx_listen_daily_song_day", columnList = "day")
+})
+public class SongDailyListen {
+    @EmbeddedId
+    private SongDailyListenId songDailyListenId;
+
+    @Column(name = "listens", nullable = false)
+    private Long listens;       // Số lượt nghe trong ngày
+
+    @Column(name = "listeners", nullable = false)
+    private Long listeners;     // Số người nghe khác nhau trong ngày
+}
@@ -0,0 +1,22 @@
+package com.spring.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class SongDailyListenId implements Serializable {
+    @Column(name = "song_id")
+    private Long songId;
+
+    @Column(name = "day")
+    private LocalDate day;
+}
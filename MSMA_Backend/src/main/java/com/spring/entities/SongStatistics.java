@@ -0,0 +1,39 @@
+package com.spring.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "song_stats", indexes = {
+        @Index(name = "idx_song_stats_total_listens", columnList = "total_listens"),
+        @Index(name = "idx_song_stats_distinct_listeners", columnList = "distinct_listeners"),
+        @Index(name = "idx_song_stats_downloads", columnList = "downloads"),
+        @Index(name = "idx_song_stats_likes", columnList = "likes")
+})
+public class SongStatistics {
+    @Id
+    @Column(name = "song_id")
+    private Long songId;
+
+    @Column(name = "total_listens", nullable = false)
+    private Long totalListens;          // Tổng số lượt nghe
+
+    @Column(name = "distinct_listeners", nullable = false)
+    private Long distinctListeners;     // Số người nghe (USER)
+
+    @Column(name = "likes", nullable = false)
+    private Long likes;
+
+    @Column(name = "downloads", nullable = false)
+    private Long downloads;
+
+    @Column(name = "last_listened_at")
+    private LocalDateTime lastListenedAt;
+}
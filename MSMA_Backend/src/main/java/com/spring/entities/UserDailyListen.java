@@ -0,0 +1,24 @@
+package com.spring.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "listen_daily_user", indexes = {
+        @Index(name = "idx_listen_daily_user_day", columnList = "day")
+})
+public class UserDailyListen {
+    @EmbeddedId
+    private UserDailyListenId userDailyListenId;
+
+    @Column(name = "listens", nullable = false)
+    private Long listens;       // Số lượt nghe trong ngày
+
+    @Column(name = "songs", nullable = false)
+    private Long songs;         // Số bài hát khác nhau đã nghe trong ngày
+}
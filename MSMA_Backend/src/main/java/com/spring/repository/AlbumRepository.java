@@ -57,4 +57,53 @@ public interface AlbumRepository extends JpaRepository<Album, Long> {
             @Param("limit") Integer limit,
             @Param("offset") Integer offset
     );
+
+    // Xếp hạng theo độ liên quan (trigram), xem search_album_ids
+    @Query(
+            value = """
+                SELECT a.*
+                FROM albums a
+                JOIN search_album_ids(:search) m ON m.album_id = a.id
+                ORDER BY m.rank DESC, a.release_date DESC, a.id DESC
+               """,
+            countQuery = """
+                SELECT COUNT(*)
+                FROM albums a
+                JOIN search_album_ids(:search) m ON m.album_id = a.id
+                """,
+            nativeQuery = true
+    )
+    Page<Album> findAlbumsByRelevance(Pageable pageable, @Param("search") String search);
+
+    @Query(
+            value = """
+                SELECT a.*
+                FROM albums a
+                JOIN search_album_ids(:search) m ON m.album_id = a.id
+                WHERE EXISTS (SELECT 1 FROM artist_albums x WHERE x.album_id = a.id AND x.artist_id = :artistId)
+                ORDER BY m.rank DESC, a.release_date DESC, a.id DESC
+               """,
+            countQuery = """
+                SELECT COUNT(*)
+                FROM albums a
+                JOIN search_album_ids(:search) m ON m.album_id = a.id
+                WHERE EXISTS (SELECT 1 FROM artist_albums x WHERE x.album_id = a.id AND x.artist_id = :artistId)
+                """,
+            nativeQuery = true
+    )
+    Page<Album> findArtistAlbumsByRelevance(Pageable pageable, @Param("search") String search, @Param("artistId") Long artistId);
+
+    @Query(nativeQuery = true, value = """
+                SELECT a.*
+                FROM albums a
+                JOIN search_album_ids(:title) m ON m.album_id = a.id
+                WHERE a.status = 'ACCEPTED'
+                ORDER BY m.rank DESC, a.release_date DESC, a.id DESC
+                LIMIT :limit OFFSET :offset
+            """)
+    List<Album> searchAcceptedAlbumsByRelevance(
+            @Param("title") String title,
+            @Param("limit") Integer limit,
+            @Param("offset") Integer offset
+    );
 }
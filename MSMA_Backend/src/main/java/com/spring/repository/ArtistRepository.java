@@ -32,4 +32,18 @@ public interface ArtistRepository extends JpaRepository<Artist, Long> {
             @Param("limit") Integer limit,
             @Param("offset") Integer offset
     );
+
+    @Query(value = """
+                SELECT a.*, u.*
+                FROM artists a
+                JOIN users u ON a.id = u.id
+                JOIN search_artist_ids(:title) m ON m.artist_id = a.id
+                ORDER BY m.rank DESC, u.created_date DESC
+                LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<Artist> searchArtistsByRelevance(
+            @Param("title") String title,
+            @Param("limit") Integer limit,
+            @Param("offset") Integer offset
+    );
 }
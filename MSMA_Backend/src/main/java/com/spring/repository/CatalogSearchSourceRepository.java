@@ -0,0 +1,123 @@
+package com.spring.repository;
+
+import com.spring.constants.SearchContentType;
+import com.spring.dto.SearchDocument;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Reads the searchable part of the catalog (accepted songs, playlists, albums and every artist)
+ * as flat {@link SearchDocument} rows for the in-memory search index.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogSearchSourceRepository {
+    private static final int FETCH_SIZE = 2000;
+
+    private static final Map<SearchContentType, String> SELECTS = Map.of(
+            SearchContentType.SONG, """
+                SELECT s.id,
+                       s.title AS name,
+                       (SELECT string_agg(a.artist_name, ' ')
+                        FROM artist_songs ars JOIN artists a ON a.id = ars.artist_id
+                        WHERE ars.song_id = s.id) AS keywords,
+                       (SELECT array_agg(gs.genre_id) FROM genre_songs gs WHERE gs.song_id = s.id) AS genre_ids
+                FROM songs s
+                WHERE s.status = 'ACCEPTED'
+            """,
+            SearchContentType.PLAYLIST, """
+                SELECT p.id,
+                       p.playlist_name AS name,
+                       (SELECT string_agg(a.artist_name, ' ')
+                        FROM artist_playlists ap JOIN artists a ON a.id = ap.artist_id
+                        WHERE ap.playlist_id = p.id) AS keywords,
+                       NULL::bigint[] AS genre_ids
+                FROM playlists p
+                WHERE p.status = 'ACCEPTED'
+            """,
+            SearchContentType.ALBUM, """
+                SELECT al.id,
+                       al.album_name AS name,
+                       (SELECT string_agg(a.artist_name, ' ')
+                        FROM artist_albums aa JOIN artists a ON a.id = aa.artist_id
+                        WHERE aa.album_id = al.id) AS keywords,
+                       NULL::bigint[] AS genre_ids
+                FROM albums al
+                WHERE al.status = 'ACCEPTED'
+            """,
+            SearchContentType.ARTIST, """
+                SELECT a.id,
+                       a.artist_name AS name,
+                       NULL::text AS keywords,
+                       NULL::bigint[] AS genre_ids
+                FROM artists a
+                WHERE a.artist_name IS NOT NULL
+            """
+    );
+
+    private static final Map<SearchContentType, String> ID_COLUMNS = Map.of(
+            SearchContentType.SONG, "s.id",
+            SearchContentType.PLAYLIST, "p.id",
+            SearchContentType.ALBUM, "al.id",
+            SearchContentType.ARTIST, "a.id"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Streams every searchable row of the given type without materialising the whole result set.
+     * The PostgreSQL driver only honours the fetch size (server-side cursor) with autocommit off,
+     * so the query runs inside a read-only transaction.
+     */
+    public void forEach(SearchContentType type, Consumer<SearchDocument> consumer) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(
+                con -> {
+                    var ps = con.prepareStatement(SELECTS.get(type));
+                    ps.setFetchSize(FETCH_SIZE);
+                    return ps;
+                },
+                rs -> {
+                    consumer.accept(mapRow(type, rs));
+                }
+        ));
+    }
+
+    /**
+     * @return the document if the entity exists and is searchable, empty if it was deleted or is not accepted
+     */
+    public Optional<SearchDocument> findOne(SearchContentType type, Long id) {
+        List<SearchDocument> rows = jdbcTemplate.query(
+                SELECTS.get(type) + " AND " + ID_COLUMNS.get(type) + " = ?",
+                (rs, rowNum) -> mapRow(type, rs),
+                id
+        );
+        return rows.stream().findFirst();
+    }
+
+    private static SearchDocument mapRow(SearchContentType type, ResultSet rs) throws SQLException {
+        long[] genreIds = null;
+        Array array = rs.getArray("genre_ids");
+        if (array != null) {
+            Long[] values = (Long[]) array.getArray();
+            genreIds = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                genreIds[i] = values[i];
+            }
+        }
+        return new SearchDocument(type, rs.getLong("id"), rs.getString("name"), rs.getString("keywords"), genreIds);
+    }
+}
@@ -2,8 +2,57 @@ package com.spring.repository;
 
 import com.spring.entities.HistoryListen;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface HistoryListenRepository extends JpaRepository<HistoryListen,Long> {
+    // Lượt nghe mới nhất của mỗi bài hát, đọc theo index (user_id, date DESC).
+    // Điều kiện date >= :since giúp Postgres chỉ quét các partition cần thiết.
+    @Query(value = """
+                SELECT h.* FROM (
+                    SELECT DISTINCT ON (hl.song_id) hl.id, hl.user_id, hl.song_id, hl.date
+                    FROM history_listens hl
+                    WHERE hl.user_id = :userId AND hl.date >= :since
+                    ORDER BY hl.song_id, hl.date DESC, hl.id DESC
+                ) h
+                ORDER BY h.date DESC, h.id DESC
+                LIMIT :limit
+            """, nativeQuery = true)
+    List<HistoryListen> findLatestPerSongByUserId(
+            @Param("userId") Long userId,
+            @Param("since") LocalDateTime since,
+            @Param("limit") int limit
+    );
+
+    @Query(value = """
+                SELECT h.* FROM (
+                    SELECT DISTINCT ON (hl.song_id) hl.id, hl.user_id, hl.song_id, hl.date
+                    FROM history_listens hl
+                    WHERE hl.user_id = :userId AND hl.date >= :since
+                    ORDER BY hl.song_id, hl.date DESC, hl.id DESC
+                ) h
+                WHERE (h.date, h.id) < (:beforeDate, :beforeId)
+                ORDER BY h.date DESC, h.id DESC
+                LIMIT :limit
+            """, nativeQuery = true)
+    List<HistoryListen> findLatestPerSongByUserIdBefore(
+            @Param("userId") Long userId,
+            @Param("since") LocalDateTime since,
+            @Param("beforeDate") LocalDateTime beforeDate,
+            @Param("beforeId") Long beforeId,
+            @Param("limit") int limit
+    );
+
+    @Query(value = """
+                SELECT hl.song_id, date_trunc('hour', hl.date) AS bucket, COUNT(*)
+                FROM history_listens hl
+                WHERE hl.date >= :since
+                GROUP BY hl.song_id, bucket
+            """, nativeQuery = true)
+    List<Object[]> countListensBySongAndHourSince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,208 @@
+package com.spring.repository;
+
+import com.spring.dto.ListenEvent;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Repository
+@RequiredArgsConstructor
+public class ListenEventBatchRepository {
+    private static final Logger log = LoggerFactory.getLogger(ListenEventBatchRepository.class);
+
+    private static final String UPSERT_USER_SONG_COUNT = """
+                INSERT INTO user_song_count (user_id, song_id, count_listen)
+                VALUES (?, ?, ?)
+                ON CONFLICT (song_id, user_id) DO UPDATE
+                SET count_listen = user_song_count.count_listen + EXCLUDED.count_listen
+            """;
+
+    private static final String INSERT_HISTORY_LISTEN = """
+                INSERT INTO history_listens (user_id, song_id, date)
+                VALUES (?, ?, ?)
+            """;
+
+    private static final String INCREMENT_SONG_LISTENER = """
+                UPDATE songs SET count_listener = COALESCE(count_listener, 0) + ? WHERE id = ?
+            """;
+
+    private static final String UPSERT_SONG_STATS = """
+                INSERT INTO song_stats (song_id, total_listens, distinct_listeners, likes, downloads, last_listened_at)
+                VALUES (?, ?, ?, 0, 0, ?)
+                ON CONFLICT (song_id) DO UPDATE
+                SET total_listens = song_stats.total_listens + EXCLUDED.total_listens,
+                    distinct_listeners = song_stats.distinct_listeners + EXCLUDED.distinct_listeners,
+                    last_listened_at = GREATEST(song_stats.last_listened_at, EXCLUDED.last_listened_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Writes a batch of listen events in one transaction: per (user, song) increments are coalesced
+     * into a single upsert row, every event gets its history row, and the song counters are bumped once per song.
+     * Events pointing at users or songs that no longer exist are skipped.
+     *
+     * @return number of events written
+     */
+    @Transactional
+    public int writeBatch(List<ListenEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> songIds = new HashSet<>();
+        for (ListenEvent event : events) {
+            userIds.add(event.getUserId());
+            songIds.add(event.getSongId());
+        }
+        Map<Long, String> userTypes = findUserTypes(userIds);
+        Set<Long> existingSongIds = findExistingSongIds(songIds);
+
+        // Gộp các lượt nghe theo (user, song)
+        List<ListenEvent> valid = new ArrayList<>(events.size());
+        Map<UserSongKey, Long> listensByPair = new LinkedHashMap<>();
+        for (ListenEvent event : events) {
+            if (!userTypes.containsKey(event.getUserId()) || !existingSongIds.contains(event.getSongId())) {
+                continue;
+            }
+            valid.add(event);
+            listensByPair.merge(new UserSongKey(event.getUserId(), event.getSongId()), 1L, Long::sum);
+        }
+        if (valid.size() < events.size()) {
+            log.warn("Skipped {} listen events for deleted users or songs", events.size() - valid.size());
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+
+        // Phải đọc trước khi upsert để biết cặp nào là lượt nghe đầu tiên
+        Set<UserSongKey> existingPairs = findExistingPairs(listensByPair.keySet());
+
+        List<UserSongKey> pairs = new ArrayList<>(listensByPair.keySet());
+        jdbcTemplate.batchUpdate(UPSERT_USER_SONG_COUNT, pairs, pairs.size(), (ps, pair) -> {
+            ps.setLong(1, pair.userId());
+            ps.setLong(2, pair.songId());
+            ps.setLong(3, listensByPair.get(pair));
+        });
+
+        jdbcTemplate.batchUpdate(INSERT_HISTORY_LISTEN, valid, valid.size(), (ps, event) -> {
+            ps.setLong(1, event.getUserId());
+            ps.setLong(2, event.getSongId());
+            ps.setTimestamp(3, Timestamp.valueOf(event.getListenedAt()));
+        });
+
+        Map<Long, SongDelta> deltas = new HashMap<>();
+        for (Map.Entry<UserSongKey, Long> entry : listensByPair.entrySet()) {
+            UserSongKey pair = entry.getKey();
+            SongDelta delta = deltas.computeIfAbsent(pair.songId(), id -> new SongDelta());
+            delta.listens += entry.getValue();
+            if (!existingPairs.contains(pair)) {
+                delta.newListeners++;
+                if ("USER".equals(userTypes.get(pair.userId()))) {
+                    delta.newUserListeners++;
+                }
+            }
+        }
+        for (ListenEvent event : valid) {
+            SongDelta delta = deltas.get(event.getSongId());
+            if (delta.lastListenedAt == null || event.getListenedAt().isAfter(delta.lastListenedAt)) {
+                delta.lastListenedAt = event.getListenedAt();
+            }
+        }
+
+        List<Map.Entry<Long, SongDelta>> newListenerSongs = deltas.entrySet().stream()
+                .filter(e -> e.getValue().newListeners > 0)
+                .toList();
+        if (!newListenerSongs.isEmpty()) {
+            jdbcTemplate.batchUpdate(INCREMENT_SONG_LISTENER, newListenerSongs, newListenerSongs.size(), (ps, e) -> {
+                ps.setLong(1, e.getValue().newListeners);
+                ps.setLong(2, e.getKey());
+            });
+        }
+
+        List<Map.Entry<Long, SongDelta>> songDeltas = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SONG_STATS, songDeltas, songDeltas.size(), (ps, e) -> {
+            ps.setLong(1, e.getKey());
+            ps.setLong(2, e.getValue().listens);
+            ps.setLong(3, e.getValue().newUserListeners);
+            ps.setTimestamp(4, Timestamp.valueOf(e.getValue().lastListenedAt));
+        });
+
+        return valid.size();
+    }
+
+    private Map<Long, String> findUserTypes(Collection<Long> userIds) {
+        Map<Long, String> result = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, user_type FROM users WHERE id = ANY(?)",
+                ps -> ps.setArray(1, toBigintArray(ps, userIds)),
+                rs -> {
+                    result.put(rs.getLong(1), rs.getString(2));
+                }
+        );
+        return result;
+    }
+
+    private Set<Long> findExistingSongIds(Collection<Long> songIds) {
+        Set<Long> result = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT id FROM songs WHERE id = ANY(?)",
+                ps -> ps.setArray(1, toBigintArray(ps, songIds)),
+                rs -> {
+                    result.add(rs.getLong(1));
+                }
+        );
+        return result;
+    }
+
+    private Set<UserSongKey> findExistingPairs(Collection<UserSongKey> pairs) {
+        List<Long> userIds = new ArrayList<>(pairs.size());
+        List<Long> songIds = new ArrayList<>(pairs.size());
+        for (UserSongKey pair : pairs) {
+            userIds.add(pair.userId());
+            songIds.add(pair.songId());
+        }
+
+        Set<UserSongKey> result = new HashSet<>();
+        jdbcTemplate.query("""
+                        SELECT c.user_id, c.song_id
+                        FROM user_song_count c
+                        JOIN unnest(?, ?) AS p(user_id, song_id)
+                          ON p.user_id = c.user_id AND p.song_id = c.song_id
+                        """,
+                ps -> {
+                    ps.setArray(1, toBigintArray(ps, userIds));
+                    ps.setArray(2, toBigintArray(ps, songIds));
+                },
+                rs -> {
+                    result.add(new UserSongKey(rs.getLong(1), rs.getLong(2)));
+                }
+        );
+        return result;
+    }
+
+    private static Array toBigintArray(PreparedStatement ps, Collection<Long> ids) throws SQLException {
+        return ps.getConnection().createArrayOf("bigint", ids.toArray());
+    }
+
+    private record UserSongKey(long userId, long songId) {
+    }
+
+    private static final class SongDelta {
+        private long listens;
+        private long newListeners;
+        private long newUserListeners;
+        private LocalDateTime lastListenedAt;
+    }
+}
@@ -0,0 +1,50 @@
+package com.spring.repository;
+
+import com.spring.constants.TargetNotifications;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Set-based reads and writes for follower notifications: followers are paged by keyset on
+ * {@code artist_user_follows (artist_id, user_id)} and notification rows are written with JDBC batches,
+ * so a fan-out to many followers never loads entities one by one.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationFanoutRepository {
+    private static final String INSERT_NOTIFICATION = """
+                INSERT INTO notifications (title, content, user_id, target_notifications, created_date)
+                VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return up to {@code limit} follower ids greater than {@code afterUserId}, ascending
+     */
+    public List<Long> findFollowerIds(Long artistId, long afterUserId, int limit) {
+        return jdbcTemplate.queryForList("""
+                    SELECT user_id FROM artist_user_follows
+                    WHERE artist_id = ? AND user_id > ?
+                    ORDER BY user_id
+                    LIMIT ?
+                """, Long.class, artistId, afterUserId, limit);
+    }
+
+    public int[][] insertNotifications(List<Long> userIds, String title, String content,
+                                       TargetNotifications target, Instant createdDate) {
+        Timestamp created = Timestamp.from(createdDate);
+        return jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, userIds, userIds.size(), (ps, userId) -> {
+            ps.setString(1, title);
+            ps.setString(2, content);
+            ps.setLong(3, userId);
+            ps.setString(4, target.name());
+            ps.setTimestamp(5, created);
+        });
+    }
+}
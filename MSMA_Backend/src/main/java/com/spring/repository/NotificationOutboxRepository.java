@@ -0,0 +1,202 @@
+package com.spring.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Outbox of pending notification deliveries, written in the same transaction as the change that caused them.
+ * A PUSH row is one FCM message to one device token; a FANOUT row stands for "notify every follower of an artist"
+ * and is expanded into PUSH rows chunk by chunk, with {@code cursor_user_id} recording how far it got.
+ * Rows go PENDING -> SENDING (leased) -> SENT, back to PENDING for a retry, or DEAD. Every transition of a SENDING
+ * row checks {@code locked_by}, so a dispatcher whose lease ran out cannot overwrite the outcome of the one that
+ * took the row over.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationOutboxRepository {
+    public static final String KIND_PUSH = "PUSH";
+    public static final String KIND_FANOUT = "FANOUT";
+
+    private static final List<String> CREATE_TABLE = List.of(
+            """
+                CREATE TABLE IF NOT EXISTS notification_outbox (
+                    id BIGSERIAL PRIMARY KEY,
+                    kind VARCHAR(16) NOT NULL,
+                    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+                    user_id BIGINT,
+                    artist_id BIGINT,
+                    device_token TEXT,
+                    title TEXT NOT NULL,
+                    content TEXT NOT NULL,
+                    cursor_user_id BIGINT NOT NULL DEFAULT 0,
+                    attempts INT NOT NULL DEFAULT 0,
+                    available_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+                    locked_by VARCHAR(128),
+                    lease_until TIMESTAMPTZ,
+                    created_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp(),
+                    sent_at TIMESTAMPTZ,
+                    last_error TEXT
+                )
+            """,
+            // Bảng tạo trước khi có cột locked_by
+            "ALTER TABLE notification_outbox ADD COLUMN IF NOT EXISTS locked_by VARCHAR(128)",
+            // Dedupe theo token: cùng một nội dung chỉ chờ gửi một lần cho mỗi thiết bị
+            """
+                CREATE UNIQUE INDEX IF NOT EXISTS uq_notification_outbox_pending_push
+                ON notification_outbox (device_token, md5(title || E'\\n' || content))
+                WHERE kind = 'PUSH' AND status IN ('PENDING', 'SENDING')
+            """,
+            """
+                CREATE INDEX IF NOT EXISTS idx_notification_outbox_ready
+                ON notification_outbox (kind, available_at, id) WHERE status IN ('PENDING', 'SENDING')
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_notification_outbox_sent_at ON notification_outbox (sent_at) WHERE status = 'SENT'"
+    );
+
+    private static final String ENQUEUE_PUSHES = """
+                INSERT INTO notification_outbox (kind, user_id, device_token, title, content)
+                SELECT DISTINCT 'PUSH', t.user_id, t.device_token, ?, ?
+                FROM notification_tokens t
+                WHERE t.user_id = ANY (?) AND t.device_token IS NOT NULL AND t.device_token <> ''
+                ON CONFLICT (device_token, md5(title || E'\\n' || content))
+                    WHERE kind = 'PUSH' AND status IN ('PENDING', 'SENDING')
+                DO NOTHING
+            """;
+
+    // Lấy cả các dòng SENDING đã hết lease (dispatcher trước đó bị dừng giữa chừng)
+    private static final String CLAIM = """
+                UPDATE notification_outbox o
+                SET status = 'SENDING', attempts = o.attempts + 1, locked_by = ?,
+                    lease_until = now() + (? * INTERVAL '1 millisecond')
+                WHERE o.id IN (
+                    SELECT id FROM notification_outbox
+                    WHERE kind = ?
+                      AND ((status = 'PENDING' AND available_at <= now())
+                        OR (status = 'SENDING' AND lease_until < now()))
+                    ORDER BY available_at, id
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                )
+                RETURNING o.id, o.user_id, o.artist_id, o.device_token, o.title, o.content,
+                          o.cursor_user_id, o.attempts
+            """;
+
+    // Độ trễ tính hoàn toàn bằng đồng hồ của DB (created_at và sent_at), không trộn với đồng hồ của JVM
+    private static final String MARK_SENT = """
+                UPDATE notification_outbox
+                SET status = 'SENT', sent_at = now(), locked_by = NULL, lease_until = NULL, last_error = NULL
+                WHERE id = ANY (?) AND status = 'SENDING' AND locked_by = ?
+                RETURNING GREATEST(0, (EXTRACT(EPOCH FROM (sent_at - created_at)) * 1000)::BIGINT) AS latency_ms
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record OutboxRow(Long id, Long userId, Long artistId, String deviceToken, String title, String content,
+                            long cursorUserId, int attempts) {
+    }
+
+    public void createTable() {
+        CREATE_TABLE.forEach(jdbcTemplate::execute);
+    }
+
+    /**
+     * Queues one push per registered device of the given users; users without a device token get none.
+     */
+    public int enqueuePushes(List<Long> userIds, String title, String content) {
+        return jdbcTemplate.update(ENQUEUE_PUSHES, title, content, (Object) userIds.toArray(new Long[0]));
+    }
+
+    public void enqueueFanout(Long artistId, String title, String content) {
+        jdbcTemplate.update("INSERT INTO notification_outbox (kind, artist_id, title, content) VALUES ('FANOUT', ?, ?, ?)",
+                artistId, title, content);
+    }
+
+    public List<OutboxRow> claim(String workerId, String kind, int limit, long leaseMs) {
+        return jdbcTemplate.query(CLAIM,
+                (rs, rowNum) -> new OutboxRow(
+                        rs.getLong("id"),
+                        (Long) rs.getObject("user_id"),
+                        (Long) rs.getObject("artist_id"),
+                        rs.getString("device_token"),
+                        rs.getString("title"),
+                        rs.getString("content"),
+                        rs.getLong("cursor_user_id"),
+                        rs.getInt("attempts")),
+                workerId, leaseMs, kind, limit);
+    }
+
+    /**
+     * Records fan-out progress and renews the lease, in the same transaction as the chunk just written.
+     *
+     * @return false if the row is no longer leased by this worker; the caller must roll the chunk back
+     */
+    public boolean advanceCursor(Long id, String workerId, long cursorUserId, long leaseMs) {
+        return jdbcTemplate.update("""
+                    UPDATE notification_outbox
+                    SET cursor_user_id = ?, lease_until = now() + (? * INTERVAL '1 millisecond')
+                    WHERE id = ? AND status = 'SENDING' AND locked_by = ?
+                """, cursorUserId, leaseMs, id, workerId) > 0;
+    }
+
+    public int heartbeat(List<Long> ids, String workerId, long leaseMs) {
+        return jdbcTemplate.update("""
+                    UPDATE notification_outbox SET lease_until = now() + (? * INTERVAL '1 millisecond')
+                    WHERE id = ANY (?) AND status = 'SENDING' AND locked_by = ?
+                """, leaseMs, ids.toArray(new Long[0]), workerId);
+    }
+
+    /**
+     * @return for each row marked SENT, milliseconds from being queued to being sent
+     */
+    public List<Long> markSent(List<Long> ids, String workerId) {
+        return jdbcTemplate.queryForList(MARK_SENT, Long.class, ids.toArray(new Long[0]), workerId);
+    }
+
+    public int markDead(List<Long> ids, String workerId, String error) {
+        return jdbcTemplate.update("""
+                    UPDATE notification_outbox SET status = 'DEAD', locked_by = NULL, lease_until = NULL, last_error = ?
+                    WHERE id = ANY (?) AND status = 'SENDING' AND locked_by = ?
+                """, error, ids.toArray(new Long[0]), workerId);
+    }
+
+    public int retryLater(List<Long> ids, String workerId, long delayMs, String error) {
+        return jdbcTemplate.update("""
+                    UPDATE notification_outbox
+                    SET status = 'PENDING', locked_by = NULL, lease_until = NULL, last_error = ?,
+                        available_at = now() + (? * INTERVAL '1 millisecond')
+                    WHERE id = ANY (?) AND status = 'SENDING' AND locked_by = ?
+                """, error, delayMs, ids.toArray(new Long[0]), workerId);
+    }
+
+    /**
+     * Puts rows back without spending an attempt (used when a device is over its rate limit).
+     */
+    public int defer(List<Long> ids, String workerId, long delayMs) {
+        return jdbcTemplate.update("""
+                    UPDATE notification_outbox
+                    SET status = 'PENDING', locked_by = NULL, lease_until = NULL, attempts = GREATEST(attempts - 1, 0),
+                        available_at = now() + (? * INTERVAL '1 millisecond')
+                    WHERE id = ANY (?) AND status = 'SENDING' AND locked_by = ?
+                """, delayMs, ids.toArray(new Long[0]), workerId);
+    }
+
+    public int deleteDeviceTokens(List<String> tokens) {
+        return jdbcTemplate.update("DELETE FROM notification_tokens WHERE device_token = ANY (?)",
+                (Object) tokens.toArray(new String[0]));
+    }
+
+    public long countPending() {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notification_outbox WHERE status IN ('PENDING', 'SENDING')", Long.class);
+        return count != null ? count : 0L;
+    }
+
+    public int deleteSentBefore(int retentionDays) {
+        return jdbcTemplate.update(
+                "DELETE FROM notification_outbox WHERE status = 'SENT' AND sent_at < now() - (? * INTERVAL '1 day')",
+                retentionDays);
+    }
+}
@@ -0,0 +1,148 @@
+package com.spring.repository;
+
+import com.spring.dto.response.Otp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shared OTP sessions and per-email send windows for multi-instance deployments.
+ * Every check-and-update is a single statement, so concurrent nodes cannot lose attempts or sends.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OtpSessionRepository {
+    private static final ZoneId OTP_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    private static final List<String> CREATE_TABLES = List.of(
+            """
+                CREATE TABLE IF NOT EXISTS otp_sessions (
+                    session_id VARCHAR(255) PRIMARY KEY,
+                    email VARCHAR(255) NOT NULL,
+                    code VARCHAR(32) NOT NULL,
+                    due_date TIMESTAMPTZ NOT NULL,
+                    attempts INT NOT NULL DEFAULT 0,
+                    verified BOOLEAN NOT NULL DEFAULT FALSE,
+                    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+                )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_otp_sessions_due_date ON otp_sessions (due_date)",
+            """
+                CREATE TABLE IF NOT EXISTS otp_send_windows (
+                    email VARCHAR(255) PRIMARY KEY,
+                    window_start TIMESTAMPTZ NOT NULL,
+                    sends INT NOT NULL
+                )
+            """
+    );
+
+    // Cửa sổ cố định: còn trong cửa sổ thì cộng dồn, quá hạn thì mở cửa sổ mới
+    private static final String INCREMENT_SENDS = """
+                INSERT INTO otp_send_windows (email, window_start, sends)
+                VALUES (?, now(), 1)
+                ON CONFLICT (email) DO UPDATE
+                SET sends = CASE WHEN otp_send_windows.window_start > now() - make_interval(secs => ?)
+                                 THEN otp_send_windows.sends + 1 ELSE 1 END,
+                    window_start = CASE WHEN otp_send_windows.window_start > now() - make_interval(secs => ?)
+                                        THEN otp_send_windows.window_start ELSE now() END
+                RETURNING sends
+            """;
+
+    // Chỉ ghi đè khi phiên cũ đã hết hạn hoặc thuộc email khác
+    private static final String UPSERT_SESSION = """
+                INSERT INTO otp_sessions (session_id, email, code, due_date)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (session_id) DO UPDATE
+                SET email = EXCLUDED.email,
+                    code = EXCLUDED.code,
+                    due_date = EXCLUDED.due_date,
+                    attempts = 0,
+                    verified = FALSE,
+                    created_at = now()
+                WHERE otp_sessions.due_date <= now() OR otp_sessions.email <> EXCLUDED.email
+            """;
+
+    private static final String SELECT_SESSION = """
+                SELECT email, code, due_date FROM otp_sessions WHERE session_id = ?
+            """;
+
+    // Lần thử vượt quá giới hạn không bao giờ đánh dấu verified, kể cả khi mã đúng
+    private static final String RECORD_ATTEMPT = """
+                UPDATE otp_sessions
+                SET attempts = attempts + 1,
+                    verified = verified OR (attempts < ? AND code = ?)
+                WHERE session_id = ? AND due_date > now()
+                RETURNING attempts, code = ? AS matched
+            """;
+
+    private static final String CONSUME_VERIFIED = """
+                DELETE FROM otp_sessions
+                WHERE session_id = ? AND verified AND due_date > now()
+                RETURNING email, code, due_date
+            """;
+
+    private static final RowMapper<Otp> OTP_MAPPER = (rs, rowNum) -> Otp.builder()
+            .email(rs.getString("email"))
+            .otp(rs.getString("code"))
+            .dueDate(rs.getTimestamp("due_date").toInstant().atZone(OTP_ZONE))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Attempt(int attempts, boolean matched) {
+    }
+
+    public void createTables() {
+        CREATE_TABLES.forEach(jdbcTemplate::execute);
+    }
+
+    /**
+     * @return sends counted in the current window for this email, including this one
+     */
+    public int incrementSends(String email, long windowSeconds) {
+        Integer sends = jdbcTemplate.queryForObject(INCREMENT_SENDS, Integer.class, email, (double) windowSeconds, (double) windowSeconds);
+        return sends != null ? sends : 0;
+    }
+
+    /**
+     * Stores the OTP unless the session holds a live one for the same email, then returns whichever is stored.
+     */
+    public Otp upsertSession(String sessionId, Otp otp) {
+        jdbcTemplate.update(UPSERT_SESSION, sessionId, otp.getEmail(), otp.getOtp(), Timestamp.from(otp.getDueDate().toInstant()));
+        return jdbcTemplate.queryForObject(SELECT_SESSION, OTP_MAPPER, sessionId);
+    }
+
+    /**
+     * @return empty if the session is unknown or expired
+     */
+    public Optional<Attempt> recordAttempt(String sessionId, String code, int maxAttempts) {
+        return jdbcTemplate.query(RECORD_ATTEMPT,
+                (rs, rowNum) -> new Attempt(rs.getInt("attempts"), rs.getBoolean("matched")),
+                maxAttempts, code, sessionId, code
+        ).stream().findFirst();
+    }
+
+    public Optional<Otp> consumeVerified(String sessionId) {
+        return jdbcTemplate.query(CONSUME_VERIFIED, OTP_MAPPER, sessionId).stream().findFirst();
+    }
+
+    public void deleteSession(String sessionId) {
+        jdbcTemplate.update("DELETE FROM otp_sessions WHERE session_id = ?", sessionId);
+    }
+
+    /**
+     * @return rows removed
+     */
+    public int deleteExpired(long windowSeconds) {
+        int sessions = jdbcTemplate.update("DELETE FROM otp_sessions WHERE due_date <= now()");
+        int windows = jdbcTemplate.update("DELETE FROM otp_send_windows WHERE window_start <= now() - make_interval(secs => ?)",
+                (double) windowSeconds);
+        return sessions + windows;
+    }
+}
@@ -57,4 +57,53 @@ public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
             @Param("limit") Integer limit,
             @Param("offset") Integer offset
     );
+
+    // Xếp hạng theo độ liên quan (trigram), xem search_playlist_ids
+    @Query(
+            value = """
+                SELECT p.*
+                FROM playlists p
+                JOIN search_playlist_ids(:search) m ON m.playlist_id = p.id
+                ORDER BY m.rank DESC, p.release_date DESC, p.id DESC
+               """,
+            countQuery = """
+                SELECT COUNT(*)
+                FROM playlists p
+                JOIN search_playlist_ids(:search) m ON m.playlist_id = p.id
+                """,
+            nativeQuery = true
+    )
+    Page<Playlist> findPlaylistsByRelevance(Pageable pageable, @Param("search") String search);
+
+    @Query(
+            value = """
+                SELECT p.*
+                FROM playlists p
+                JOIN search_playlist_ids(:search) m ON m.playlist_id = p.id
+                WHERE EXISTS (SELECT 1 FROM artist_playlists x WHERE x.playlist_id = p.id AND x.artist_id = :artistId)
+                ORDER BY m.rank DESC, p.release_date DESC, p.id DESC
+               """,
+            countQuery = """
+                SELECT COUNT(*)
+                FROM playlists p
+                JOIN search_playlist_ids(:search) m ON m.playlist_id = p.id
+                WHERE EXISTS (SELECT 1 FROM artist_playlists x WHERE x.playlist_id = p.id AND x.artist_id = :artistId)
+                """,
+            nativeQuery = true
+    )
+    Page<Playlist> findArtistPlaylistsByRelevance(Pageable pageable, @Param("search") String search, @Param("artistId") Long artistId);
+
+    @Query(nativeQuery = true, value = """
+                SELECT p.*
+                FROM playlists p
+                JOIN search_playlist_ids(:title) m ON m.playlist_id = p.id
+                WHERE p.status = 'ACCEPTED'
+                ORDER BY m.rank DESC, p.release_date DESC, p.id DESC
+                LIMIT :limit OFFSET :offset
+            """)
+    List<Playlist> searchAcceptedPlaylistsByRelevance(
+            @Param("title") String title,
+            @Param("limit") Integer limit,
+            @Param("offset") Integer offset
+    );
 }
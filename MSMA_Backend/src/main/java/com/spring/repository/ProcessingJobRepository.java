@@ -0,0 +1,155 @@
+package com.spring.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Durable queue of song processing jobs. A job is QUEUED until a worker claims it with
+ * {@code FOR UPDATE SKIP LOCKED}, RUNNING while its lease is renewed, then DONE, QUEUED again for a retry,
+ * or DEAD once it ran out of attempts. Every transition of a RUNNING job checks {@code locked_by}, so a worker
+ * that lost its lease cannot overwrite the outcome of the worker that took over.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProcessingJobRepository {
+    private static final List<String> CREATE_TABLE = List.of(
+            """
+                CREATE TABLE IF NOT EXISTS processing_jobs (
+                    id BIGSERIAL PRIMARY KEY,
+                    song_id BIGINT NOT NULL,
+                    status VARCHAR(16) NOT NULL DEFAULT 'QUEUED',
+                    attempts INT NOT NULL DEFAULT 0,
+                    available_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+                    locked_by VARCHAR(128),
+                    lease_until TIMESTAMPTZ,
+                    last_error TEXT,
+                    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+                    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+                )
+            """,
+            // Mỗi bài hát chỉ có tối đa một job đang chờ hoặc đang chạy
+            """
+                CREATE UNIQUE INDEX IF NOT EXISTS uq_processing_jobs_active_song
+                ON processing_jobs (song_id) WHERE status IN ('QUEUED', 'RUNNING')
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_processing_jobs_ready ON processing_jobs (available_at, id) WHERE status = 'QUEUED'",
+            "CREATE INDEX IF NOT EXISTS idx_processing_jobs_lease ON processing_jobs (lease_until) WHERE status = 'RUNNING'"
+    );
+
+    private static final String CLAIM = """
+                UPDATE processing_jobs j
+                SET status = 'RUNNING', attempts = j.attempts + 1, locked_by = ?,
+                    lease_until = now() + (? * INTERVAL '1 millisecond'), updated_at = now()
+                WHERE j.id IN (
+                    SELECT id FROM processing_jobs
+                    WHERE status = 'QUEUED' AND available_at <= now()
+                    ORDER BY available_at, id
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                )
+                RETURNING j.id, j.song_id, j.attempts
+            """;
+
+    private static final String RECLAIM_EXPIRED = """
+                UPDATE processing_jobs
+                SET status = CASE WHEN attempts >= ? THEN 'DEAD' ELSE 'QUEUED' END,
+                    locked_by = NULL, lease_until = NULL, available_at = now(),
+                    last_error = 'Lease expired (worker ' || COALESCE(locked_by, '?') || ')', updated_at = now()
+                WHERE status = 'RUNNING' AND lease_until < now()
+                RETURNING id, song_id, status
+            """;
+
+    // Bài ở trạng thái PROCESSING mà không có job nào đang chờ/chạy (vd. upload trước khi có bảng này)
+    private static final String ENQUEUE_ORPHANS = """
+                INSERT INTO processing_jobs (song_id)
+                SELECT s.id FROM songs s
+                WHERE s.status = 'PROCESSING'
+                  AND NOT EXISTS (
+                      SELECT 1 FROM processing_jobs j
+                      WHERE j.song_id = s.id AND j.status IN ('QUEUED', 'RUNNING')
+                  )
+                ON CONFLICT (song_id) WHERE status IN ('QUEUED', 'RUNNING') DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record ClaimedJob(Long id, Long songId, int attempts) {
+    }
+
+    public record ReclaimedJob(Long id, Long songId, String status) {
+    }
+
+    public void createTable() {
+        CREATE_TABLE.forEach(jdbcTemplate::execute);
+    }
+
+    /**
+     * @return true if a new job was queued, false if the song already has one waiting or running
+     */
+    public boolean enqueue(Long songId) {
+        return jdbcTemplate.update("""
+                    INSERT INTO processing_jobs (song_id) VALUES (?)
+                    ON CONFLICT (song_id) WHERE status IN ('QUEUED', 'RUNNING') DO NOTHING
+                """, songId) > 0;
+    }
+
+    public int enqueueOrphans() {
+        return jdbcTemplate.update(ENQUEUE_ORPHANS);
+    }
+
+    public List<ClaimedJob> claim(String workerId, long leaseMs, int limit) {
+        return jdbcTemplate.query(CLAIM,
+                (rs, rowNum) -> new ClaimedJob(rs.getLong("id"), rs.getLong("song_id"), rs.getInt("attempts")),
+                workerId, leaseMs, limit);
+    }
+
+    public int heartbeat(List<Long> jobIds, String workerId, long leaseMs) {
+        return jdbcTemplate.update("""
+                    UPDATE processing_jobs SET lease_until = now() + (? * INTERVAL '1 millisecond'), updated_at = now()
+                    WHERE id = ANY (?) AND status = 'RUNNING' AND locked_by = ?
+                """, leaseMs, jobIds.toArray(new Long[0]), workerId);
+    }
+
+    public boolean complete(Long jobId, String workerId) {
+        return jdbcTemplate.update("""
+                    UPDATE processing_jobs SET status = 'DONE', locked_by = NULL, lease_until = NULL, updated_at = now()
+                    WHERE id = ? AND status = 'RUNNING' AND locked_by = ?
+                """, jobId, workerId) > 0;
+    }
+
+    public boolean retryLater(Long jobId, String workerId, long delayMs, String error) {
+        return jdbcTemplate.update("""
+                    UPDATE processing_jobs
+                    SET status = 'QUEUED', locked_by = NULL, lease_until = NULL,
+                        available_at = now() + (? * INTERVAL '1 millisecond'), last_error = ?, updated_at = now()
+                    WHERE id = ? AND status = 'RUNNING' AND locked_by = ?
+                """, delayMs, error, jobId, workerId) > 0;
+    }
+
+    public boolean deadLetter(Long jobId, String workerId, String error) {
+        return jdbcTemplate.update("""
+                    UPDATE processing_jobs
+                    SET status = 'DEAD', locked_by = NULL, lease_until = NULL, last_error = ?, updated_at = now()
+                    WHERE id = ? AND status = 'RUNNING' AND locked_by = ?
+                """, error, jobId, workerId) > 0;
+    }
+
+    /**
+     * Requeues RUNNING jobs whose lease ran out (their worker died or stalled), or dead-letters them when they
+     * already used every attempt.
+     */
+    public List<ReclaimedJob> reclaimExpired(int maxAttempts) {
+        return jdbcTemplate.query(RECLAIM_EXPIRED,
+                (rs, rowNum) -> new ReclaimedJob(rs.getLong("id"), rs.getLong("song_id"), rs.getString("status")),
+                maxAttempts);
+    }
+
+    public int deleteFinishedBefore(int retentionDays) {
+        return jdbcTemplate.update(
+                "DELETE FROM processing_jobs WHERE status = 'DONE' AND updated_at < now() - (? * INTERVAL '1 day')",
+                retentionDays);
+    }
+}
@@ -0,0 +1,64 @@
+package com.spring.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Access tokens revoked before their expiry, by {@code jti}. The table is the source of truth shared by every
+ * instance; requests never read it directly, only the in-memory denylist loaded from it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RevokedTokenRepository {
+    private static final List<String> CREATE_TABLE = List.of(
+            """
+                CREATE TABLE IF NOT EXISTS revoked_tokens (
+                    jti VARCHAR(64) PRIMARY KEY,
+                    expires_at TIMESTAMPTZ NOT NULL,
+                    revoked_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()
+                )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at)",
+            "CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires_at ON revoked_tokens (expires_at)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record RevokedToken(String jti, Instant expiresAt, Instant revokedAt) {
+    }
+
+    public void createTable() {
+        CREATE_TABLE.forEach(jdbcTemplate::execute);
+    }
+
+    public void insert(String jti, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO revoked_tokens (jti, expires_at) VALUES (?, ?) ON CONFLICT (jti) DO NOTHING",
+                jti, Timestamp.from(expiresAt));
+    }
+
+    /**
+     * @return unexpired revocations recorded at or after {@code since}, oldest first; every one when {@code since} is null
+     */
+    public List<RevokedToken> findActiveSince(Instant since) {
+        String sql = """
+                    SELECT jti, expires_at, revoked_at FROM revoked_tokens
+                    WHERE expires_at > now() AND revoked_at >= ?
+                    ORDER BY revoked_at
+                """;
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new RevokedToken(
+                        rs.getString("jti"),
+                        rs.getTimestamp("expires_at").toInstant(),
+                        rs.getTimestamp("revoked_at").toInstant()),
+                Timestamp.from(since != null ? since : Instant.EPOCH));
+    }
+
+    public int deleteExpired() {
+        return jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at <= now()");
+    }
+}
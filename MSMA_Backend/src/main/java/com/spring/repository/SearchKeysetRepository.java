@@ -0,0 +1,183 @@
+package com.spring.repository;
+
+import com.spring.constants.ApiResponseCode;
+import com.spring.exceptions.BusinessException;
+import com.spring.utils.SortKeyCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset (seek) pagination for the search endpoints. Every page is {@code WHERE (sort_key, id) > (?, ?)
+ * ORDER BY sort_key, id LIMIT n}, so deep pages cost the same as the first one and no COUNT is issued
+ * unless asked for. Only ids and sort keys are returned; callers load the entities by primary key.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SearchKeysetRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public record KeysetRow(Long id, String sortKey) {
+    }
+
+    private record SortKey(String expression, String sqlType) {
+    }
+
+    private static final Map<String, SortKey> SONG_SORTS = Map.of(
+            "releaseDate", new SortKey("COALESCE(s.release_date, 'epoch')", "timestamptz"),
+            "title", new SortKey("COALESCE(s.title, '')", "text"),
+            "numberOfListeners", new SortKey("ss.distinct_listeners", "bigint"),
+            "countListen", new SortKey("ss.total_listens", "bigint"),
+            "relevance", new SortKey("m.rank", "real")
+    );
+
+    private static final Map<String, SortKey> PLAYLIST_SORTS = Map.of(
+            "releaseDate", new SortKey("COALESCE(p.release_date, 'epoch')", "timestamptz"),
+            "title", new SortKey("COALESCE(p.playlist_name, '')", "text"),
+            "relevance", new SortKey("m.rank", "real")
+    );
+
+    private static final Map<String, SortKey> ALBUM_SORTS = Map.of(
+            "releaseDate", new SortKey("COALESCE(al.release_date, 'epoch')", "timestamptz"),
+            "title", new SortKey("COALESCE(al.album_name, '')", "text"),
+            "relevance", new SortKey("m.rank", "real")
+    );
+
+    public List<KeysetRow> findSongs(String search, Long genreId, Long artistId, String orderBy,
+                                     boolean ascending, SortKeyCursor after, int limit) {
+        return findPage(songQuery(search, genreId, artistId, orderBy), sortKey(SONG_SORTS, orderBy), ascending, after, limit);
+    }
+
+    public long countSongs(String search, Long genreId, Long artistId, String orderBy) {
+        return count(songQuery(search, genreId, artistId, orderBy));
+    }
+
+    public List<KeysetRow> findPlaylists(String search, Long artistId, String orderBy,
+                                         boolean ascending, SortKeyCursor after, int limit) {
+        return findPage(playlistQuery(search, artistId, orderBy), sortKey(PLAYLIST_SORTS, orderBy), ascending, after, limit);
+    }
+
+    public long countPlaylists(String search, Long artistId, String orderBy) {
+        return count(playlistQuery(search, artistId, orderBy));
+    }
+
+    public List<KeysetRow> findAlbums(String search, Long artistId, String orderBy,
+                                      boolean ascending, SortKeyCursor after, int limit) {
+        return findPage(albumQuery(search, artistId, orderBy), sortKey(ALBUM_SORTS, orderBy), ascending, after, limit);
+    }
+
+    public long countAlbums(String search, Long artistId, String orderBy) {
+        return count(albumQuery(search, artistId, orderBy));
+    }
+
+    private QueryParts songQuery(String search, Long genreId, Long artistId, String orderBy) {
+        QueryParts query = new QueryParts("songs s JOIN song_stats ss ON ss.song_id = s.id", "s.id");
+        if (orderBy.equals("relevance")) {
+            query.join("JOIN search_song_ids(?) m ON m.song_id = s.id", search);
+        } else if (!search.isEmpty()) {
+            query.where("LOWER(s.title) LIKE ?", "%" + search + "%");
+        }
+        if (genreId != null) {
+            query.where("EXISTS (SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = ?)", genreId);
+        }
+        if (artistId != null) {
+            query.where("EXISTS (SELECT 1 FROM artist_songs ars WHERE ars.song_id = s.id AND ars.artist_id = ?)", artistId);
+        }
+        return query;
+    }
+
+    private QueryParts playlistQuery(String search, Long artistId, String orderBy) {
+        QueryParts query = new QueryParts("playlists p", "p.id");
+        if (orderBy.equals("relevance")) {
+            query.join("JOIN search_playlist_ids(?) m ON m.playlist_id = p.id", search);
+        } else if (!search.isEmpty()) {
+            query.where("LOWER(p.playlist_name) LIKE ?", "%" + search + "%");
+        }
+        if (artistId != null) {
+            query.where("EXISTS (SELECT 1 FROM artist_playlists ap WHERE ap.playlist_id = p.id AND ap.artist_id = ?)", artistId);
+        }
+        return query;
+    }
+
+    private QueryParts albumQuery(String search, Long artistId, String orderBy) {
+        QueryParts query = new QueryParts("albums al", "al.id");
+        if (orderBy.equals("relevance")) {
+            query.join("JOIN search_album_ids(?) m ON m.album_id = al.id", search);
+        } else if (!search.isEmpty()) {
+            query.where("LOWER(al.album_name) LIKE ?", "%" + search + "%");
+        }
+        if (artistId != null) {
+            query.where("EXISTS (SELECT 1 FROM artist_albums aa WHERE aa.album_id = al.id AND aa.artist_id = ?)", artistId);
+        }
+        return query;
+    }
+
+    private List<KeysetRow> findPage(QueryParts query, SortKey sortKey, boolean ascending, SortKeyCursor after, int limit) {
+        List<String> conditions = new ArrayList<>(query.conditions);
+        List<Object> params = new ArrayList<>(query.params);
+        if (after != null) {
+            // So sánh theo bộ (khoá, id) để các bản ghi trùng khoá không bị bỏ sót hay lặp lại
+            conditions.add("(" + sortKey.expression() + ", " + query.idColumn + ") " + (ascending ? ">" : "<")
+                    + " (CAST(? AS " + sortKey.sqlType() + "), ?)");
+            params.add(after.getValue());
+            params.add(after.getId());
+        }
+        String direction = ascending ? " ASC" : " DESC";
+        String sql = "SELECT " + query.idColumn + " AS id, " + sortKey.expression() + "::text AS sort_key"
+                + " FROM " + query.from()
+                + where(conditions)
+                + " ORDER BY " + sortKey.expression() + direction + ", " + query.idColumn + direction
+                + " LIMIT ?";
+        params.add(limit);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new KeysetRow(rs.getLong("id"), rs.getString("sort_key")), params.toArray());
+    }
+
+    private long count(QueryParts query) {
+        String sql = "SELECT COUNT(*) FROM " + query.from() + where(query.conditions);
+        Long total = jdbcTemplate.queryForObject(sql, Long.class, query.params.toArray());
+        return total != null ? total : 0L;
+    }
+
+    private static SortKey sortKey(Map<String, SortKey> sorts, String orderBy) {
+        SortKey sortKey = sorts.get(orderBy);
+        if (sortKey == null) {
+            throw new BusinessException(ApiResponseCode.INVALID_SORT_FIELD);
+        }
+        return sortKey;
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    // Tham số của JOIN phải đứng trước tham số của WHERE
+    private static final class QueryParts {
+        private final StringBuilder from;
+        private final String idColumn;
+        private final List<String> conditions = new ArrayList<>();
+        private final List<Object> params = new ArrayList<>();
+
+        private QueryParts(String from, String idColumn) {
+            this.from = new StringBuilder(from);
+            this.idColumn = idColumn;
+        }
+
+        private void join(String clause, Object param) {
+            from.append(' ').append(clause);
+            params.add(0, param);
+        }
+
+        private void where(String condition, Object param) {
+            conditions.add(condition);
+            params.add(param);
+        }
+
+        private String from() {
+            return from.toString();
+        }
+    }
+}
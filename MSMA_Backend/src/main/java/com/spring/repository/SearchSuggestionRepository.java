@@ -0,0 +1,64 @@
+package com.spring.repository;
+
+import com.spring.constants.SearchContentType;
+import com.spring.dto.SearchHit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Typeahead suggestions ranked by the search_*_ids functions, used while the in-memory catalog index is not available.
+ * Covers the same rows as the index: accepted songs, playlists and albums, and every named artist.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SearchSuggestionRepository {
+    private static final Map<SearchContentType, String> SELECTS = Map.of(
+            SearchContentType.SONG, """
+                SELECT 'SONG' AS type, s.id, s.title AS name, m.rank
+                FROM songs s JOIN search_song_ids(?) m ON m.song_id = s.id
+                WHERE s.status = 'ACCEPTED'
+            """,
+            SearchContentType.PLAYLIST, """
+                SELECT 'PLAYLIST' AS type, p.id, p.playlist_name AS name, m.rank
+                FROM playlists p JOIN search_playlist_ids(?) m ON m.playlist_id = p.id
+                WHERE p.status = 'ACCEPTED'
+            """,
+            SearchContentType.ALBUM, """
+                SELECT 'ALBUM' AS type, al.id, al.album_name AS name, m.rank
+                FROM albums al JOIN search_album_ids(?) m ON m.album_id = al.id
+                WHERE al.status = 'ACCEPTED'
+            """,
+            SearchContentType.ARTIST, """
+                SELECT 'ARTIST' AS type, a.id, a.artist_name AS name, m.rank
+                FROM artists a JOIN search_artist_ids(?) m ON m.artist_id = a.id
+                WHERE a.artist_name IS NOT NULL
+            """
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param query lower-cased search term
+     * @param type  null to search every type
+     */
+    public List<SearchHit> findSuggestions(String query, SearchContentType type, int limit) {
+        List<SearchContentType> types = type != null ? List.of(type) : Arrays.asList(SearchContentType.values());
+        String sql = types.stream().map(SELECTS::get).collect(Collectors.joining(" UNION ALL "))
+                + " ORDER BY rank DESC, id DESC LIMIT ?";
+        List<Object> args = new ArrayList<>(types.size() + 1);
+        types.forEach(t -> args.add(query));
+        args.add(limit);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new SearchHit(
+                SearchContentType.valueOf(rs.getString("type")),
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getFloat("rank")), args.toArray());
+    }
+}
@@ -0,0 +1,42 @@
+package com.spring.repository;
+
+import com.spring.entities.SongDailyListen;
+import com.spring.entities.SongDailyListenId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SongDailyListenRepository extends JpaRepository<SongDailyListen, SongDailyListenId> {
+    @Query("""
+                SELECT sdl FROM SongDailyListen sdl
+                WHERE sdl.songDailyListenId.songId = :songId
+                AND sdl.songDailyListenId.day BETWEEN :from AND :to
+                ORDER BY sdl.songDailyListenId.day ASC
+            """)
+    List<SongDailyListen> findBySongIdAndDayBetween(
+            @Param("songId") Long songId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    // Chỉ quét các partition nằm trong [from, to)
+    @Modifying
+    @Query(value = """
+                INSERT INTO listen_daily_song (song_id, day, listens, listeners)
+                SELECT h.song_id, CAST(h.date AS date), COUNT(*), COUNT(DISTINCT h.user_id)
+                FROM history_listens h
+                WHERE h.date >= :from AND h.date < :to
+                GROUP BY h.song_id, CAST(h.date AS date)
+                ON CONFLICT (day, song_id) DO UPDATE
+                SET listens = EXCLUDED.listens,
+                    listeners = EXCLUDED.listeners
+            """, nativeQuery = true)
+    int rollup(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -10,12 +10,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SongRepository extends JpaRepository<Song, Long> {
     List<Song> findAllBySongStatus(SongStatus songStatus);
 
+    boolean existsByAudioSha256AndSongStatusInAndIdNot(String audioSha256, Collection<SongStatus> songStatuses, Long id);
+
     @Query("SELECT COUNT(a) FROM Song a")
     Long countAllSongs();
 
@@ -69,22 +72,21 @@ public interface SongRepository extends JpaRepository<Song, Long> {
                 SELECT s.*
                 FROM songs s
                 INNER JOIN artist_songs ars ON ars.song_id = s.id
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
+                INNER JOIN song_stats ss ON ss.song_id = s.id
                 WHERE ars.artist_id = :artistId
                   AND (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
-                GROUP BY s.id
-                ORDER BY COALESCE(SUM(usc.count_listen), 0) ASC
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY ss.total_listens ASC, ss.song_id ASC
                """,
             countQuery = """
-                SELECT COUNT(DISTINCT s.id)
+                SELECT COUNT(*)
                 FROM songs s
                 INNER JOIN artist_songs ars ON ars.song_id = s.id
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
                 WHERE ars.artist_id = :artistId
                   AND (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
                 """,
             nativeQuery = true
     )
@@ -100,22 +102,21 @@ public interface SongRepository extends JpaRepository<Song, Long> {
                 SELECT s.*
                 FROM songs s
                 INNER JOIN artist_songs ars ON ars.song_id = s.id
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
+                INNER JOIN song_stats ss ON ss.song_id = s.id
                 WHERE ars.artist_id = :artistId
                   AND (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
-                GROUP BY s.id
-                ORDER BY COALESCE(SUM(usc.count_listen), 0) DESC
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY ss.total_listens DESC, ss.song_id DESC
                """,
             countQuery = """
-                SELECT COUNT(DISTINCT s.id)
+                SELECT COUNT(*)
                 FROM songs s
                 INNER JOIN artist_songs ars ON ars.song_id = s.id
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
                 WHERE ars.artist_id = :artistId
                   AND (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
                 """,
             nativeQuery = true
     )
@@ -131,22 +132,21 @@ public interface SongRepository extends JpaRepository<Song, Long> {
                 SELECT s.*
                 FROM songs s
                 INNER JOIN artist_songs ars ON ars.song_id = s.id
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
+                INNER JOIN song_stats ss ON ss.song_id = s.id
                 WHERE ars.artist_id = :artistId
                   AND (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
-                GROUP BY s.id
-                ORDER BY COUNT(DISTINCT usc.user_id) ASC
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY ss.distinct_listeners ASC, ss.song_id ASC
                """,
             countQuery = """
-                SELECT COUNT(DISTINCT s.id)
+                SELECT COUNT(*)
                 FROM songs s
                 INNER JOIN artist_songs ars ON ars.song_id = s.id
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
                 WHERE ars.artist_id = :artistId
                   AND (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
                 """,
             nativeQuery = true
     )
@@ -162,22 +162,21 @@ public interface SongRepository extends JpaRepository<Song, Long> {
                 SELECT s.*
                 FROM songs s
                 INNER JOIN artist_songs ars ON ars.song_id = s.id
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
+                INNER JOIN song_stats ss ON ss.song_id = s.id
                 WHERE ars.artist_id = :artistId
                   AND (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
-                GROUP BY s.id
-                ORDER BY COUNT(DISTINCT usc.user_id) DESC
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY ss.distinct_listeners DESC, ss.song_id DESC
                """,
             countQuery = """
-                SELECT COUNT(DISTINCT s.id)
+                SELECT COUNT(*)
                 FROM songs s
                 INNER JOIN artist_songs ars ON ars.song_id = s.id
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
                 WHERE ars.artist_id = :artistId
                   AND (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
                 """,
             nativeQuery = true
     )
@@ -192,20 +191,18 @@ public interface SongRepository extends JpaRepository<Song, Long> {
             value = """
                 SELECT s.*
                 FROM songs s
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
+                INNER JOIN song_stats ss ON ss.song_id = s.id
                 WHERE (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
-                GROUP BY s.id
-                ORDER BY COALESCE(SUM(usc.count_listen), 0) ASC
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY ss.total_listens ASC, ss.song_id ASC
                """,
             countQuery = """
-                SELECT COUNT(DISTINCT s.id)
+                SELECT COUNT(*)
                 FROM songs s
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
                 WHERE (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
                 """,
             nativeQuery = true
     )
@@ -219,20 +216,18 @@ public interface SongRepository extends JpaRepository<Song, Long> {
             value = """
                 SELECT s.*
                 FROM songs s
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
+                INNER JOIN song_stats ss ON ss.song_id = s.id
                 WHERE (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
-                GROUP BY s.id
-                ORDER BY COALESCE(SUM(usc.count_listen), 0) DESC
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY ss.total_listens DESC, ss.song_id DESC
                """,
             countQuery = """
-                SELECT COUNT(DISTINCT s.id)
+                SELECT COUNT(*)
                 FROM songs s
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
                 WHERE (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
                 """,
             nativeQuery = true
     )
@@ -246,20 +241,18 @@ public interface SongRepository extends JpaRepository<Song, Long> {
             value = """
                 SELECT s.*
                 FROM songs s
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
+                INNER JOIN song_stats ss ON ss.song_id = s.id
                 WHERE (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
-                GROUP BY s.id
-                ORDER BY COUNT(DISTINCT usc.user_id) ASC
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY ss.distinct_listeners ASC, ss.song_id ASC
                """,
             countQuery = """
-                SELECT COUNT(DISTINCT s.id)
+                SELECT COUNT(*)
                 FROM songs s
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
                 WHERE (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
                 """,
             nativeQuery = true
     )
@@ -273,20 +266,18 @@ public interface SongRepository extends JpaRepository<Song, Long> {
             value = """
                 SELECT s.*
                 FROM songs s
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
+                INNER JOIN song_stats ss ON ss.song_id = s.id
                 WHERE (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
-                GROUP BY s.id
-                ORDER BY COUNT(DISTINCT usc.user_id) DESC
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY ss.distinct_listeners DESC, ss.song_id DESC
                """,
             countQuery = """
-                SELECT COUNT(DISTINCT s.id)
+                SELECT COUNT(*)
                 FROM songs s
-                LEFT JOIN genre_songs gs ON gs.song_id = s.id
-                LEFT JOIN user_song_count usc ON usc.song_id = s.id
                 WHERE (:search IS NULL OR LOWER(s.title) LIKE CONCAT('%', :search, '%'))
-                  AND (:genreId IS NULL OR gs.genre_id = :genreId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
                 """,
             nativeQuery = true
     )
@@ -314,4 +305,73 @@ public interface SongRepository extends JpaRepository<Song, Long> {
             @Param("limit") Integer limit,
             @Param("offset") Integer offset
     );
+
+    // Xếp hạng theo độ liên quan: search_song_ids dùng index trigram/tsvector trên tiêu đề, lời, nghệ sĩ và thể loại
+    @Query(
+            value = """
+                SELECT s.*
+                FROM songs s
+                JOIN search_song_ids(:search) m ON m.song_id = s.id
+                WHERE (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY m.rank DESC, s.release_date DESC, s.id DESC
+               """,
+            countQuery = """
+                SELECT COUNT(*)
+                FROM songs s
+                JOIN search_song_ids(:search) m ON m.song_id = s.id
+                WHERE (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                """,
+            nativeQuery = true
+    )
+    Page<Song> findSongsByRelevance(
+            Pageable pageable,
+            @Param("search") String search,
+            @Param("genreId") Long genreId
+    );
+
+    @Query(
+            value = """
+                SELECT s.*
+                FROM songs s
+                JOIN search_song_ids(:search) m ON m.song_id = s.id
+                WHERE EXISTS (SELECT 1 FROM artist_songs ars WHERE ars.song_id = s.id AND ars.artist_id = :artistId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY m.rank DESC, s.release_date DESC, s.id DESC
+               """,
+            countQuery = """
+                SELECT COUNT(*)
+                FROM songs s
+                JOIN search_song_ids(:search) m ON m.song_id = s.id
+                WHERE EXISTS (SELECT 1 FROM artist_songs ars WHERE ars.song_id = s.id AND ars.artist_id = :artistId)
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                """,
+            nativeQuery = true
+    )
+    Page<Song> findArtistSongsByRelevance(
+            Pageable pageable,
+            @Param("search") String search,
+            @Param("genreId") Long genreId,
+            @Param("artistId") Long artistId
+    );
+
+    @Query(nativeQuery = true, value = """
+                SELECT s.*
+                FROM songs s
+                JOIN search_song_ids(:title) m ON m.song_id = s.id
+                WHERE s.status = 'ACCEPTED'
+                  AND (:genreId IS NULL OR EXISTS (
+                      SELECT 1 FROM genre_songs gs WHERE gs.song_id = s.id AND gs.genre_id = :genreId))
+                ORDER BY m.rank DESC, s.release_date DESC, s.id DESC
+                LIMIT :limit OFFSET :offset
+            """)
+    List<Song> searchAcceptedSongsByRelevance(
+            @Param("title") String title,
+            @Param("genreId") Long genreId,
+            @Param("limit") Integer limit,
+            @Param("offset") Integer offset
+    );
 }
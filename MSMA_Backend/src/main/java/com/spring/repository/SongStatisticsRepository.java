@@ -0,0 +1,97 @@
+package com.spring.repository;
+
+import com.spring.entities.SongStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SongStatisticsRepository extends JpaRepository<SongStatistics, Long> {
+    @Modifying
+    @Query(value = """
+                INSERT INTO song_stats (song_id, total_listens, distinct_listeners, likes, downloads)
+                VALUES (:songId, 0, 0, 0, 0)
+                ON CONFLICT (song_id) DO NOTHING
+            """, nativeQuery = true)
+    void createIfAbsent(@Param("songId") Long songId);
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO song_stats (song_id, total_listens, distinct_listeners, likes, downloads)
+                VALUES (:songId, 0, 0, GREATEST(:delta, 0), 0)
+                ON CONFLICT (song_id) DO UPDATE
+                SET likes = GREATEST(song_stats.likes + :delta, 0)
+            """, nativeQuery = true)
+    void incrementLikes(@Param("songId") Long songId, @Param("delta") Long delta);
+
+    @Modifying
+    @Query(value = """
+                INSERT INTO song_stats (song_id, total_listens, distinct_listeners, likes, downloads)
+                VALUES (:songId, 0, 0, 0, GREATEST(:delta, 0))
+                ON CONFLICT (song_id) DO UPDATE
+                SET downloads = GREATEST(song_stats.downloads + :delta, 0)
+            """, nativeQuery = true)
+    void incrementDownloads(@Param("songId") Long songId, @Param("delta") Long delta);
+
+    /**
+     * Rebuilds every counter row from the raw listen/like/download tables.
+     * Songs without any activity get a zero row so that sorting never has to fall back to NULLs.
+     */
+    @Modifying
+    @Query(value = """
+                INSERT INTO song_stats (song_id, total_listens, distinct_listeners, likes, downloads, last_listened_at)
+                SELECT s.id,
+                       COALESCE(usc.total_listens, 0),
+                       COALESCE(usc.distinct_listeners, 0),
+                       COALESCE(usl.likes, 0),
+                       COALESCE(usd.downloads, 0),
+                       hl.last_listened_at
+                FROM songs s
+                LEFT JOIN (
+                    SELECT c.song_id,
+                           SUM(c.count_listen) AS total_listens,
+                           COUNT(DISTINCT c.user_id) FILTER (WHERE u.user_type = 'USER') AS distinct_listeners
+                    FROM user_song_count c
+                    JOIN users u ON u.id = c.user_id
+                    GROUP BY c.song_id
+                ) usc ON usc.song_id = s.id
+                LEFT JOIN (
+                    SELECT l.song_id, COUNT(DISTINCT l.user_id) AS likes
+                    FROM user_song_likes l
+                    JOIN users u ON u.id = l.user_id
+                    WHERE u.user_type = 'USER'
+                    GROUP BY l.song_id
+                ) usl ON usl.song_id = s.id
+                LEFT JOIN (
+                    SELECT d.song_id, COUNT(DISTINCT d.user_id) AS downloads
+                    FROM user_song_downloads d
+                    JOIN users u ON u.id = d.user_id
+                    WHERE u.user_type = 'USER'
+                    GROUP BY d.song_id
+                ) usd ON usd.song_id = s.id
+                LEFT JOIN (
+                    SELECT h.song_id, MAX(h.date) AS last_listened_at
+                    FROM history_listens h
+                    GROUP BY h.song_id
+                ) hl ON hl.song_id = s.id
+                ON CONFLICT (song_id) DO UPDATE
+                SET total_listens = EXCLUDED.total_listens,
+                    distinct_listeners = EXCLUDED.distinct_listeners,
+                    likes = EXCLUDED.likes,
+                    downloads = EXCLUDED.downloads,
+                    last_listened_at = EXCLUDED.last_listened_at
+            """, nativeQuery = true)
+    int rebuildAll();
+
+    /**
+     * Takes a transaction-scoped advisory lock so that only one node rebuilds song_stats at a time.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryLockRebuild(@Param("key") long key);
+
+    @Modifying
+    @Query(value = "DELETE FROM song_stats ss WHERE NOT EXISTS (SELECT 1 FROM songs s WHERE s.id = ss.song_id)", nativeQuery = true)
+    int deleteOrphans();
+}
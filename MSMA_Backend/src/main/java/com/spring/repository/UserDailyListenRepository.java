@@ -0,0 +1,42 @@
+package com.spring.repository;
+
+import com.spring.entities.UserDailyListen;
+import com.spring.entities.UserDailyListenId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserDailyListenRepository extends JpaRepository<UserDailyListen, UserDailyListenId> {
+    @Query("""
+                SELECT udl FROM UserDailyListen udl
+                WHERE udl.userDailyListenId.userId = :userId
+                AND udl.userDailyListenId.day BETWEEN :from AND :to
+                ORDER BY udl.userDailyListenId.day ASC
+            """)
+    List<UserDailyListen> findByUserIdAndDayBetween(
+            @Param("userId") Long userId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    // Chỉ quét các partition nằm trong [from, to)
+    @Modifying
+    @Query(value = """
+                INSERT INTO listen_daily_user (user_id, day, listens, songs)
+                SELECT h.user_id, CAST(h.date AS date), COUNT(*), COUNT(DISTINCT h.song_id)
+                FROM history_listens h
+                WHERE h.date >= :from AND h.date < :to
+                GROUP BY h.user_id, CAST(h.date AS date)
+                ON CONFLICT (day, user_id) DO UPDATE
+                SET listens = EXCLUDED.listens,
+                    songs = EXCLUDED.songs
+            """, nativeQuery = true)
+    int rollup(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
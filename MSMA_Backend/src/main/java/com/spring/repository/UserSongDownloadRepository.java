@@ -3,10 +3,12 @@ package com.spring.repository;
 import com.spring.entities.UserSongDownload;
 import com.spring.entities.UserSongDownloadId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
@@ -19,5 +21,26 @@ public interface UserSongDownloadRepository extends JpaRepository<UserSongDownlo
 
     @Query("SELECT u FROM UserSongDownload u WHERE u.userSongDownloadId.user.id = :userId")
     List<UserSongDownload> getAllUserDownload(@Param("userId") Long userId);
-}
 
+    @Query(value = """
+                SELECT t.song_id, date_trunc('hour', t.downloaded_at) AS bucket, COUNT(*)
+                FROM user_song_downloads t
+                JOIN users u ON u.id = t.user_id
+                WHERE t.downloaded_at >= :since AND u.user_type = 'USER'
+                GROUP BY t.song_id, bucket
+            """, nativeQuery = true)
+    List<Object[]> countDownloadsBySongAndHourSince(@Param("since") Instant since);
+
+    // Trả về 0 nếu bản ghi đã tồn tại, để bộ đếm trong song_stats chỉ tăng khi thực sự chèn được
+    @Modifying
+    @Query(value = """
+                INSERT INTO user_song_downloads (song_id, user_id, downloaded_at)
+                VALUES (:songId, :userId, :downloadedAt)
+                ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("songId") Long songId, @Param("downloadedAt") Instant downloadedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_song_downloads WHERE song_id = :songId AND user_id = :userId", nativeQuery = true)
+    int deleteByUserIdAndSongId(@Param("userId") Long userId, @Param("songId") Long songId);
+}
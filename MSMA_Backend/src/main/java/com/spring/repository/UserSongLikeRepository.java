@@ -3,10 +3,12 @@ package com.spring.repository;
 import com.spring.entities.UserSongLike;
 import com.spring.entities.UserSongLikeId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
 @Repository
@@ -24,5 +26,25 @@ public interface UserSongLikeRepository extends JpaRepository<UserSongLike, User
             """)
     boolean existsByUserIdAndSongId(@Param("userId") Long userId, @Param("songId") Long songId);
 
-}
+    @Query(value = """
+                SELECT t.song_id, date_trunc('hour', t.liked_at) AS bucket, COUNT(*)
+                FROM user_song_likes t
+                JOIN users u ON u.id = t.user_id
+                WHERE t.liked_at >= :since AND u.user_type = 'USER'
+                GROUP BY t.song_id, bucket
+            """, nativeQuery = true)
+    List<Object[]> countLikesBySongAndHourSince(@Param("since") Instant since);
+
+    // Trả về 0 nếu bản ghi đã tồn tại, để bộ đếm trong song_stats chỉ tăng khi thực sự chèn được
+    @Modifying
+    @Query(value = """
+                INSERT INTO user_song_likes (song_id, user_id, liked_at)
+                VALUES (:songId, :userId, :likedAt)
+                ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("songId") Long songId, @Param("likedAt") Instant likedAt);
 
+    @Modifying
+    @Query(value = "DELETE FROM user_song_likes WHERE song_id = :songId AND user_id = :userId", nativeQuery = true)
+    int deleteByUserIdAndSongId(@Param("userId") Long userId, @Param("songId") Long songId);
+}
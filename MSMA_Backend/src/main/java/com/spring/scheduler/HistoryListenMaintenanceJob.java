@@ -0,0 +1,64 @@
+package com.spring.scheduler;
+
+import com.spring.service.HistoryListenPartitionService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@RequiredArgsConstructor
+public class HistoryListenMaintenanceJob {
+    private static final Logger log = LoggerFactory.getLogger(HistoryListenMaintenanceJob.class);
+
+    private final HistoryListenPartitionService historyListenPartitionService;
+
+    @Value("${history-listens.partitioning-enabled:true}")
+    private boolean partitioningEnabled;
+
+    @Value("${history-listens.rollup-lookback-days:2}")
+    private int rollupLookbackDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareOnStartup() {
+        if (!partitioningEnabled) {
+            return;
+        }
+        maintain();
+    }
+
+    @Scheduled(cron = "${history-listens.maintenance-cron:0 30 0 * * *}")
+    public void maintain() {
+        if (!partitioningEnabled) {
+            return;
+        }
+        try {
+            // Việc chuyển sang bảng phân vùng do operator chạy (POST /api/v1/admin/manage/historyListens/partition)
+            boolean partitioned = historyListenPartitionService.isPartitioned();
+            if (partitioned) {
+                historyListenPartitionService.ensureUpcomingPartitions();
+            } else {
+                log.warn("⚠️ history_listens is not partitioned yet; skipping partition maintenance");
+            }
+
+            // Tổng hợp lại vài ngày gần nhất (tính cả hôm nay) để bù các lượt nghe ghi trễ
+            LocalDate tomorrow = LocalDate.now().plusDays(1);
+            historyListenPartitionService.rollup(tomorrow.minusDays(rollupLookbackDays + 1L), tomorrow);
+
+            if (partitioned) {
+                int dropped = historyListenPartitionService.dropExpiredPartitions();
+                if (dropped > 0) {
+                    log.info("✅ Dropped {} expired history_listens partitions", dropped);
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ history_listens maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.spring.scheduler;
+
+import com.spring.service.SongStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class SongStatisticsReconcileJob {
+    private static final Logger log = LoggerFactory.getLogger(SongStatisticsReconcileJob.class);
+
+    private final SongStatisticsService songStatisticsService;
+
+    @Value("${song-stats.reconcile-on-startup:false}")
+    private boolean reconcileOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    @Scheduled(cron = "${song-stats.reconcile-cron:0 0 3 * * *}")
+    public void reconcile() {
+        try {
+            songStatisticsService.reconcile();
+        } catch (Exception e) {
+            log.error("❌ Reconcile song_stats failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.spring.security;
+
+import com.spring.entities.User;
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The caller of the current request, resolved once from the access token and kept as a request attribute
+ * so that filters, {@link JwtHelper} and response converters share one signature check and one user lookup.
+ * <p>
+ * {@code user} is a snapshot loaded outside the service transaction: read its fields, do not navigate lazy associations.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedPrincipal {
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedPrincipal.class.getName();
+
+    private final Claims claims;
+    private final Long userId;
+    private final String role;
+    private final Integer status;
+    private final User user;
+
+    public static AuthenticatedPrincipal of(Claims claims, Long userId, String role, User user) {
+        return new AuthenticatedPrincipal(claims, userId, role, user != null ? user.getStatus() : null, user);
+    }
+
+    public AuthenticatedPrincipal withUser(User user) {
+        return of(claims, userId, role, user);
+    }
+}
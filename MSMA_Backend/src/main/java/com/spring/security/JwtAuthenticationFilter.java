@@ -1,7 +1,9 @@
 package com.spring.security;
 
-import com.spring.constants.ApiEndpoints;
+import com.spring.entities.User;
+import com.spring.service.TokenDenylist;
 import com.spring.service.UserService;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,6 +11,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,31 +22,34 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final PermittedPathMatcher permittedPathMatcher;
+    private final TokenDenylist tokenDenylist;
+    private final AtomicLong requestCounter = new AtomicLong();
+
+    // Ghi log 1 trên N request (chỉ khi bật DEBUG); 0 để tắt
+    @Value("${security.request-log-sample-rate:100}")
+    private long logSampleRate;
+
+    @Override
+    protected boolean shouldNotFilter(@NotNull HttpServletRequest hsRequest) {
+        return permittedPathMatcher.matches(hsRequest);
+    }
 
     @Override
     protected void doFilterInternal(@NotNull HttpServletRequest hsRequest, @NotNull HttpServletResponse hsResponse, @NotNull FilterChain filterChain)
             throws ServletException, IOException {
-        for (String element : Arrays
-                .stream(ApiEndpoints.PERMITTED.getApis())
-                .map(s -> {
-                    if (s.endsWith("/**")) s = s.substring(0, s.length() - 3);
-                    return s;
-                })
-                .toList()) {
-            if (hsRequest.getRequestURI().contains(element)) {
-                filterChain.doFilter(hsRequest, hsResponse);
-                return;
-            }
+        if (log.isDebugEnabled() && logSampleRate > 0 && requestCounter.getAndIncrement() % logSampleRate == 0) {
+            log.debug("jwt-filter method={} uri={}", hsRequest.getMethod(), hsRequest.getRequestURI());
         }
-        System.out.println(hsRequest.getRequestURI());
         String authHeader = hsRequest.getHeader("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             unauthorizedRequest(hsResponse);
@@ -49,14 +57,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         try {
             String accessToken = authHeader.substring(7);
+            // Chỉ xác thực chữ ký một lần cho cả request
+            Claims claims = jwtUtil.parseClaims(accessToken);
             // Check if the token contains a subject
-            String username = jwtUtil.extractUsername(accessToken);
+            String username = claims.getSubject();
             if (username == null || SecurityContextHolder.getContext().getAuthentication() != null) {
                 unauthorizedRequest(hsResponse);
                 return;
             }
+            // Token đã bị thu hồi khi đăng xuất (tra trong bộ nhớ, không truy vấn DB)
+            if (tokenDenylist.isRevoked(claims.getId())) {
+                unauthorizedRequest(hsResponse);
+                return;
+            }
 
             UserDetails userDetails = userService.loadUserByUsername(username);
+            User user = (User) userDetails;
+            hsRequest.setAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE, AuthenticatedPrincipal.of(
+                    claims,
+                    jwtUtil.extractUserId(claims),
+                    jwtUtil.extractRole(claims),
+                    user
+            ));
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                     userDetails,
                     null,
@@ -1,7 +1,11 @@
 package com.spring.security;
 
 import com.spring.constants.ApiResponseCode;
+import com.spring.entities.User;
 import com.spring.exceptions.BusinessException;
+import com.spring.service.TokenDenylist;
+import com.spring.service.UserAuthCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -12,6 +16,8 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 @RequiredArgsConstructor
 public class JwtHelper {
     private final JwtUtil jwtUtil;
+    private final UserAuthCache userAuthCache;
+    private final TokenDenylist tokenDenylist;
 
     /**
      * Extracts the user ID from the Bearer token in the current HTTP request's Authorization header.
@@ -20,18 +26,7 @@ public class JwtHelper {
      * @throws BusinessException BusinessException if the token is missing, invalid, or expired
      */
     public Long getIdUserRequesting() {
-        HttpServletRequest hsRequest = getCurrentHttpRequest();
-        if (hsRequest == null) {
-            throw new BusinessException(ApiResponseCode.INVALID_HTTP_REQUEST);
-        }
-
-        String authHeader = hsRequest.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new BusinessException(ApiResponseCode.INVALID_HTTP_REQUEST_HEADER);
-        }
-
-        String accessToken = authHeader.substring(7);
-        return jwtUtil.extractUserId(accessToken);
+        return getPrincipal().getUserId();
     }
 
     /**
@@ -41,18 +36,60 @@ public class JwtHelper {
      * @throws BusinessException BusinessException if the token is missing, invalid, or expired
      */
     public String getUserRoleRequesting() {
+        return getPrincipal().getRole();
+    }
+
+    /**
+     * Returns the user making the current request, loaded at most once per request.
+     * The entity is a snapshot: only read its own fields.
+     *
+     * @return the user associated with the token
+     * @throws BusinessException BusinessException if the token is missing, invalid, or the user no longer exists
+     */
+    public User getUserRequesting() {
+        AuthenticatedPrincipal principal = getPrincipal();
+        if (principal.getUser() != null) {
+            return principal.getUser();
+        }
+
+        User user = userAuthCache.findById(principal.getUserId())
+                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
+        getCurrentHttpRequest().setAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE, principal.withUser(user));
+        return user;
+    }
+
+    /**
+     * Returns the principal cached by {@link JwtAuthenticationFilter}, or parses the Bearer token once
+     * and caches it when the filter was skipped (permitted endpoints).
+     */
+    private AuthenticatedPrincipal getPrincipal() {
         HttpServletRequest hsRequest = getCurrentHttpRequest();
         if (hsRequest == null) {
             throw new BusinessException(ApiResponseCode.INVALID_HTTP_REQUEST);
         }
 
+        if (hsRequest.getAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE) instanceof AuthenticatedPrincipal principal) {
+            return principal;
+        }
+
         String authHeader = hsRequest.getHeader("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             throw new BusinessException(ApiResponseCode.INVALID_HTTP_REQUEST_HEADER);
         }
 
         String accessToken = authHeader.substring(7);
-        return jwtUtil.extractRole(accessToken);
+        Claims claims = jwtUtil.parseClaims(accessToken);
+        if (tokenDenylist.isRevoked(claims.getId())) {
+            throw new BusinessException(ApiResponseCode.INVALID_HTTP_REQUEST_HEADER);
+        }
+        AuthenticatedPrincipal principal = AuthenticatedPrincipal.of(
+                claims,
+                jwtUtil.extractUserId(claims),
+                jwtUtil.extractRole(claims),
+                null
+        );
+        hsRequest.setAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE, principal);
+        return principal;
     }
 
     /**
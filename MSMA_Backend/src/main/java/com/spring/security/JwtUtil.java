@@ -14,6 +14,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
@@ -36,6 +37,7 @@ public class JwtUtil {
         long now = System.currentTimeMillis();
         return Jwts
                 .builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(user.getUsername())
                 .claim(USER_ID_CLAIM, user.getId())
                 .claim(ROLES_CLAIM, user.getUserType())
@@ -61,6 +63,14 @@ public class JwtUtil {
         return extractClaimsFromToken(token).get(ROLES_CLAIM, String.class);
     }
 
+    public Long extractUserId(Claims claims) {
+        return claims.get(USER_ID_CLAIM, Long.class);
+    }
+
+    public String extractRole(Claims claims) {
+        return claims.get(ROLES_CLAIM, String.class);
+    }
+
     public Date extractIssuedDate(String token) {
         return extractClaimsFromToken(token).getIssuedAt();
     }
@@ -85,6 +95,15 @@ public class JwtUtil {
         return extractExpirationDate(token).before(new Date());
     }
 
+    /**
+     * Verifies the signature once and returns every claim, so callers can read several of them without re-parsing.
+     *
+     * @throws io.jsonwebtoken.ExpiredJwtException if the token is expired
+     */
+    public Claims parseClaims(String token) {
+        return extractClaimsFromToken(token);
+    }
+
     /**
      * @param token the token
      * @return Claims
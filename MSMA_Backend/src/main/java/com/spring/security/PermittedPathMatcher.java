@@ -0,0 +1,91 @@
+package com.spring.security;
+
+import com.spring.constants.ApiEndpoints;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link ApiEndpoints#PERMITTED} compiled once at startup. Used both by {@code SecurityConfig} for
+ * {@code permitAll()} and by {@link JwtAuthenticationFilter} to skip token checks, so the two can no longer disagree.
+ * <p>
+ * Literal paths and {@code /literal/**} prefixes, which is every pattern today, are matched with plain string
+ * comparisons and allocate nothing; other patterns fall back to Spring's {@link PathPattern}.
+ */
+@Component
+public class PermittedPathMatcher implements RequestMatcher {
+    private static final String ANY_SUFFIX = "/**";
+
+    private final Set<String> exactPaths = new HashSet<>();
+    private final String[] prefixes;
+    private final PathPattern[] patterns;
+
+    public PermittedPathMatcher() {
+        List<String> prefixList = new ArrayList<>();
+        List<PathPattern> patternList = new ArrayList<>();
+        for (String api : new HashSet<>(Arrays.asList(ApiEndpoints.PERMITTED.getApis()))) {
+            String head = api.endsWith(ANY_SUFFIX) ? api.substring(0, api.length() - ANY_SUFFIX.length()) : api;
+            if (!isLiteral(head)) {
+                patternList.add(PathPatternParser.defaultInstance.parse(api));
+            } else if (head.length() < api.length()) {
+                prefixList.add(head);
+            } else {
+                exactPaths.add(api);
+            }
+        }
+        this.prefixes = prefixList.toArray(String[]::new);
+        this.patterns = patternList.toArray(PathPattern[]::new);
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (contextPath != null && !contextPath.isEmpty() && uri.startsWith(contextPath)) {
+            uri = uri.substring(contextPath.length());
+        }
+        return matches(uri);
+    }
+
+    public boolean matches(String path) {
+        if (exactPaths.contains(path)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            // "/a/**" khớp "/a" và "/a/...", nhưng không khớp "/ab"
+            if (path.startsWith(prefix)
+                    && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        if (patterns.length == 0) {
+            return false;
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLiteral(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
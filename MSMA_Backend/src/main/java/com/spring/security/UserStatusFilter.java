@@ -28,8 +28,11 @@ public class UserStatusFilter extends OncePerRequestFilter {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication != null && authentication.isAuthenticated()) {
-            String email = authentication.getName();
-            User user = userService.findByEmail(email);
+            // Dùng lại User đã nạp ở JwtAuthenticationFilter, tránh truy vấn lần hai
+            Object principal = request.getAttribute(AuthenticatedPrincipal.REQUEST_ATTRIBUTE);
+            User user = principal instanceof AuthenticatedPrincipal authenticatedPrincipal && authenticatedPrincipal.getUser() != null
+                    ? authenticatedPrincipal.getUser()
+                    : userService.findByEmail(authentication.getName());
 
             if (user.getStatus().equals(CommonStatus.DELETED.getStatus())) {
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, "Tài khoản User đã bị xoá.");
@@ -0,0 +1,30 @@
+package com.spring.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Local, content-addressed copies of uploaded audio, kept from draft creation until processing so that
+ * {@code processSong} does not download the file back from Cloudinary. Files are named by their SHA-256 and
+ * evicted by age and total size, so a miss (eviction, restart on another node) is normal and callers must fall back.
+ */
+public interface AudioStagingStore {
+    /**
+     * Streams the upload to the staging directory while hashing it.
+     *
+     * @return the SHA-256 (lowercase hex) the file is stored under, or empty if staging is disabled or failed
+     */
+    Optional<String> stage(MultipartFile file);
+
+    /**
+     * @return the staged file for this hash, if it is still present
+     */
+    Optional<Path> find(String sha256);
+
+    /**
+     * Deletes the staged file; a no-op if it is already gone.
+     */
+    void release(String sha256);
+}
@@ -0,0 +1,36 @@
+package com.spring.service;
+
+import com.spring.constants.SearchContentType;
+import com.spring.dto.SearchHit;
+
+import java.util.List;
+import java.util.Map;
+
+public interface CatalogSearchIndex {
+    /**
+     * Returns matches of the given type ranked by score, from memory only.
+     * Every query token must match a document term exactly, as a prefix, or within a small edit distance.
+     *
+     * @param type    null to search every type
+     * @param genreId only applied to songs, null for no filter
+     */
+    List<SearchHit> search(String query, SearchContentType type, Long genreId, int limit, int offset);
+
+    /**
+     * False until the first build completes, or while the index is truncated by its memory bounds.
+     * Callers should fall back to the database in that case.
+     */
+    boolean isAvailable();
+
+    /**
+     * Reloads one entity from the database and adds, replaces or removes its document.
+     */
+    void refresh(SearchContentType type, Long id);
+
+    /**
+     * Rebuilds the whole index from the database and swaps it in atomically.
+     */
+    Map<String, Object> rebuild();
+
+    Map<String, Object> getStats();
+}
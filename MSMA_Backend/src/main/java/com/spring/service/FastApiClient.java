@@ -0,0 +1,17 @@
+package com.spring.service;
+
+import com.spring.constants.FastApiEndpoint;
+import org.springframework.http.MediaType;
+import org.springframework.util.MultiValueMap;
+
+public interface FastApiClient {
+    /**
+     * Posts a form or multipart body to the prediction service and returns the raw response body.
+     * Connection failures and 502/503 responses are retried with jittered backoff; while the circuit is open
+     * the call fails immediately.
+     *
+     * @throws com.spring.exceptions.BusinessException FASTAPI_UNAVAILABLE, FASTAPI_TIMEOUT, FASTAPI_ERROR
+     *                                                 or FASTAPI_REJECTED
+     */
+    String post(FastApiEndpoint endpoint, MultiValueMap<String, ?> body, MediaType contentType);
+}
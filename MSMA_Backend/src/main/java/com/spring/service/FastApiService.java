@@ -17,4 +17,5 @@ public interface FastApiService {
     ResponseEntity<String> lyricsPredictGenre(String lyrics);
     ResponseEntity<String> audioPredictGenre(MultipartFile file, String requestId);
     void handleGenres(Song song, List<String> genreNameList, String lyrics, MultipartFile mp3File, String requestId);
+    void saveFinalGenre(Song song, String genreByLyrics, String genreByAudio);
 }
@@ -0,0 +1,44 @@
+package com.spring.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface HistoryListenPartitionService {
+    /**
+     * Whether history_listens is already range-partitioned by month.
+     */
+    boolean isPartitioned();
+
+    /**
+     * Operator-run migration of a plain history_listens table (as created by Hibernate) into a table
+     * range-partitioned by month. Rows are copied in batches while the old table keeps taking writes; only the
+     * final tail copy and the rename hold an exclusive lock. The old table is kept as history_listens_legacy
+     * for the operator to drop. Safe to re-run after an interruption and a no-op once partitioned.
+     *
+     * @return migration report (status, rows copied, elapsed time)
+     */
+    Map<String, Object> migrateToPartitionedTable();
+
+    /**
+     * Creates the monthly partitions from the current month up to the configured number of months ahead.
+     */
+    void ensureUpcomingPartitions();
+
+    /**
+     * Recomputes the daily per-song and per-user rollups for days in [from, to).
+     */
+    void rollup(LocalDate from, LocalDate to);
+
+    /**
+     * Rolls up and then drops every monthly partition that is entirely older than the retention window.
+     *
+     * @return number of partitions dropped
+     */
+    int dropExpiredPartitions();
+
+    /**
+     * Oldest timestamp still kept as raw history rows.
+     */
+    LocalDateTime getRetentionStart();
+}
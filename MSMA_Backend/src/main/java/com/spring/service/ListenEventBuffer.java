@@ -0,0 +1,19 @@
+package com.spring.service;
+
+import com.spring.dto.ListenEvent;
+
+public interface ListenEventBuffer {
+    /**
+     * Queues a listen event to be written by the background flusher.
+     *
+     * @throws com.spring.exceptions.BusinessException TOO_MANY_REQUESTS when the buffer stays full
+     */
+    void record(ListenEvent event);
+
+    /**
+     * Writes every buffered event now and returns how many were flushed.
+     */
+    int flush();
+
+    int pendingCount();
+}
@@ -0,0 +1,20 @@
+package com.spring.service;
+
+import java.util.List;
+
+/**
+ * One way of reaching followers during a fan-out: a stored in-app notification, a device push, ...
+ * {@link NotificationFanout} hands every chunk of followers to each channel inside that chunk's transaction,
+ * so a channel only writes or queues rows; anything that talks to an external service goes through the outbox.
+ */
+public interface NotificationChannel {
+    /**
+     * Name used in fan-out progress reports.
+     */
+    String getName();
+
+    /**
+     * @return number of notifications written or queued for this chunk
+     */
+    int deliver(List<Long> userIds, String title, String content);
+}
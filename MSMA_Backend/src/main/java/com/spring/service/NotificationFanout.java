@@ -0,0 +1,22 @@
+package com.spring.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface NotificationFanout {
+    /**
+     * Expands a FANOUT outbox row: for each chunk of followers after {@code afterUserId}, hands the chunk to every
+     * {@link NotificationChannel} and records the last follower id on the row, all in one transaction.
+     * A failed run can therefore be resumed from the row's cursor without notifying anyone twice.
+     * The cursor only moves while the row is still leased by {@code workerId}; once another worker has taken it over,
+     * the current chunk is rolled back and the run stops.
+     *
+     * @throws RuntimeException if a chunk fails or the lease was lost; chunks already written stay committed
+     */
+    void notifyFollowers(Long outboxId, String workerId, Long artistId, String title, String content, long afterUserId);
+
+    /**
+     * Progress of the running and most recent fan-outs, newest first.
+     */
+    List<Map<String, Object>> getProgress();
+}
@@ -0,0 +1,15 @@
+package com.spring.service;
+
+public interface NotificationOutbox {
+    /**
+     * Queues a push to every registered device of the user, in the caller's transaction.
+     * Users without a device token get no push; a push identical to one still waiting for the same device is dropped.
+     */
+    void enqueuePush(Long userId, String title, String content);
+
+    /**
+     * Queues a notification to every follower of the artist, in the caller's transaction.
+     * The dispatcher expands it into notification rows and pushes after commit.
+     */
+    void enqueueFanout(Long artistId, String title, String content);
+}
@@ -11,8 +11,8 @@ public interface NotificationService {
     void notifyArtistAlbumDeclined(Long artistId, String albumTitle);
     void notifyArtistSongMilestone(Long artistId, String songTitle, Long streams, String milestoneType);
 
-    // User notifications
-    void notifyUserNewSong(Long userId, Long artistId, String songTitle);
-    void notifyUserNewPlaylist(Long userId, Long artistId, String playlistTitle);
-    void notifyUserNewAlbum(Long userId, Long artistId, String albumTitle);
+    // Follower notifications (fan-out to every follower of the artist)
+    void notifyFollowersNewSong(Long artistId, String songTitle);
+    void notifyFollowersNewPlaylist(Long artistId, String playlistTitle);
+    void notifyFollowersNewAlbum(Long artistId, String albumTitle);
 }
@@ -0,0 +1,32 @@
+package com.spring.service;
+
+import com.spring.dto.response.Otp;
+
+import java.util.Optional;
+
+/**
+ * Holds OTP sessions for sign-up and forgot-password between sending the code and using it.
+ * Sessions expire at {@link Otp#getDueDate()}, allow a bounded number of guesses, and sending is rate limited per email.
+ */
+public interface OtpStore {
+    /**
+     * Stores {@code otp} for the session, unless the session already holds a live OTP for the same email.
+     *
+     * @return the OTP now in effect for the session, which is the one to send
+     * @throws com.spring.exceptions.BusinessException TOO_MANY_REQUESTS if the email exceeded its send quota
+     */
+    Otp issue(String sessionId, Otp otp);
+
+    /**
+     * Counts one attempt and checks the code. A correct code marks the session verified.
+     *
+     * @throws com.spring.exceptions.BusinessException SESSION_ID_NOT_FOUND if the session is unknown or expired,
+     *                                                 TOO_MANY_REQUESTS once attempts are exhausted (the session is dropped)
+     */
+    boolean verify(String sessionId, String code);
+
+    /**
+     * Removes a verified session and returns its OTP; empty if the session is unknown, expired or was never verified.
+     */
+    Optional<Otp> consumeVerified(String sessionId);
+}
@@ -0,0 +1,8 @@
+package com.spring.service;
+
+public interface ProcessingJobQueue {
+    /**
+     * Queues processing for a song in the caller's transaction. No-op if the song already has a job waiting or running.
+     */
+    void enqueue(Long songId);
+}
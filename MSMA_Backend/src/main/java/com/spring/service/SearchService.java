@@ -1,7 +1,9 @@
 package com.spring.service;
 
 import com.spring.dto.request.*;
+import com.spring.dto.response.SearchSuggestionResponse;
 
+import java.util.List;
 import java.util.Map;
 
 public interface SearchService {
@@ -16,4 +18,10 @@ public interface SearchService {
     Map<String, Object> paginationGenres(PaginationGenreRequest request);
     Map<String, Object> paginationRecentContents(PaginationContentRequest request);
     Map<String, Object> getContents(String title, Long genreId, String type, Integer limit, Integer offset);
+
+    /**
+     * Typeahead suggestions served from the in-memory catalog index, or ranked by pg_trgm while the index is unavailable.
+     * Fails with SEARCH_UNAVAILABLE (503) when neither is ready.
+     */
+    List<SearchSuggestionResponse> suggest(String query, String type, Integer limit);
 }
@@ -1,11 +1,15 @@
 package com.spring.service;
 
+import com.spring.constants.TrendingMetric;
+import com.spring.constants.TrendingWindow;
 import com.spring.dto.request.music.AdminAddSongRequest;
 import com.spring.dto.request.music.EditSongRequest;
 import com.spring.dto.request.music.SongUploadRequest;
 import com.spring.dto.response.ApiResponse;
+import com.spring.dto.response.DailyListenResponse;
 import com.spring.dto.response.SongResponse;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface SongService {
@@ -36,6 +40,8 @@ public interface SongService {
 
     Long getNumberOfUserLike(Long songId);
 
+    List<DailyListenResponse> getDailyListens(Long songId, LocalDate from, LocalDate to);
+
     Long totalSongsByArtist();
 
     Long totalNumberOfListeners();
@@ -54,11 +60,17 @@ public interface SongService {
 
     List<SongResponse> getTop15MostDownloadSong();
 
+    List<SongResponse> getTrendingSongs(TrendingMetric metric, TrendingWindow window, int limit);
+
     // Upload Song Process
     ApiResponse createDraftSong(SongUploadRequest songUploadRequest);
 
     ApiResponse uploadSong(Long songId);     // Artist
 
+    ApiResponse processSong(Long songId);    // Processing job worker
+
+    void declineProcessing(Long songId, String reason);    // Processing job dead-lettered
+
     ApiResponse publishSong(Long id);    // Admin
 
     ApiResponse declineSong(Long id);    // Admin
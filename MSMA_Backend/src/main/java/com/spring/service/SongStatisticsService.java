@@ -0,0 +1,22 @@
+package com.spring.service;
+
+public interface SongStatisticsService {
+    /**
+     * Creates the zero counter row of a new song. The sort-by-listens queries inner-join song_stats,
+     * so a song without a row would not be listed until the next reconcile.
+     */
+    void createStats(Long songId);
+
+    void incrementLikes(Long songId, long delta);
+
+    void incrementDownloads(Long songId, long delta);
+
+    /**
+     * Rebuilds the song_stats table from user_song_count, user_song_likes, user_song_downloads
+     * and history_listens to repair any drift of the incrementally maintained counters.
+     * Only one node rebuilds at a time; the others skip the run and return 0.
+     *
+     * @return number of song rows rebuilt
+     */
+    int reconcile();
+}
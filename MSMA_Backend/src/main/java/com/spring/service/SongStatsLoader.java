@@ -0,0 +1,19 @@
+package com.spring.service;
+
+import com.spring.dto.SongStats;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface SongStatsLoader {
+    /**
+     * Loads listen, listener, download and like counters for every given song
+     * from the song_stats table in a single query.
+     *
+     * @param songIds ids of the songs to load
+     * @return counters keyed by song id; songs without any activity map to {@link SongStats#EMPTY}
+     */
+    Map<Long, SongStats> loadStats(Collection<Long> songIds);
+
+    SongStats loadStats(Long songId);
+}
@@ -0,0 +1,18 @@
+package com.spring.service;
+
+import java.time.Instant;
+
+public interface TokenDenylist {
+    /**
+     * Checked on every authenticated request from memory only: a Bloom filter rejects almost every live token
+     * without touching the exact set, and nothing is allocated.
+     *
+     * @param jti null for tokens issued before {@code jti} claims existed; never revoked
+     */
+    boolean isRevoked(String jti);
+
+    /**
+     * Records the revocation in {@code revoked_tokens} and in this node's denylist. Other nodes pick it up on their next sync.
+     */
+    void revoke(String jti, Instant expiresAt);
+}
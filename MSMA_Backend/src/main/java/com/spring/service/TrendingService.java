@@ -0,0 +1,27 @@
+package com.spring.service;
+
+import com.spring.constants.TrendingMetric;
+import com.spring.constants.TrendingWindow;
+
+import java.util.List;
+
+public interface TrendingService {
+    /**
+     * Returns up to {@code limit} song ids ranked by the metric's count over the window: the last 24 hours or
+     * 7 days at hourly granularity, or all time. Served from an in-memory snapshot, no database access.
+     */
+    List<Long> getTopSongIds(TrendingMetric metric, TrendingWindow window, int limit);
+
+    void recordListen(Long songId);
+
+    void recordDownload(Long songId, long delta);
+
+    void recordLike(Long songId, long delta);
+
+    void removeSong(Long songId);
+
+    /**
+     * Rebuilds every board from history_listens, user_song_likes, user_song_downloads and song_stats.
+     */
+    void reseed();
+}
@@ -0,0 +1,22 @@
+package com.spring.service;
+
+import com.spring.entities.User;
+
+import java.util.Optional;
+
+public interface UserAuthCache {
+    /**
+     * Returns the user with exactly this email, from memory when a fresh entry exists.
+     * Absent users are not cached.
+     */
+    Optional<User> findByEmail(String email);
+
+    Optional<User> findById(Long id);
+
+    /**
+     * Drops the entries for this user; either argument may be null.
+     */
+    void invalidate(Long userId, String email);
+
+    void invalidateAll();
+}
@@ -8,7 +8,11 @@ import java.util.List;
 public interface UserSongCountService {
     ApiResponse incrementListenCount(Long id);
 
-    List<HistoryListenResponse> getAllHistoryListenByCurrentUser();
+    /**
+     * Latest play of each song by the current user, newest first. Without {@code cursor} and {@code size}
+     * the whole history is returned, as before pagination existed; otherwise one keyset page.
+     */
+    List<HistoryListenResponse> getAllHistoryListenByCurrentUser(String cursor, Integer size);
 
     List<HistoryListenResponse> getAllRecentListeningCurrentUser();
 }
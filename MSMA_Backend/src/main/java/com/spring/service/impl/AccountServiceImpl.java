@@ -3,7 +3,10 @@ package com.spring.service.impl;
 import com.spring.constants.ApiResponseCode;
 import com.spring.constants.CommonStatus;
 import com.spring.constants.ManageProcess;
+import com.spring.constants.SearchContentType;
 import com.spring.constants.UserType;
+import com.spring.dto.CatalogChangedEvent;
+import com.spring.dto.UserAuthChangedEvent;
 import com.spring.dto.request.account.*;
 import com.spring.dto.response.*;
 import com.spring.entities.Artist;
@@ -15,9 +18,11 @@ import com.spring.security.JwtHelper;
 import com.spring.service.AccountService;
 import com.spring.service.CloudinaryService;
 import com.spring.service.EmailService;
+import com.spring.service.OtpStore;
 import com.spring.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.text.RandomStringGenerator;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,7 +35,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,9 +52,10 @@ public class AccountServiceImpl implements AccountService {
     private static final String OTP_DUE_DATE_KEY = "otpDueDate";
     private static final String VALID_KEY = "isValid";
     private static final RandomStringGenerator numericGenerator = new RandomStringGenerator.Builder().withinRange('0', '9').build();
-    private static final Map<String, Otp> sessionOtpMap = new HashMap<>();
     private final NotificationRepository notificationRepository;
     private final CloudinaryService cloudinaryService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final OtpStore otpStore;
 
     // For User, Artist and Admin
     @Override
@@ -171,27 +176,22 @@ public class AccountServiceImpl implements AccountService {
 
         String email = request.getEmail();
         String sessionId = request.getSessionId();
-        sessionOtpMap.computeIfAbsent(sessionId, o -> Otp.builder()
+        // Gửi lại trong cùng phiên dùng lại OTP cũ nếu còn hạn
+        Otp otp = otpStore.issue(sessionId, Otp.builder()
                 .email(email)
                 .otp(numericGenerator.generate(6))
                 .dueDate(dueDateInVietnam)
                 .build());
-        Otp otp = sessionOtpMap.get(sessionId);
         emailService.sendEmailVerificationOtp(otp);
         Map<String, ZonedDateTime> response = new HashMap<>();
-        response.put(OTP_DUE_DATE_KEY, dueDateInVietnam);
+        response.put(OTP_DUE_DATE_KEY, otp.getDueDate());
         return response;
     }
 
     @Override
     public Map<String, Boolean> checkOtp(CheckOtpRequest request) {
-        String sessionId = request.getSessionId();
-        if (!sessionOtpMap.containsKey(sessionId)) {
-            throw new BusinessException(ApiResponseCode.SESSION_ID_NOT_FOUND);
-        }
-        Otp otp = sessionOtpMap.get(sessionId);
         Map<String, Boolean> response = new HashMap<>();
-        response.put(VALID_KEY, Objects.equals(otp.getOtp(), request.getOtp()));
+        response.put(VALID_KEY, otpStore.verify(request.getSessionId(), request.getOtp()));
         return response;
     }
 
@@ -830,18 +830,19 @@ public class AccountServiceImpl implements AccountService {
         ZonedDateTime dueDateInVietnam = ZonedDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).plusSeconds(60);
         Instant now = dueDateInVietnam.toInstant();
 
-        String sessionId = request.getSessionId();
-        if (!sessionOtpMap.containsKey(sessionId)) {
-            throw new BusinessException(ApiResponseCode.SESSION_ID_NOT_FOUND);
-        }
-        userRepository
+        // Chỉ phiên đã nhập đúng OTP mới được đặt lại mật khẩu; phiên bị xoá ngay sau khi dùng
+        Otp otp = otpStore.consumeVerified(request.getSessionId())
+                .orElseThrow(() -> new BusinessException(ApiResponseCode.SESSION_ID_NOT_FOUND));
+        // Đọc trực tiếp từ DB (không qua cache) vì toàn bộ entity sẽ được ghi lại
+        User user = userRepository
                 .save(((User) userService
-                        .loadUserByUsername(sessionOtpMap.get(sessionId).getEmail()))
+                        .getUserDetailsCustomService()
+                        .loadUserByUsername(otp.getEmail()))
                         .toBuilder()
                         .password(passwordEncoder.encode(request.getPassword()))
                         .lastModifiedDate(now)
                         .build());
-        sessionOtpMap.remove(sessionId);
+        applicationEventPublisher.publishEvent(new UserAuthChangedEvent(this, user.getId(), user.getEmail()));
         return ApiResponse.ok();
     }
 
@@ -861,6 +862,7 @@ public class AccountServiceImpl implements AccountService {
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAuthChangedEvent(this, user.getId(), user.getEmail()));
 
         return ApiResponse.ok();
     }
@@ -905,6 +907,7 @@ public class AccountServiceImpl implements AccountService {
         user.setLastModifiedBy(id);
         user.setLastModifiedDate(now);
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAuthChangedEvent(this, user.getId(), user.getEmail()));
 
         return ApiResponse.ok();
     }
@@ -957,6 +960,7 @@ public class AccountServiceImpl implements AccountService {
         user.setLastModifiedBy(id);
         user.setLastModifiedDate(now);
         artistRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAuthChangedEvent(this, user.getId(), user.getEmail()));
 
         return ApiResponse.ok();
     }
@@ -983,6 +987,7 @@ public class AccountServiceImpl implements AccountService {
             default:
                 throw new BusinessException(ApiResponseCode.INVALID_TYPE);
         }
+        applicationEventPublisher.publishEvent(new UserAuthChangedEvent(this, user.getId(), user.getEmail()));
 
         return ApiResponse.ok();
     }
@@ -1017,6 +1022,10 @@ public class AccountServiceImpl implements AccountService {
                 .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
 
         userRepository.delete(user);
+        applicationEventPublisher.publishEvent(new UserAuthChangedEvent(this, user.getId(), user.getEmail()));
+        if (user.getUserType() == UserType.ARTIST) {
+            applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.ARTIST, userId));
+        }
 
         return ApiResponse.ok();
     }
@@ -1176,6 +1185,7 @@ public class AccountServiceImpl implements AccountService {
         user.setLastModifiedBy(userModifyId);
         user.setLastModifiedDate(now);
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAuthChangedEvent(this, user.getId(), user.getEmail()));
 
         String message = (process == ManageProcess.ACCEPTED)
                 ? "Account deleted successfully!"
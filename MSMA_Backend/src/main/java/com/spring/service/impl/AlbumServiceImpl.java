@@ -1,6 +1,7 @@
 package com.spring.service.impl;
 
 import com.spring.constants.*;
+import com.spring.dto.CatalogChangedEvent;
 import com.spring.dto.request.music.AddSongRequest;
 import com.spring.dto.request.music.AdminAddAlbumRequest;
 import com.spring.dto.request.music.AlbumRequest;
@@ -16,6 +17,7 @@ import com.spring.service.AlbumService;
 import com.spring.service.CloudinaryService;
 import com.spring.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,8 +41,8 @@ public class AlbumServiceImpl implements AlbumService {
     private final JwtHelper jwtHelper;
     private final CloudinaryService cloudinaryService;
     private final UserSavedAlbumRepository userSavedAlbumRepository;
-    private final ArtistUserFollowRepository artistUserFollowRepository;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     public AlbumResponse createAlbum(AlbumRequest request) {
@@ -192,6 +194,7 @@ public class AlbumServiceImpl implements AlbumService {
         album.setLastModifiedDate(now);
         album.setPlaylistAndAlbumStatus(album.getPlaylistAndAlbumStatus());
         Album updated = albumRepository.save(album);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.ALBUM, updated.getId()));
         return convertToAlbumResponse(updated);
     }
 
@@ -200,6 +203,7 @@ public class AlbumServiceImpl implements AlbumService {
         Album album = albumRepository.findById(albumId)
                 .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
         albumRepository.delete(album);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.ALBUM, albumId));
         return ApiResponse.ok("Album deleted successfully");
     }
 
@@ -484,12 +488,11 @@ public class AlbumServiceImpl implements AlbumService {
         album.setPlaylistAndAlbumStatus(PlaylistAndAlbumStatus.ACCEPTED);
         album.setLastModifiedDate(now);
         albumRepository.save(album);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.ALBUM, album.getId()));
         for (ArtistAlbum artistAlbum : album.getArtistAlbums()) {
             Long artistId = artistAlbum.getArtistAlbumId().getArtist().getId();
             notificationService.notifyArtistAlbumAccepted(artistId, album.getAlbumName());
-            for (Long userId : artistUserFollowRepository.findByArtistId(artistId)) {
-                notificationService.notifyUserNewAlbum(userId, artistId, album.getAlbumName());
-            }
+            notificationService.notifyFollowersNewAlbum(artistId, album.getAlbumName());
         }
         return ApiResponse.ok("Playlist accepted!");
     }
@@ -570,6 +573,7 @@ public class AlbumServiceImpl implements AlbumService {
         album.setPlaylistAndAlbumStatus(PlaylistAndAlbumStatus.ACCEPTED);
         album.setLastModifiedDate(now);
         albumRepository.save(album);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.ALBUM, album.getId()));
 
         return ApiResponse.ok("Thêm album thành công!");
     }
@@ -618,8 +622,7 @@ public class AlbumServiceImpl implements AlbumService {
 
     private AlbumResponse convertToAlbumResponse(Album album) {
         Long id = jwtHelper.getIdUserRequesting();
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
+        User user = jwtHelper.getUserRequesting();
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         String formattedDate = album.getReleaseDate() != null
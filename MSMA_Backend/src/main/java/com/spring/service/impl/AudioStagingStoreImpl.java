@@ -0,0 +1,205 @@
+package com.spring.service.impl;
+
+import com.spring.service.AudioStagingStore;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Staged files live in {@code audio-staging.dir} as {@code <sha256>.mp3}; identical uploads share one file.
+ * The last-modified time doubles as last-access time: files untouched for {@code audio-staging.ttl-hours} are
+ * removed, and the least recently used ones go first when the directory exceeds {@code audio-staging.max-bytes}.
+ */
+@Service
+public class AudioStagingStoreImpl implements AudioStagingStore {
+    private static final Logger log = LoggerFactory.getLogger(AudioStagingStoreImpl.class);
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final String STAGED_SUFFIX = ".mp3";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public AudioStagingStoreImpl(
+            @Value("${audio-staging.enabled:true}") boolean enabled,
+            @Value("${audio-staging.dir:music_upload/staging}") String directory,
+            @Value("${audio-staging.max-bytes:10737418240}") long maxBytes,
+            @Value("${audio-staging.ttl-hours:72}") long ttlHours
+    ) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlHours * 3_600_000L;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (enabled) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    @Override
+    public Optional<String> stage(MultipartFile file) {
+        if (!enabled || file == null || file.isEmpty()) {
+            return Optional.empty();
+        }
+        Path partial = null;
+        try {
+            partial = Files.createTempFile(directory, "upload-", PARTIAL_SUFFIX);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // Băm trong lúc ghi ra đĩa: chỉ đọc file upload một lần, heap chỉ giữ buffer copy
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, partial, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(sha256);
+            if (Files.exists(target)) {
+                touch(target);
+            } else {
+                Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            enforceSizeLimit();
+            return Optional.of(sha256);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.warn("⚠️ Failed to stage audio {}: {}", file.getOriginalFilename(), e.getMessage());
+            return Optional.empty();
+        } finally {
+            deleteQuietly(partial);
+        }
+    }
+
+    @Override
+    public Optional<Path> find(String sha256) {
+        if (!enabled || sha256 == null || !SHA256_HEX.matcher(sha256).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(sha256);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        touch(path);
+        return Optional.of(path);
+    }
+
+    @Override
+    public void release(String sha256) {
+        if (sha256 != null && SHA256_HEX.matcher(sha256).matches()) {
+            deleteQuietly(pathOf(sha256));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audio-staging.evict-interval-ms:600000}")
+    public void evictExpired() {
+        if (!enabled) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        for (StagedFile staged : listFiles(true)) {
+            if (staged.lastModified() < cutoff) {
+                deleteQuietly(staged.path());
+            }
+        }
+        enforceSizeLimit();
+    }
+
+    // Helper Method
+    // Không dùng synchronized quanh I/O (ghim carrier thread khi chạy virtual thread); đang có luồng dọn thì bỏ qua
+    private void enforceSizeLimit() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            List<StagedFile> files = listFiles(false);
+            long total = files.stream().mapToLong(StagedFile::size).sum();
+            for (StagedFile staged : files) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                deleteQuietly(staged.path());
+                total -= staged.size();
+                log.info("🧹 Evicted staged audio {} to stay under {} bytes", staged.path().getFileName(), maxBytes);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Cũ nhất trước; includePartial để dọn cả file .part bị bỏ dở khi tiến trình dừng giữa chừng
+    private List<StagedFile> listFiles(boolean includePartial) {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.endsWith(STAGED_SUFFIX) || (includePartial && name.endsWith(PARTIAL_SUFFIX));
+                    })
+                    .map(this::describe)
+                    .flatMap(Optional::stream)
+                    .sorted(Comparator.comparingLong(StagedFile::lastModified))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to list staging directory {}: {}", directory, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private Optional<StagedFile> describe(Path path) {
+        try {
+            return Optional.of(new StagedFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+        } catch (IOException e) {
+            // File vừa bị xoá bởi luồng khác
+            return Optional.empty();
+        }
+    }
+
+    private Path pathOf(String sha256) {
+        return directory.resolve(sha256 + STAGED_SUFFIX);
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Chỉ ảnh hưởng thứ tự evict
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to delete staged file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record StagedFile(Path path, long size, long lastModified) {
+    }
+}
@@ -9,7 +9,9 @@ import com.spring.repository.RefreshTokenRepository;
 import com.spring.repository.NotificationTokenRepository;
 import com.spring.security.JwtUtil;
 import com.spring.service.AuthService;
+import com.spring.service.TokenDenylist;
 import com.spring.service.UserService;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -35,6 +37,7 @@ public class AuthServiceImpl implements AuthService {
     private final JwtUtil jwtUtil;
     private final RefreshTokenRepository refreshTokenRepository;
     private final NotificationTokenRepository notificationTokenRepository;
+    private final TokenDenylist tokenDenylist;
 
     //TODO: Sign-in AND refresh
     @Override
@@ -117,12 +120,15 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public ApiResponse signOut(String accessToken) {
+        // Thu hồi luôn access token hiện tại, không chờ hết hạn
+        Claims claims = jwtUtil.parseClaims(accessToken);
+        tokenDenylist.revoke(claims.getId(), claims.getExpiration().toInstant());
+
         refreshTokenRepository
                 .saveAll(refreshTokenRepository
                         .findAllByUserAndStatus(
                                 (User) userService
-                                        .loadUserByUsername(jwtUtil
-                                                .extractUsername(accessToken)),
+                                        .loadUserByUsername(claims.getSubject()),
                                 CommonStatus.ACTIVE.getStatus())
                         .stream()
                         .map(r -> r.toBuilder()
@@ -0,0 +1,593 @@
+package com.spring.service.impl;
+
+import com.spring.constants.ApiResponseCode;
+import com.spring.constants.SearchContentType;
+import com.spring.dto.CatalogChangedEvent;
+import com.spring.dto.SearchDocument;
+import com.spring.dto.SearchHit;
+import com.spring.exceptions.BusinessException;
+import com.spring.repository.CatalogSearchSourceRepository;
+import com.spring.service.CatalogSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the searchable catalog. Terms live in a sorted map so prefix lookups are a
+ * sub-map scan; each term points to a sorted {@code int[]} of document slots. Documents are bounded by
+ * {@code search-index.max-documents}; once the bound is hit the index reports itself unavailable and
+ * callers fall back to the database until the next rebuild.
+ */
+@Service
+public class CatalogSearchIndexImpl implements CatalogSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(CatalogSearchIndexImpl.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_QUERY_TOKENS = 8;
+    private static final float EXACT_SCORE = 1.0f;
+    private static final float PREFIX_SCORE = 0.75f;
+    private static final float FUZZY_SCORE = 0.5f;
+
+    private final CatalogSearchSourceRepository catalogSearchSourceRepository;
+    private final boolean enabled;
+    private final int maxDocuments;
+    private final int maxTermsPerDocument;
+    private final int maxTermLength;
+    private final int maxPrefixExpansions;
+    private final int maxFuzzyCandidates;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Thay đổi xảy ra trong lúc rebuild, được áp dụng lại sau khi đổi sang index mới
+    private final Queue<DocKey> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+    private volatile boolean rebuilding;
+    private volatile boolean built;
+    private volatile Instant lastBuiltAt;
+    private volatile long lastBuildMillis;
+
+    private IndexData data = new IndexData();
+
+    public CatalogSearchIndexImpl(
+            CatalogSearchSourceRepository catalogSearchSourceRepository,
+            @Value("${search-index.enabled:true}") boolean enabled,
+            @Value("${search-index.max-documents:500000}") int maxDocuments,
+            @Value("${search-index.max-terms-per-document:48}") int maxTermsPerDocument,
+            @Value("${search-index.max-term-length:32}") int maxTermLength,
+            @Value("${search-index.max-prefix-expansions:200}") int maxPrefixExpansions,
+            @Value("${search-index.max-fuzzy-candidates:5000}") int maxFuzzyCandidates
+    ) {
+        this.catalogSearchSourceRepository = catalogSearchSourceRepository;
+        this.enabled = enabled;
+        this.maxDocuments = maxDocuments;
+        this.maxTermsPerDocument = maxTermsPerDocument;
+        this.maxTermLength = maxTermLength;
+        this.maxPrefixExpansions = maxPrefixExpansions;
+        this.maxFuzzyCandidates = maxFuzzyCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${search-index.rebuild-cron:0 30 4 * * *}")
+    public void rebuildOnSchedule() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("❌ Search index rebuild failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Async("cacheRefreshExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        refresh(event.getType(), event.getId());
+    }
+
+    @Override
+    public List<SearchHit> search(String query, SearchContentType type, Long genreId, int limit, int offset) {
+        List<String> tokens = tokenize(query).stream().distinct().limit(MAX_QUERY_TOKENS).toList();
+        if (tokens.isEmpty() || !built) {
+            return List.of();
+        }
+        String normalizedQuery = String.join(" ", tokens);
+
+        lock.readLock().lock();
+        try {
+            SlotScores scores = null;
+            for (String token : tokens) {
+                SlotScores matches = data.match(token);
+                // Mọi từ khoá đều phải khớp
+                scores = scores == null ? matches : scores.intersect(matches);
+                if (scores.size() == 0) {
+                    return List.of();
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(scores.size());
+            for (int i = 0; i < scores.capacity(); i++) {
+                int slot = scores.slotAt(i);
+                if (slot == SlotScores.EMPTY) {
+                    continue;
+                }
+                IndexedDoc doc = data.docs[slot];
+                if (type != null && doc.type() != type) {
+                    continue;
+                }
+                if (genreId != null && doc.type() == SearchContentType.SONG && !containsGenre(doc.genreIds(), genreId)) {
+                    continue;
+                }
+                float score = scores.scoreAt(i) + nameBonus(doc.normalizedName(), normalizedQuery);
+                hits.add(new SearchHit(doc.type(), doc.id(), doc.name(), score));
+            }
+            hits.sort(Comparator.comparingDouble((SearchHit hit) -> hit.getScore()).reversed()
+                    .thenComparing(SearchHit::getId, Comparator.reverseOrder()));
+
+            int from = Math.min(Math.max(offset, 0), hits.size());
+            int to = Math.min(from + Math.max(limit, 0), hits.size());
+            return new ArrayList<>(hits.subList(from, to));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isAvailable() {
+        if (!enabled || !built) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return !data.truncated;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void refresh(SearchContentType type, Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        if (rebuilding) {
+            changedDuringRebuild.add(new DocKey(type, id));
+        }
+        try {
+            Optional<SearchDocument> document = catalogSearchSourceRepository.findOne(type, id);
+            IndexedDoc indexed = document.map(this::toIndexedDoc).orElse(null);
+            lock.writeLock().lock();
+            try {
+                if (indexed != null) {
+                    data.upsert(indexed);
+                } else {
+                    data.remove(key(type, id));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to refresh search index for {} {}: {}", type, id, e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> rebuild() {
+        if (!rebuildLock.tryLock()) {
+            throw new BusinessException(ApiResponseCode.TOO_MANY_REQUESTS);
+        }
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+            long start = System.currentTimeMillis();
+
+            IndexData fresh = new IndexData();
+            for (SearchContentType type : SearchContentType.values()) {
+                catalogSearchSourceRepository.forEach(type, document -> fresh.upsert(toIndexedDoc(document)));
+            }
+
+            lock.writeLock().lock();
+            try {
+                data = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            rebuilding = false;
+
+            DocKey changed;
+            while ((changed = changedDuringRebuild.poll()) != null) {
+                refresh(changed.type(), changed.id());
+            }
+
+            built = true;
+            lastBuiltAt = Instant.now();
+            lastBuildMillis = System.currentTimeMillis() - start;
+            if (fresh.truncated) {
+                log.warn("Search index truncated at {} documents, searches fall back to the database", maxDocuments);
+            }
+            log.info("✅ Search index built: {} documents, {} terms in {} ms", fresh.size, fresh.terms.size(), lastBuildMillis);
+            return getStats();
+        } finally {
+            rebuilding = false;
+            rebuildLock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("available", enabled && built && !data.truncated);
+            stats.put("documents", data.size);
+            stats.put("terms", data.terms.size());
+            stats.put("postings", data.postingCount);
+            stats.put("estimatedBytes", data.estimateBytes());
+            stats.put("truncated", data.truncated);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("maxDocuments", maxDocuments);
+        stats.put("lastBuiltAt", lastBuiltAt != null ? lastBuiltAt.toString() : null);
+        stats.put("lastBuildMillis", lastBuildMillis);
+        return stats;
+    }
+
+    // Helper Method
+    private IndexedDoc toIndexedDoc(SearchDocument document) {
+        List<String> nameTokens = tokenize(document.getName());
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : nameTokens) {
+            addTerm(terms, token);
+        }
+        for (String token : tokenize(document.getKeywords())) {
+            addTerm(terms, token);
+        }
+        return new IndexedDoc(
+                document.getType(),
+                document.getId(),
+                document.getName(),
+                String.join(" ", nameTokens),
+                terms.toArray(new String[0]),
+                document.getGenreIds()
+        );
+    }
+
+    private void addTerm(Set<String> terms, String token) {
+        if (terms.size() < maxTermsPerDocument) {
+            terms.add(token.length() > maxTermLength ? token.substring(0, maxTermLength) : token);
+        }
+    }
+
+    // Chuẩn hoá: chữ thường, bỏ dấu tiếng Việt, tách theo ký tự không phải chữ/số
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(stripped)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static float nameBonus(String normalizedName, String normalizedQuery) {
+        if (normalizedName.equals(normalizedQuery)) {
+            return 2.0f;
+        }
+        if (normalizedName.startsWith(normalizedQuery)) {
+            return 1.0f;
+        }
+        return normalizedName.contains(normalizedQuery) ? 0.5f : 0.0f;
+    }
+
+    private static boolean containsGenre(long[] genreIds, long genreId) {
+        if (genreIds == null) {
+            return false;
+        }
+        for (long id : genreIds) {
+            if (id == genreId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Levenshtein distance, giving up as soon as it must exceed {@code maxEdits}.
+     *
+     * @return the distance, or {@code maxEdits + 1} when it is larger than {@code maxEdits}
+     */
+    static int boundedEditDistance(String a, String b, int maxEdits) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], maxEdits + 1);
+    }
+
+    private static long key(SearchContentType type, long id) {
+        return ((long) type.ordinal() << 56) | id;
+    }
+
+    private record DocKey(SearchContentType type, Long id) {
+    }
+
+    private record IndexedDoc(SearchContentType type, long id, String name, String normalizedName,
+                              String[] terms, long[] genreIds) {
+        long key() {
+            return CatalogSearchIndexImpl.key(type, id);
+        }
+    }
+
+    /**
+     * Sorted, growable array of document slots.
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+            }
+            System.arraycopy(slots, insertAt, slots, insertAt + 1, size - insertAt);
+            slots[insertAt] = slot;
+            size++;
+        }
+
+        void remove(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+            size--;
+        }
+
+        void addTo(SlotScores scores, float score) {
+            for (int i = 0; i < size; i++) {
+                scores.mergeMax(slots[i], score);
+            }
+        }
+    }
+
+    /**
+     * Open-addressing map from document slot to score without boxing. Slots are never negative,
+     * so {@link #EMPTY} marks a free cell.
+     */
+    private static final class SlotScores {
+        static final int EMPTY = -1;
+
+        private int[] slots;
+        private float[] scores;
+        private int size;
+
+        SlotScores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) << 1;
+            slots = new int[capacity];
+            scores = new float[capacity];
+            Arrays.fill(slots, EMPTY);
+        }
+
+        void mergeMax(int slot, float score) {
+            if ((size + 1) * 2 > slots.length) {
+                resize(slots.length * 2);
+            }
+            int index = indexOf(slot);
+            if (slots[index] == EMPTY) {
+                slots[index] = slot;
+                scores[index] = score;
+                size++;
+            } else if (score > scores[index]) {
+                scores[index] = score;
+            }
+        }
+
+        // Chỉ giữ slot có mặt ở cả hai, điểm được cộng dồn
+        SlotScores intersect(SlotScores other) {
+            SlotScores smaller = size <= other.size ? this : other;
+            SlotScores larger = smaller == this ? other : this;
+            SlotScores result = new SlotScores(smaller.size);
+            for (int i = 0; i < smaller.slots.length; i++) {
+                int slot = smaller.slots[i];
+                if (slot == EMPTY) {
+                    continue;
+                }
+                int index = larger.indexOf(slot);
+                if (larger.slots[index] != EMPTY) {
+                    result.mergeMax(slot, smaller.scores[i] + larger.scores[index]);
+                }
+            }
+            return result;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return slots.length;
+        }
+
+        int slotAt(int index) {
+            return slots[index];
+        }
+
+        float scoreAt(int index) {
+            return scores[index];
+        }
+
+        private int indexOf(int slot) {
+            int mask = slots.length - 1;
+            int hash = slot * 0x9E3779B9;
+            int index = (hash ^ (hash >>> 16)) & mask;
+            while (slots[index] != EMPTY && slots[index] != slot) {
+                index = (index + 1) & mask;
+            }
+            return index;
+        }
+
+        private void resize(int capacity) {
+            int[] oldSlots = slots;
+            float[] oldScores = scores;
+            slots = new int[capacity];
+            scores = new float[capacity];
+            Arrays.fill(slots, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != EMPTY) {
+                    mergeMax(oldSlots[i], oldScores[i]);
+                }
+            }
+        }
+    }
+
+    private final class IndexData {
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+        private final Map<Long, Integer> slotByKey = new HashMap<>();
+        private IndexedDoc[] docs = new IndexedDoc[1024];
+        private int[] freeSlots = new int[64];
+        private int freeCount;
+        private int nextSlot;
+        private int size;
+        private long postingCount;
+        private boolean truncated;
+
+        void upsert(IndexedDoc doc) {
+            Integer existing = slotByKey.get(doc.key());
+            if (existing != null) {
+                removeSlot(existing);
+            } else if (size >= maxDocuments) {
+                truncated = true;
+                return;
+            }
+
+            int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+            if (slot >= docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            docs[slot] = doc;
+            slotByKey.put(doc.key(), slot);
+            size++;
+            for (String term : doc.terms()) {
+                terms.computeIfAbsent(term, t -> new Postings()).add(slot);
+                postingCount++;
+            }
+        }
+
+        void remove(long key) {
+            Integer slot = slotByKey.get(key);
+            if (slot != null) {
+                removeSlot(slot);
+            }
+        }
+
+        private void removeSlot(int slot) {
+            IndexedDoc doc = docs[slot];
+            for (String term : doc.terms()) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                postings.remove(slot);
+                postingCount--;
+                if (postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+            docs[slot] = null;
+            slotByKey.remove(doc.key());
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+            size--;
+        }
+
+        SlotScores match(String token) {
+            Postings exactPostings = terms.get(token);
+            SlotScores scores = new SlotScores(exactPostings != null ? exactPostings.size : 0);
+            if (exactPostings != null) {
+                exactPostings.addTo(scores, EXACT_SCORE);
+            }
+
+            int expansions = 0;
+            for (Postings postings : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                if (++expansions > maxPrefixExpansions) {
+                    break;
+                }
+                postings.addTo(scores, PREFIX_SCORE);
+            }
+
+            // Cho phép gõ sai 1 ký tự (từ 4 ký tự) hoặc 2 ký tự (từ 8 ký tự), giữ nguyên ký tự đầu
+            int maxEdits = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+            if (maxEdits > 0) {
+                String first = token.substring(0, 1);
+                int scanned = 0;
+                for (Map.Entry<String, Postings> entry : terms.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                    if (++scanned > maxFuzzyCandidates) {
+                        break;
+                    }
+                    String term = entry.getKey();
+                    if (Math.abs(term.length() - token.length()) > maxEdits || term.startsWith(token)) {
+                        continue;
+                    }
+                    int distance = boundedEditDistance(token, term, maxEdits);
+                    if (distance <= maxEdits) {
+                        entry.getValue().addTo(scores, FUZZY_SCORE / distance);
+                    }
+                }
+            }
+            return scores;
+        }
+
+        // Ước lượng thô: mảng postings + khoá term + tài liệu
+        long estimateBytes() {
+            long bytes = postingCount * Integer.BYTES + (long) docs.length * 8;
+            for (String term : terms.keySet()) {
+                bytes += 72 + term.length() * 2L;
+            }
+            return bytes + (long) size * 160;
+        }
+    }
+}
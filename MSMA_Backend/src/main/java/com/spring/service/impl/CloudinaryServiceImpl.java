@@ -5,9 +5,11 @@ import com.cloudinary.utils.ObjectUtils;
 import com.spring.dto.response.SongUploadResponse;
 import com.spring.service.CloudinaryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -17,6 +19,10 @@ import java.util.UUID;
 public class CloudinaryServiceImpl implements CloudinaryService {
     private final Cloudinary cloudinary;
 
+    // Cloudinary yêu cầu tối thiểu 5MB cho mỗi chunk (trừ chunk cuối)
+    @Value("${cloudinary.upload-chunk-size:6291456}")
+    private int uploadChunkSize;
+
     private String formatDuration(Double seconds) {
         if (seconds == null) return "00:00";
         int totalSeconds = (int) Math.round(seconds);
@@ -41,13 +47,18 @@ public class CloudinaryServiceImpl implements CloudinaryService {
             }
 
             String originalFilename = image.getOriginalFilename();
-            Map uploadResult = cloudinary.uploader().upload(
-                    image.getBytes(),
-                    ObjectUtils.asMap(
-                            "resource_type", "image",
-                            "public_id", "covers" + "/" + UUID.randomUUID() + "_" + originalFilename
-                    )
-            );
+            // upload() của cloudinary-http44 không nhận InputStream; uploadLarge() đọc dần từ file tạm theo từng chunk
+            Map<?, ?> uploadResult;
+            try (InputStream imageStream = image.getInputStream()) {
+                uploadResult = cloudinary.uploader().uploadLarge(
+                        imageStream,
+                        ObjectUtils.asMap(
+                                "resource_type", "image",
+                                "public_id", "covers" + "/" + UUID.randomUUID() + "_" + originalFilename,
+                                "chunk_size", uploadChunkSize
+                        )
+                );
+            }
             return (String) uploadResult.get("secure_url");
         } catch (Exception e) {
             throw new RuntimeException("Lỗi khi upload ảnh: " + e.getMessage(), e);
@@ -67,14 +78,18 @@ public class CloudinaryServiceImpl implements CloudinaryService {
                 throw new IllegalArgumentException("File phải có định dạng .mp3!");
             }
 
-            // Upload audio to Cloudinary
-            Map<?, ?> audioUploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
-                    ObjectUtils.asMap(
-                            "resource_type", "video",
-                            "public_id", "songs/" + UUID.randomUUID() + "_" + originalFilename
-                    )
-            );
+            // Upload audio to Cloudinary theo từng chunk: heap chỉ giữ một buffer chunk_size cho mỗi lượt upload
+            Map<?, ?> audioUploadResult;
+            try (InputStream audioStream = file.getInputStream()) {
+                audioUploadResult = cloudinary.uploader().uploadLarge(
+                        audioStream,
+                        ObjectUtils.asMap(
+                                "resource_type", "video",
+                                "public_id", "songs/" + UUID.randomUUID() + "_" + originalFilename,
+                                "chunk_size", uploadChunkSize
+                        )
+                );
+            }
 
             String audioUrl = (String) audioUploadResult.get("secure_url");
             Double durationSeconds = (Double) audioUploadResult.get("duration");
@@ -7,6 +7,7 @@ import com.spring.service.EmailService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -14,6 +15,8 @@ import org.springframework.stereotype.Service;
 public class EmailServiceImpl implements EmailService {
     private final JavaMailSender javaMailSender;
 
+    // Mail thông báo gửi trên emailExecutor, không giữ thread của request
+    @Async("emailExecutor")
     @Override
     public void sendSimpleMailMessage(String toEmail, String subject, String body) {
         String fromEmail = EnvConfig.get("EMAIL_USERNAME");
@@ -26,6 +29,7 @@ public class EmailServiceImpl implements EmailService {
         javaMailSender.send(message);
     }
 
+    // OTP và reset password gửi đồng bộ: nếu SMTP lỗi, request phải báo lỗi thay vì trả về thành công
     @Override
     public void sendEmailVerificationOtp(Otp otp) {
         SimpleMailMessage message = new SimpleMailMessage();
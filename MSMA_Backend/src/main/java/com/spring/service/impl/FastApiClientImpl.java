@@ -0,0 +1,197 @@
+package com.spring.service.impl;
+
+import com.spring.constants.ApiResponseCode;
+import com.spring.constants.FastApiEndpoint;
+import com.spring.exceptions.BusinessException;
+import com.spring.service.FastApiClient;
+import com.spring.utils.CircuitBreaker;
+import com.spring.utils.Retries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Resilient client for the FastAPI prediction container. All endpoints share one pooled httpclient5 connection
+ * manager; each endpoint gets its own read timeout because lyric checks answer in milliseconds while Whisper
+ * transcription can take minutes. Every endpoint is a non-idempotent POST, so only failures where the request
+ * certainly did not reach the service are retried: connection refused, connect timeout, unknown host and 503.
+ * A dropped connection after the request was sent (NoHttpResponseException, 502) may mean the work already ran,
+ * so it is reported instead of retried; stale pooled connections are avoided by validate-after-inactivity.
+ */
+@Service
+public class FastApiClientImpl implements FastApiClient {
+    private static final Logger log = LoggerFactory.getLogger(FastApiClientImpl.class);
+
+    private final String baseUrl;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<FastApiEndpoint, RestTemplate> restTemplates = new EnumMap<>(FastApiEndpoint.class);
+    private final MeterRegistry meterRegistry;
+
+    public FastApiClientImpl(
+            CloseableHttpClient fastApiHttpClient,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${fastapi.base-url:http://fastapi-container:8000}") String baseUrl,
+            @Value("${fastapi.connection-request-timeout-ms:5000}") long connectionRequestTimeoutMs,
+            @Value("${fastapi.retry.max-attempts:3}") int maxAttempts,
+            @Value("${fastapi.retry.base-delay-ms:250}") long baseDelayMs,
+            @Value("${fastapi.retry.max-delay-ms:2000}") long maxDelayMs,
+            @Value("${fastapi.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${fastapi.circuit.open-ms:30000}") long openMs
+    ) {
+        this.baseUrl = baseUrl;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs, System::currentTimeMillis);
+        this.meterRegistry = meterRegistry;
+
+        // Mỗi endpoint một RestTemplate (read timeout riêng) nhưng cùng chung pool kết nối
+        for (FastApiEndpoint endpoint : FastApiEndpoint.values()) {
+            long readTimeoutMs = environment.getProperty(
+                    "fastapi.read-timeout-ms." + endpoint.getKey(), Long.class, endpoint.getDefaultReadTimeoutMs());
+            HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(fastApiHttpClient);
+            requestFactory.setConnectionRequestTimeout((int) connectionRequestTimeoutMs);
+            requestFactory.setReadTimeout((int) readTimeoutMs);
+            restTemplates.put(endpoint, new RestTemplate(requestFactory));
+        }
+
+        Gauge.builder("msma.fastapi.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("FastAPI circuit state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String post(FastApiEndpoint endpoint, MultiValueMap<String, ?> body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        HttpEntity<MultiValueMap<String, ?>> request = new HttpEntity<>(body, headers);
+        String url = baseUrl + endpoint.getPath();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "aborted";
+        try {
+            for (int attempt = 1; ; attempt++) {
+                if (!circuitBreaker.tryAcquire()) {
+                    outcome = "circuit_open";
+                    log.warn("⚠️ FastAPI circuit open, rejecting {}", endpoint.getKey());
+                    throw new BusinessException(ApiResponseCode.FASTAPI_UNAVAILABLE);
+                }
+                try {
+                    String response = restTemplates.get(endpoint).postForObject(url, request, String.class);
+                    circuitBreaker.onSuccess();
+                    if (response == null) {
+                        outcome = "empty_body";
+                        throw new BusinessException(ApiResponseCode.FASTAPI_ERROR);
+                    }
+                    outcome = "success";
+                    return response;
+                } catch (HttpStatusCodeException e) {
+                    if (e.getStatusCode().is4xxClientError()) {
+                        // Service vẫn sống, chỉ là request không hợp lệ
+                        circuitBreaker.onSuccess();
+                        outcome = "client_error";
+                        log.warn("⚠️ FastAPI {} rejected request: {} {}", endpoint.getKey(), e.getStatusCode(), e.getResponseBodyAsString());
+                        throw new BusinessException(ApiResponseCode.FASTAPI_REJECTED);
+                    }
+                    circuitBreaker.onFailure();
+                    if (!isRetryable(e) || attempt >= maxAttempts) {
+                        outcome = "server_error";
+                        log.error("❌ FastAPI {} failed with {} after {} attempt(s)", endpoint.getKey(), e.getStatusCode(), attempt);
+                        throw new BusinessException(ApiResponseCode.FASTAPI_ERROR);
+                    }
+                    backoff(endpoint, attempt, e);
+                } catch (RestClientException e) {
+                    if (hasCause(e, ConnectionRequestTimeoutException.class)) {
+                        // Hết kết nối trong pool là quá tải phía mình, không tính là lỗi của container
+                        circuitBreaker.release();
+                        outcome = "pool_exhausted";
+                        log.error("❌ FastAPI {} could not get a pooled connection in time", endpoint.getKey());
+                        throw new BusinessException(ApiResponseCode.FASTAPI_UNAVAILABLE);
+                    }
+                    circuitBreaker.onFailure();
+                    if (hasCause(e, SocketTimeoutException.class) && !hasCause(e, ConnectTimeoutException.class)) {
+                        outcome = "timeout";
+                        log.error("❌ FastAPI {} timed out waiting for the response", endpoint.getKey());
+                        throw new BusinessException(ApiResponseCode.FASTAPI_TIMEOUT);
+                    }
+                    if (!isRetryable(e) || attempt >= maxAttempts) {
+                        outcome = "io_error";
+                        log.error("❌ FastAPI {} unreachable after {} attempt(s): {}", endpoint.getKey(), attempt, e.getMessage());
+                        throw new BusinessException(ApiResponseCode.FASTAPI_UNAVAILABLE);
+                    }
+                    backoff(endpoint, attempt, e);
+                }
+            }
+        } finally {
+            sample.stop(Timer.builder("msma.fastapi.requests")
+                    .description("FastAPI calls including retries, by endpoint and outcome")
+                    .tag("endpoint", endpoint.getKey())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    // Helper Method
+    // Chỉ thử lại khi chắc chắn request chưa tới service (lỗi ở pha kết nối hoặc 503)
+    private static boolean isRetryable(RestClientException e) {
+        if (e instanceof HttpStatusCodeException statusException) {
+            return statusException.getStatusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+        return e instanceof ResourceAccessException
+                && (hasCause(e, ConnectException.class)
+                || hasCause(e, ConnectTimeoutException.class)
+                || hasCause(e, UnknownHostException.class));
+    }
+
+    private static boolean hasCause(Throwable throwable, Class<? extends Throwable> type) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Jitter để các worker không cùng lúc dội lại container vừa khởi động
+    private void backoff(FastApiEndpoint endpoint, int attempt, RestClientException cause) {
+        long delayMs = Retries.backoffMs(attempt, baseDelayMs, maxDelayMs);
+        Counter.builder("msma.fastapi.retries")
+                .description("FastAPI attempts retried after a transient failure")
+                .tag("endpoint", endpoint.getKey())
+                .register(meterRegistry)
+                .increment();
+        log.warn("⚠️ FastAPI {} attempt {} failed ({}), retrying in {} ms", endpoint.getKey(), attempt, cause.getMessage(), delayMs);
+        if (!Retries.sleep(delayMs)) {
+            throw new BusinessException(ApiResponseCode.FASTAPI_UNAVAILABLE);
+        }
+    }
+}
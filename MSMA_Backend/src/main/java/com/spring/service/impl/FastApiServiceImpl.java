@@ -1,24 +1,22 @@
 package com.spring.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.spring.constants.ApiResponseCode;
+import com.spring.constants.FastApiEndpoint;
 import com.spring.dto.response.FastApiResponse;
 import com.spring.entities.Genre;
 import com.spring.entities.GenreSong;
 import com.spring.entities.GenreSongId;
 import com.spring.entities.Song;
-import com.spring.exceptions.BusinessException;
 import com.spring.repository.GenreRepository;
 import com.spring.repository.GenreSongRepository;
+import com.spring.service.FastApiClient;
 import com.spring.service.FastApiService;
 import lombok.RequiredArgsConstructor;
-import org.jetbrains.annotations.NotNull;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.http.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -30,12 +28,12 @@ import java.util.stream.Collectors;
 public class FastApiServiceImpl implements FastApiService {
     private final GenreRepository genreRepository;
     private final GenreSongRepository genreSongRepository;
-    private static final String BASE_URL = "http://fastapi-container:8000";
+    private final FastApiClient fastApiClient;
+    private final ObjectMapper objectMapper;
 
     private FastApiResponse extractResponseFromJson(String responseBody) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(responseBody, FastApiResponse.class);
+            return objectMapper.readValue(responseBody, FastApiResponse.class);
         } catch (IOException e) {
             throw new RuntimeException("Lỗi khi phân tích JSON: " + e.getMessage(), e);
         }
@@ -51,168 +49,55 @@ public class FastApiServiceImpl implements FastApiService {
 
     @Override
     public ResponseEntity<String> checkLyricsSimilarity(String lyrics) {
-        String url = BASE_URL + "/check-similarity";
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("lyrics", lyrics);
 
-        try {
-            MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
-            form.add("lyrics", lyrics);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-            HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(form, headers);
-            RestTemplate restTemplate = new RestTemplate();
-
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            throw new BusinessException(ApiResponseCode.INTERNAL_SERVER_ERROR);
-        }
+        return ResponseEntity.ok(fastApiClient.post(FastApiEndpoint.LYRICS_SIMILARITY, form, MediaType.APPLICATION_FORM_URLENCODED));
     }
 
     @Override
     public ResponseEntity<String> checkAudioSimilarity(MultipartFile file) {
-        String url = BASE_URL + "/check-similarity";
+        // Stream file từ đĩa (chunked), không đọc toàn bộ vào heap
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("audio_file", file.getResource());
 
-        try {
-            ByteArrayResource fileAsResource = new ByteArrayResource(file.getBytes()) {
-                @NotNull
-                @Override
-                public String getFilename() {
-                    return file.getOriginalFilename();
-                }
-            };
-
-            // Prepare multipart form
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("audio_file", fileAsResource);
-
-            // Headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-            // Request
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            RestTemplate restTemplate = new RestTemplate();
-
-            // Call FastAPI
-            ResponseEntity<String> response = restTemplate.postForEntity(url, requestEntity, String.class);
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            throw new BusinessException(ApiResponseCode.INTERNAL_SERVER_ERROR);
-        }
+        return ResponseEntity.ok(fastApiClient.post(FastApiEndpoint.AUDIO_SIMILARITY, body, MediaType.MULTIPART_FORM_DATA));
     }
 
     @Override
     public ResponseEntity<String> transcribeLyricsFromAudio(MultipartFile file) {
-        String url = BASE_URL + "/transcribe-lyrics";
+        // Stream file từ đĩa (chunked), không đọc toàn bộ vào heap
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("audio_file", file.getResource());
 
-        try {
-            // Prepare file resource
-            ByteArrayResource fileAsResource = new ByteArrayResource(file.getBytes()) {
-                @NotNull
-                @Override
-                public String getFilename() {
-                    return file.getOriginalFilename();
-                }
-            };
-
-            // Prepare multipart form
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("audio_file", fileAsResource);
-
-            // Headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-            // Request
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            RestTemplate restTemplate = new RestTemplate();
-
-            // Call FastAPI
-            ResponseEntity<String> response = restTemplate.postForEntity(url, requestEntity, String.class);
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            throw new BusinessException(ApiResponseCode.INTERNAL_SERVER_ERROR);
-        }
+        return ResponseEntity.ok(fastApiClient.post(FastApiEndpoint.TRANSCRIBE_LYRICS, body, MediaType.MULTIPART_FORM_DATA));
     }
 
     @Override
     public ResponseEntity<String> checkSimilarityBetweenLyricsAndAudio(String lyrics, String lyrics_audio) {
-        String url = BASE_URL + "/check-similar-between-input-and-audio";
-        try {
-            // Prepare multipart body
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("lyrics", lyrics);
-            body.add("lyrics_audio", lyrics_audio);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("lyrics", lyrics);
+        body.add("lyrics_audio", lyrics_audio);
 
-            RestTemplate restTemplate = new RestTemplate();
-            ResponseEntity<String> response = restTemplate.postForEntity(url, requestEntity, String.class);
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            throw new BusinessException(ApiResponseCode.INTERNAL_SERVER_ERROR);
-        }
+        return ResponseEntity.ok(fastApiClient.post(FastApiEndpoint.LYRICS_AUDIO_MATCH, body, MediaType.MULTIPART_FORM_DATA));
     }
 
     @Override
     public ResponseEntity<String> lyricsPredictGenre(String lyrics) {
-        String url = BASE_URL + "/predict-genre";
-
-        try {
-            MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
-            form.add("lyrics", lyrics);
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("lyrics", lyrics);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-            HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(form, headers);
-            RestTemplate restTemplate = new RestTemplate();
-
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            throw new BusinessException(ApiResponseCode.INTERNAL_SERVER_ERROR);
-        }
+        return ResponseEntity.ok(fastApiClient.post(FastApiEndpoint.LYRICS_GENRE, form, MediaType.APPLICATION_FORM_URLENCODED));
     }
 
     @Override
     public ResponseEntity<String> audioPredictGenre(MultipartFile file, String requestId) {
-        String url = BASE_URL + "/predict-genre";
+        // Stream file từ đĩa (chunked), không đọc toàn bộ vào heap
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("audio_file", file.getResource());
+        body.add("request_id", requestId);
 
-        try {
-            // Prepare file resource
-            ByteArrayResource fileAsResource = new ByteArrayResource(file.getBytes()) {
-                @NotNull
-                @Override
-                public String getFilename() {
-                    return file.getOriginalFilename();
-                }
-            };
-
-            // Prepare multipart form
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            body.add("audio_file", fileAsResource);
-            body.add("request_id", requestId);
-
-            // Headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-            // Request
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            RestTemplate restTemplate = new RestTemplate();
-
-            // Call FastAPI
-            ResponseEntity<String> response = restTemplate.postForEntity(url, requestEntity, String.class);
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            throw new BusinessException(ApiResponseCode.INTERNAL_SERVER_ERROR);
-        }
+        return ResponseEntity.ok(fastApiClient.post(FastApiEndpoint.AUDIO_GENRE, body, MediaType.MULTIPART_FORM_DATA));
     }
 
     @Override
@@ -240,6 +125,11 @@ public class FastApiServiceImpl implements FastApiService {
             genreByAudio = result != null ? result.getGenre() : null;
         }
 
+        saveFinalGenre(song, genreByLyrics, genreByAudio);
+    }
+
+    @Override
+    public void saveFinalGenre(Song song, String genreByLyrics, String genreByAudio) {
         // Normalize
         String finalGenre = chooseFinalGenre(genreByLyrics, genreByAudio);
         if (finalGenre != null) {
@@ -0,0 +1,287 @@
+package com.spring.service.impl;
+
+import com.spring.repository.SongDailyListenRepository;
+import com.spring.repository.UserDailyListenRepository;
+import com.spring.service.HistoryListenPartitionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Service
+public class HistoryListenPartitionServiceImpl implements HistoryListenPartitionService {
+    private static final Logger log = LoggerFactory.getLogger(HistoryListenPartitionServiceImpl.class);
+
+    private static final String TABLE = "history_listens";
+    private static final String DEFAULT_PARTITION = "history_listens_default";
+    private static final String MIGRATION_TABLE = "history_listens_new";
+    private static final String LEGACY_TABLE = "history_listens_legacy";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^history_listens_p(\\d{4})(\\d{2})$");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SongDailyListenRepository songDailyListenRepository;
+    private final UserDailyListenRepository userDailyListenRepository;
+    private final int retentionMonths;
+    private final int partitionsAhead;
+    private final int migrationBatchSize;
+    private final AtomicBoolean migrating = new AtomicBoolean();
+
+    public HistoryListenPartitionServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            SongDailyListenRepository songDailyListenRepository,
+            UserDailyListenRepository userDailyListenRepository,
+            @Value("${history-listens.retention-months:12}") int retentionMonths,
+            @Value("${history-listens.partitions-ahead:3}") int partitionsAhead,
+            @Value("${history-listens.migration-batch-size:50000}") int migrationBatchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.songDailyListenRepository = songDailyListenRepository;
+        this.userDailyListenRepository = userDailyListenRepository;
+        this.retentionMonths = retentionMonths;
+        this.partitionsAhead = partitionsAhead;
+        this.migrationBatchSize = Math.max(1, migrationBatchSize);
+    }
+
+    @Override
+    public Map<String, Object> migrateToPartitionedTable() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (isPartitioned()) {
+            report.put("status", "ALREADY_PARTITIONED");
+            return report;
+        }
+        if (!migrating.compareAndSet(false, true)) {
+            report.put("status", "ALREADY_RUNNING");
+            return report;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Timestamp nullDateFallback = Timestamp.valueOf(LocalDateTime.now());
+            prepareTargetTable();
+
+            // Sao chép theo lô trong khi bảng cũ vẫn nhận ghi; ON CONFLICT cho phép chạy lại sau khi bị ngắt
+            long copiedUpTo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + MIGRATION_TABLE, Long.class);
+            long copied = 0;
+            int batches = 0;
+            long highWater;
+            do {
+                highWater = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + TABLE, Long.class);
+                while (copiedUpTo < highWater) {
+                    long from = copiedUpTo;
+                    long to = Math.min(highWater, from + migrationBatchSize);
+                    copied += copyRows(from, to, nullDateFallback);
+                    copiedUpTo = to;
+                    batches++;
+                    if (batches % 20 == 0) {
+                        log.info("history_listens migration: {} rows copied, up to id {}", copied, copiedUpTo);
+                    }
+                }
+                // Lặp lại cho tới khi phần đuôi còn lại đủ nhỏ để chép trong lúc giữ khoá
+            } while (jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + TABLE, Long.class) - highWater > migrationBatchSize);
+
+            long lastCopied = copiedUpTo;
+            Long tail = transactionTemplate.execute(status -> swapTables(lastCopied, nullDateFallback));
+            if (tail == null) {
+                report.put("status", "ALREADY_PARTITIONED");
+                return report;
+            }
+
+            report.put("status", "MIGRATED");
+            report.put("rowsCopied", copied + tail);
+            report.put("tailRowsCopiedUnderLock", tail);
+            report.put("batches", batches);
+            report.put("legacyTable", LEGACY_TABLE);
+            report.put("elapsedMs", System.currentTimeMillis() - start);
+            log.info("✅ Converted history_listens to monthly partitions: {}. Drop {} once verified", report, LEGACY_TABLE);
+            return report;
+        } finally {
+            migrating.set(false);
+        }
+    }
+
+    @Override
+    public void ensureUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= partitionsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            transactionTemplate.executeWithoutResult(status -> createPartition(TABLE, month));
+        }
+    }
+
+    @Override
+    public void rollup(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            int songRows = songDailyListenRepository.rollup(from.atStartOfDay(), to.atStartOfDay());
+            int userRows = userDailyListenRepository.rollup(from.atStartOfDay(), to.atStartOfDay());
+            log.info("Rolled up history_listens for [{}, {}): {} song-days, {} user-days", from, to, songRows, userRows);
+        });
+    }
+
+    @Override
+    public int dropExpiredPartitions() {
+        YearMonth cutoff = YearMonth.from(getRetentionStart());
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass('history_listens')
+                """, String.class);
+
+        int dropped = 0;
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+
+            // Tổng hợp lần cuối trước khi xóa dữ liệu gốc
+            rollup(month.atDay(1), month.plusMonths(1).atDay(1));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition));
+            log.info("Dropped expired partition {}", partition);
+            dropped++;
+        }
+
+        LocalDateTime retentionStart = cutoff.atDay(1).atStartOfDay();
+        LocalDateTime oldestStray = jdbcTemplate.queryForObject(
+                "SELECT MIN(date) FROM " + DEFAULT_PARTITION + " WHERE date < ?", LocalDateTime.class, Timestamp.valueOf(retentionStart));
+        if (oldestStray != null) {
+            rollup(oldestStray.toLocalDate(), retentionStart.toLocalDate());
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "DELETE FROM " + DEFAULT_PARTITION + " WHERE date < ?", Timestamp.valueOf(retentionStart)));
+        }
+        return dropped;
+    }
+
+    @Override
+    public LocalDateTime getRetentionStart() {
+        return YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+    }
+
+    @Override
+    public boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('history_listens'))",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    // Helper Method
+    // Tạo bảng phân vùng đích (history_listens_new) nếu chưa có; lần chạy trước bị ngắt thì dùng lại
+    private void prepareTargetTable() {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, MIGRATION_TABLE);
+        if (Boolean.TRUE.equals(exists)) {
+            log.warn("⚠️ Resuming history_listens migration into existing {}", MIGRATION_TABLE);
+            return;
+        }
+
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(date) FROM " + TABLE, LocalDateTime.class);
+        transactionTemplate.executeWithoutResult(status -> {
+            // Khóa chính phải chứa cột phân vùng (date)
+            jdbcTemplate.execute("""
+                    CREATE TABLE history_listens_new (
+                        id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                        user_id BIGINT REFERENCES users (id),
+                        song_id BIGINT REFERENCES songs (id),
+                        date TIMESTAMP(6) NOT NULL,
+                        PRIMARY KEY (id, date)
+                    ) PARTITION BY RANGE (date)
+                    """);
+            jdbcTemplate.execute("CREATE INDEX idx_history_listens_new_user_date ON " + MIGRATION_TABLE + " (user_id, date DESC)");
+            jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + MIGRATION_TABLE + " DEFAULT");
+            YearMonth first = oldest != null ? YearMonth.from(oldest) : YearMonth.now();
+            for (YearMonth month = first; !month.isAfter(YearMonth.now().plusMonths(partitionsAhead)); month = month.plusMonths(1)) {
+                createPartition(MIGRATION_TABLE, month);
+            }
+        });
+    }
+
+    private int copyRows(long afterId, long upToId, Timestamp nullDateFallback) {
+        return jdbcTemplate.update("""
+                INSERT INTO history_listens_new (id, user_id, song_id, date)
+                SELECT id, user_id, song_id, COALESCE(date, ?)
+                FROM history_listens
+                WHERE id > ? AND id <= ?
+                ON CONFLICT DO NOTHING
+                """, nullDateFallback, afterId, upToId);
+    }
+
+    /**
+     * Runs in one short transaction: locks the old table, copies the rows written since the last batch and swaps
+     * the names. Returns null when another node finished the migration while this one waited for the lock.
+     */
+    private Long swapTables(long copiedUpTo, Timestamp nullDateFallback) {
+        jdbcTemplate.execute("LOCK TABLE history_listens IN ACCESS EXCLUSIVE MODE");
+        if (isPartitioned()) {
+            return null;
+        }
+
+        // Giao dịch ghi trễ có thể commit id nhỏ hơn mốc đã chép: quét lại một lô phía trước mốc
+        long tail = copyRows(Math.max(0, copiedUpTo - migrationBatchSize), Long.MAX_VALUE, nullDateFallback);
+
+        jdbcTemplate.execute("ALTER TABLE history_listens RENAME TO " + LEGACY_TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " RENAME CONSTRAINT history_listens_pkey TO history_listens_legacy_pkey");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_history_listens_user_date RENAME TO idx_history_listens_legacy_user_date");
+        jdbcTemplate.execute("ALTER TABLE " + MIGRATION_TABLE + " RENAME TO history_listens");
+        jdbcTemplate.execute("ALTER TABLE history_listens RENAME CONSTRAINT history_listens_new_pkey TO history_listens_pkey");
+        jdbcTemplate.execute("ALTER INDEX idx_history_listens_new_user_date RENAME TO idx_history_listens_user_date");
+        jdbcTemplate.execute("""
+                SELECT setval(pg_get_serial_sequence('history_listens', 'id'), COALESCE(MAX(id), 0) + 1, false)
+                FROM history_listens
+                """);
+        return tail;
+    }
+
+    // Phải chạy trong transaction: có thể chuyển dữ liệu từ partition DEFAULT sang partition mới
+    private void createPartition(String table, YearMonth month) {
+        String name = TABLE + "_p" + month.format(PARTITION_SUFFIX);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        String bounds = "FOR VALUES FROM ('" + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')";
+
+        Boolean hasStrays = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE date >= ? AND date < ?)",
+                Boolean.class, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        if (!Boolean.TRUE.equals(hasStrays)) {
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + table + " " + bounds);
+        } else {
+            // Không thể tạo partition khi DEFAULT đang chứa dòng thuộc khoảng đó: chuyển dữ liệu rồi attach
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + table + " INCLUDING DEFAULTS)");
+            jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE date >= ? AND date < ?",
+                    Timestamp.valueOf(from), Timestamp.valueOf(to));
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE date >= ? AND date < ?",
+                    Timestamp.valueOf(from), Timestamp.valueOf(to));
+            jdbcTemplate.execute("ALTER TABLE " + table + " ATTACH PARTITION " + name + " " + bounds);
+        }
+        log.info("Created partition {} {}", name, bounds);
+    }
+}
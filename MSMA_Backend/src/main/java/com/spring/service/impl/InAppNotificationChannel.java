@@ -0,0 +1,32 @@
+package com.spring.service.impl;
+
+import com.spring.constants.TargetNotifications;
+import com.spring.repository.NotificationFanoutRepository;
+import com.spring.service.NotificationChannel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Stored notifications shown in the app, bulk-inserted for each chunk of followers.
+ */
+@Service
+@Order(1)
+@RequiredArgsConstructor
+public class InAppNotificationChannel implements NotificationChannel {
+    private final NotificationFanoutRepository notificationFanoutRepository;
+
+    @Override
+    public String getName() {
+        return "inApp";
+    }
+
+    @Override
+    public int deliver(List<Long> userIds, String title, String content) {
+        notificationFanoutRepository.insertNotifications(userIds, title, content, TargetNotifications.USER_ONLY, Instant.now());
+        return userIds.size();
+    }
+}
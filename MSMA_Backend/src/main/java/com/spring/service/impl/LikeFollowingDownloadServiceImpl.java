@@ -2,6 +2,8 @@ package com.spring.service.impl;
 
 import com.spring.constants.ApiResponseCode;
 import com.spring.constants.SongStatus;
+import com.spring.constants.UserType;
+import com.spring.dto.SongStats;
 import com.spring.dto.response.ApiResponse;
 import com.spring.dto.response.ArtistPresentation;
 import com.spring.dto.response.SongResponse;
@@ -10,6 +12,9 @@ import com.spring.exceptions.BusinessException;
 import com.spring.repository.*;
 import com.spring.security.JwtHelper;
 import com.spring.service.LikeFollowingDownloadService;
+import com.spring.service.SongStatisticsService;
+import com.spring.service.SongStatsLoader;
+import com.spring.service.TrendingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +25,7 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -36,8 +42,18 @@ public class LikeFollowingDownloadServiceImpl implements LikeFollowingDownloadSe
     private final UserSongCountRepository userSongCountRepository;
     private final JwtHelper jwtHelper;
     private final UserSongDownloadRepository userSongDownloadRepository;
+    private final SongStatsLoader songStatsLoader;
+    private final SongStatisticsService songStatisticsService;
+    private final TrendingService trendingService;
 
-    private SongResponse convertToSongResponse(Song song) {
+    private List<SongResponse> convertToSongResponses(List<Song> songs) {
+        Map<Long, SongStats> statsBySongId = songStatsLoader.loadStats(songs.stream().map(Song::getId).toList());
+        return songs.stream()
+                .map(song -> convertToSongResponse(song, statsBySongId.getOrDefault(song.getId(), SongStats.EMPTY)))
+                .toList();
+    }
+
+    private SongResponse convertToSongResponse(Song song, SongStats stats) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy")
                 .withZone(ZoneId.of("Asia/Ho_Chi_Minh"));
 
@@ -71,10 +87,10 @@ public class LikeFollowingDownloadServiceImpl implements LikeFollowingDownloadSe
                 .songStatus(song.getSongStatus() != null ? song.getSongStatus().name() : null)
                 .genreNameList(genreNames)
                 .artistNameList(artistNameList)
-                .numberOfListeners(userSongCountRepository.countDistinctUsersBySongId(song.getId()))
-                .countListen(userSongCountRepository.getTotalCountListenBySongId(song.getId()))
-                .numberOfDownload(userSongDownloadRepository.countDistinctUsersBySongId(song.getId()))
-                .numberOfUserLike(userSongLikeRepository.countDistinctUsersBySongId(song.getId()))
+                .numberOfListeners(stats.getNumberOfListeners())
+                .countListen(stats.getCountListen())
+                .numberOfDownload(stats.getNumberOfDownload())
+                .numberOfUserLike(stats.getNumberOfUserLike())
                 .build();
     }
 
@@ -178,16 +194,13 @@ public class LikeFollowingDownloadServiceImpl implements LikeFollowingDownloadSe
         Song song = songRepository.findById(songId)
                 .orElseThrow(() -> new RuntimeException("Song not found"));
 
-        UserSongLikeId likeId = new UserSongLikeId(song, user);
-        if (userSongLikeRepository.existsById(likeId)) {
+        if (userSongLikeRepository.insertIfAbsent(userId, song.getId(), now) == 0) {
             throw new RuntimeException("Song already liked");
         }
-
-        UserSongLike userSongLike = UserSongLike.builder()
-                .userSongLikeId(likeId)
-                .likedAt(now)
-                .build();
-        userSongLikeRepository.save(userSongLike);
+        if (user.getUserType() == UserType.USER) {
+            songStatisticsService.incrementLikes(songId, 1L);
+            trendingService.recordLike(songId, 1L);
+        }
 
         return ApiResponse.ok("User đã like song thành công");
     }
@@ -200,11 +213,13 @@ public class LikeFollowingDownloadServiceImpl implements LikeFollowingDownloadSe
         Song song = songRepository.findById(songId)
                 .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
 
-        UserSongLikeId id = new UserSongLikeId(song, user);
-        if (!userSongLikeRepository.existsById(id)) {
+        if (userSongLikeRepository.deleteByUserIdAndSongId(userId, song.getId()) == 0) {
             throw new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND);
         }
-        userSongLikeRepository.deleteById(id);
+        if (user.getUserType() == UserType.USER) {
+            songStatisticsService.incrementLikes(songId, -1L);
+            trendingService.recordLike(songId, -1L);
+        }
 
         return ApiResponse.ok(String.format("Đã unlike Song %s!", song.getTitle()));
     }
@@ -226,9 +241,7 @@ public class LikeFollowingDownloadServiceImpl implements LikeFollowingDownloadSe
             throw new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND);
         }
 
-        return songs.stream()
-                .map(this::convertToSongResponse)
-                .toList();
+        return convertToSongResponses(songs);
     }
 
     @Override
@@ -242,16 +255,13 @@ public class LikeFollowingDownloadServiceImpl implements LikeFollowingDownloadSe
         Song song = songRepository.findById(songId)
                 .orElseThrow(() -> new RuntimeException("Song not found"));
 
-        UserSongDownloadId downloadId = new UserSongDownloadId(song, user);
-        if (userSongDownloadRepository.existsById(downloadId)) {
+        if (userSongDownloadRepository.insertIfAbsent(userId, song.getId(), now) == 0) {
             throw new RuntimeException("Song already downloaded");
         }
-
-        UserSongDownload userSongDownload = UserSongDownload.builder()
-                .userSongDownloadId(downloadId)
-                .downloadedAt(now)
-                .build();
-        userSongDownloadRepository.save(userSongDownload);
+        if (user.getUserType() == UserType.USER) {
+            songStatisticsService.incrementDownloads(songId, 1L);
+            trendingService.recordDownload(songId, 1L);
+        }
 
         String downloadUrl;
         if (song.getMp3Url() != null && !song.getMp3Url().isBlank()) {
@@ -271,11 +281,13 @@ public class LikeFollowingDownloadServiceImpl implements LikeFollowingDownloadSe
         Song song = songRepository.findById(songId)
                 .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
 
-        UserSongDownloadId downloadId = new UserSongDownloadId(song, user);
-        if (!userSongDownloadRepository.existsById(downloadId)) {
+        if (userSongDownloadRepository.deleteByUserIdAndSongId(userId, song.getId()) == 0) {
             throw new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND);
         }
-        userSongDownloadRepository.deleteById(downloadId);
+        if (user.getUserType() == UserType.USER) {
+            songStatisticsService.incrementDownloads(songId, -1L);
+            trendingService.recordDownload(songId, -1L);
+        }
 
         return ApiResponse.ok(String.format("Đã undownload Song %s!", song.getTitle()));
     }
@@ -0,0 +1,258 @@
+package com.spring.service.impl;
+
+import com.spring.constants.ApiResponseCode;
+import com.spring.dto.ListenEvent;
+import com.spring.exceptions.BusinessException;
+import com.spring.repository.ListenEventBatchRepository;
+import com.spring.service.ListenEventBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for listen events. Requests only enqueue into one of several bounded stripes;
+ * a single background thread drains the stripes when the batch size or flush interval is reached
+ * and hands the batch to {@link ListenEventBatchRepository}. A batch that keeps failing is split in halves
+ * until only the events that fail on their own are left, so one bad event does not cost the whole batch.
+ */
+@Service
+public class ListenEventBufferImpl implements ListenEventBuffer {
+    private static final Logger log = LoggerFactory.getLogger(ListenEventBufferImpl.class);
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private final ListenEventBatchRepository listenEventBatchRepository;
+    private final ArrayBlockingQueue<ListenEvent>[] stripes;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Semaphore flushSignal = new Semaphore(0);
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final long shutdownTimeoutMs;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter rejectedCounter;
+    private final Counter droppedCounter;
+
+    // Batch lỗi được giữ lại để thử lại ở lần flush sau. Chỉ thread giữ flushLock gán lại, và list đã gán
+    // không bị sửa nữa, nên pendingCount() đọc qua volatile mà không cần khoá
+    private volatile List<ListenEvent> retryBatch = List.of();
+    private int retryAttempts;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @SuppressWarnings("unchecked")
+    public ListenEventBufferImpl(
+            ListenEventBatchRepository listenEventBatchRepository,
+            MeterRegistry meterRegistry,
+            @Value("${listen-buffer.stripes:8}") int stripeCount,
+            @Value("${listen-buffer.capacity:50000}") int capacity,
+            @Value("${listen-buffer.batch-size:1000}") int batchSize,
+            @Value("${listen-buffer.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${listen-buffer.offer-timeout-ms:50}") long offerTimeoutMs,
+            @Value("${listen-buffer.shutdown-timeout-ms:10000}") long shutdownTimeoutMs
+    ) {
+        this.listenEventBatchRepository = listenEventBatchRepository;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        int stripeCapacity = Math.max(1, capacity / stripeCount);
+        this.stripes = new ArrayBlockingQueue[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ArrayBlockingQueue<>(stripeCapacity);
+        }
+
+        this.flushTimer = Timer.builder("msma.listen.buffer.flush")
+                .description("Time spent writing one batch of listen events")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("msma.listen.buffer.batch.size")
+                .description("Listen events per flushed batch")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("msma.listen.buffer.rejected")
+                .description("Listen events rejected because the buffer was full")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("msma.listen.buffer.dropped")
+                .description("Listen events dropped after repeated flush failures")
+                .register(meterRegistry);
+        Gauge.builder("msma.listen.buffer.pending", pending, AtomicInteger::get)
+                .description("Listen events waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::runFlusher, "listen-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Listen buffer started with {} stripes, batchSize={}, flushInterval={} ms",
+                stripes.length, batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        flushSignal.release();
+        try {
+            flusher.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Ghi nốt các sự kiện còn lại trước khi đóng datasource
+        int flushed = flush();
+        log.info("Listen buffer drained on shutdown, {} events flushed, {} left", flushed, pending.get());
+    }
+
+    @Override
+    public void record(ListenEvent event) {
+        int index = Math.floorMod(31 * event.getUserId().hashCode() + event.getSongId().hashCode(), stripes.length);
+        boolean accepted;
+        try {
+            accepted = stripes[index].offer(event, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            rejectedCounter.increment();
+            flushSignal.release();
+            throw new BusinessException(ApiResponseCode.TOO_MANY_REQUESTS);
+        }
+        if (pending.incrementAndGet() >= batchSize) {
+            flushSignal.release();
+        }
+    }
+
+    @Override
+    public int flush() {
+        int total = 0;
+        flushLock.lock();
+        try {
+            int flushed;
+            do {
+                flushed = flushOnce();
+                total += flushed;
+            } while (flushed > 0 && pending.get() >= batchSize);
+        } finally {
+            flushLock.unlock();
+        }
+        return total;
+    }
+
+    @Override
+    public int pendingCount() {
+        return pending.get() + retryBatch.size();
+    }
+
+    private void runFlusher() {
+        while (running) {
+            try {
+                flushSignal.tryAcquire(flushIntervalMs, TimeUnit.MILLISECONDS);
+                flushSignal.drainPermits();
+                flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Listen buffer flush loop error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private int flushOnce() {
+        List<ListenEvent> batch = new ArrayList<>(retryBatch);
+        retryBatch = List.of();
+        for (ArrayBlockingQueue<ListenEvent> stripe : stripes) {
+            int drained = stripe.drainTo(batch, Math.max(0, batchSize - batch.size()));
+            pending.addAndGet(-drained);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        try {
+            int written = listenEventBatchRepository.writeBatch(batch);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+            retryAttempts = 0;
+            return written;
+        } catch (Exception e) {
+            if (e instanceof DataIntegrityViolationException) {
+                // Lỗi do dữ liệu: thử lại nguyên batch cũng vô ích, tách ngay để chỉ bỏ sự kiện lỗi
+                log.warn("Flush of {} listen events hit a data error, isolating the bad events: {}", batch.size(), e.getMessage());
+                retryAttempts = 0;
+                return writeHalves(batch, e);
+            }
+            retryAttempts++;
+            if (retryAttempts >= MAX_FLUSH_ATTEMPTS) {
+                retryAttempts = 0;
+                if (isResourceFailure(e)) {
+                    log.error("❌ Dropping {} listen events after {} failed flushes: {}",
+                            batch.size(), MAX_FLUSH_ATTEMPTS, e.getMessage(), e);
+                    droppedCounter.increment(batch.size());
+                    return 0;
+                }
+                log.warn("Flush of {} listen events failed {} times, retrying in smaller batches: {}",
+                        batch.size(), MAX_FLUSH_ATTEMPTS, e.getMessage());
+                return writeHalves(batch, e);
+            } else {
+                log.warn("Flush of {} listen events failed (attempt {}), will retry: {}",
+                        batch.size(), retryAttempts, e.getMessage());
+                retryBatch = batch;
+            }
+            return 0;
+        }
+    }
+
+    // Chia đôi batch cho tới khi chỉ còn các sự kiện tự gây lỗi; mất kết nối DB thì bỏ cả phần còn lại
+    private int writeHalves(List<ListenEvent> batch, Exception failure) {
+        if (batch.size() == 1 || isResourceFailure(failure)) {
+            log.error("❌ Dropping {} listen events (first: user={}, song={}): {}", batch.size(),
+                    batch.get(0).getUserId(), batch.get(0).getSongId(), failure.getMessage());
+            droppedCounter.increment(batch.size());
+            return 0;
+        }
+        int middle = batch.size() / 2;
+        return writeIsolating(batch.subList(0, middle)) + writeIsolating(batch.subList(middle, batch.size()));
+    }
+
+    private int writeIsolating(List<ListenEvent> batch) {
+        long start = System.nanoTime();
+        try {
+            int written = listenEventBatchRepository.writeBatch(batch);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+            return written;
+        } catch (Exception e) {
+            return writeHalves(batch, e);
+        }
+    }
+
+    private static boolean isResourceFailure(Exception e) {
+        return e instanceof DataAccessResourceFailureException || e instanceof TransientDataAccessResourceException;
+    }
+}
@@ -0,0 +1,149 @@
+package com.spring.service.impl;
+
+import com.spring.constants.ApiResponseCode;
+import com.spring.dto.response.Otp;
+import com.spring.exceptions.BusinessException;
+import com.spring.service.OtpStore;
+import com.spring.utils.TimerWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local OTP store. Sessions and per-email send windows live in {@link ConcurrentHashMap}s updated with atomic
+ * {@code compute} calls (no global lock); a {@link TimerWheel} removes them once their due date has passed,
+ * so memory is bounded by the send rate rather than growing forever. Use {@code otp.store=postgres} when running
+ * more than one instance.
+ */
+@Service
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class MemoryOtpStoreImpl implements OtpStore {
+    private static final String RATE_KEY_PREFIX = "rate:";
+    private static final String SESSION_KEY_PREFIX = "session:";
+
+    private final int maxAttempts;
+    private final int maxSendsPerWindow;
+    private final long rateWindowMs;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RateWindow> rateWindows = new ConcurrentHashMap<>();
+    private final TimerWheel<String> expirations;
+
+    public MemoryOtpStoreImpl(
+            @Value("${otp.max-attempts:5}") int maxAttempts,
+            @Value("${otp.rate-limit.max-sends:5}") int maxSendsPerWindow,
+            @Value("${otp.rate-limit.window-seconds:900}") long rateWindowSeconds,
+            @Value("${otp.memory.tick-ms:1000}") long tickMs
+    ) {
+        this.maxAttempts = maxAttempts;
+        this.maxSendsPerWindow = maxSendsPerWindow;
+        this.rateWindowMs = rateWindowSeconds * 1000L;
+        // Một vòng bánh xe phủ được cửa sổ rate limit, nên đa số khoá hết hạn ngay ở lần quét đầu tiên
+        int wheelSize = (int) Math.max(64, Math.min(4096, rateWindowMs / tickMs + 1));
+        this.expirations = new TimerWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${otp.memory.tick-ms:1000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        expirations.advance(now, key -> {
+            if (key.startsWith(SESSION_KEY_PREFIX)) {
+                sessions.computeIfPresent(key.substring(SESSION_KEY_PREFIX.length()),
+                        (id, session) -> session.isLive(now) ? session : null);
+            } else {
+                rateWindows.computeIfPresent(key.substring(RATE_KEY_PREFIX.length()),
+                        (email, window) -> window.isOpen(now, rateWindowMs) ? window : null);
+            }
+        });
+    }
+
+    @Override
+    public Otp issue(String sessionId, Otp otp) {
+        long now = System.currentTimeMillis();
+        String email = otp.getEmail();
+
+        RateWindow window = rateWindows.compute(email, (key, current) -> current != null && current.isOpen(now, rateWindowMs)
+                ? new RateWindow(current.startMs(), current.sends() + 1)
+                : new RateWindow(now, 1));
+        if (window.sends() == 1) {
+            expirations.schedule(RATE_KEY_PREFIX + email, window.startMs() + rateWindowMs);
+        }
+        if (window.sends() > maxSendsPerWindow) {
+            throw new BusinessException(ApiResponseCode.TOO_MANY_REQUESTS);
+        }
+
+        Session fresh = new Session(otp, otp.getDueDate().toInstant().toEpochMilli(), 0, false);
+        Session session = sessions.compute(sessionId, (key, current) ->
+                current != null && current.isLive(now) && current.otp().getEmail().equals(email) ? current : fresh);
+        if (session == fresh) {
+            expirations.schedule(SESSION_KEY_PREFIX + sessionId, fresh.dueMs());
+        }
+        return session.otp();
+    }
+
+    @Override
+    public boolean verify(String sessionId, String code) {
+        long now = System.currentTimeMillis();
+        // [0]: mã đúng, [1]: phiên bị huỷ vì hết lượt thử
+        boolean[] outcome = new boolean[2];
+        Session session = sessions.computeIfPresent(sessionId, (key, current) -> {
+            if (!current.isLive(now)) {
+                return null;
+            }
+            int attempts = current.attempts() + 1;
+            if (attempts > maxAttempts) {
+                outcome[1] = true;
+                return null;
+            }
+            outcome[0] = codeEquals(current.otp().getOtp(), code);
+            return new Session(current.otp(), current.dueMs(), attempts, current.verified() || outcome[0]);
+        });
+        if (session == null) {
+            throw new BusinessException(outcome[1] ? ApiResponseCode.TOO_MANY_REQUESTS : ApiResponseCode.SESSION_ID_NOT_FOUND);
+        }
+        return outcome[0];
+    }
+
+    @Override
+    public Optional<Otp> consumeVerified(String sessionId) {
+        long now = System.currentTimeMillis();
+        Session[] consumed = new Session[1];
+        sessions.computeIfPresent(sessionId, (key, current) -> {
+            if (!current.isLive(now)) {
+                return null;
+            }
+            if (!current.verified()) {
+                return current;
+            }
+            consumed[0] = current;
+            return null;
+        });
+        return Optional.ofNullable(consumed[0]).map(Session::otp);
+    }
+
+    // Helper Method
+    private static boolean codeEquals(String expected, String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Session(Otp otp, long dueMs, int attempts, boolean verified) {
+        boolean isLive(long now) {
+            return dueMs > now;
+        }
+    }
+
+    private record RateWindow(long startMs, int sends) {
+        boolean isOpen(long now, long windowMs) {
+            return now - startMs < windowMs;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.spring.service.impl;
+
+import com.spring.repository.NotificationFanoutRepository;
+import com.spring.repository.NotificationOutboxRepository;
+import com.spring.service.NotificationChannel;
+import com.spring.service.NotificationFanout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Follower fan-out: streams follower ids by keyset in chunks and hands each chunk to every
+ * {@link NotificationChannel} (in-app rows, outbox pushes, ...), then records the chunk's last follower id on the
+ * FANOUT outbox row, all in one transaction. A chunk only commits while the row is still leased by the caller.
+ * The engine knows nothing about how a channel delivers; pushes are only queued here and sent by the outbox
+ * dispatcher.
+ */
+@Service
+public class NotificationFanoutImpl implements NotificationFanout {
+    private static final Logger log = LoggerFactory.getLogger(NotificationFanoutImpl.class);
+    private static final int MAX_TRACKED_FANOUTS = 50;
+
+    private final NotificationFanoutRepository notificationFanoutRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final List<NotificationChannel> channels;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long leaseMs;
+
+    private final Deque<Progress> recent = new ArrayDeque<>();
+
+    public NotificationFanoutImpl(
+            NotificationFanoutRepository notificationFanoutRepository,
+            NotificationOutboxRepository notificationOutboxRepository,
+            List<NotificationChannel> channels,
+            TransactionTemplate transactionTemplate,
+            @Value("${notification-fanout.chunk-size:1000}") int chunkSize,
+            @Value("${notification-outbox.lease-ms:60000}") long leaseMs
+    ) {
+        this.notificationFanoutRepository = notificationFanoutRepository;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.channels = List.copyOf(channels);
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.leaseMs = leaseMs;
+    }
+
+    @Override
+    public void notifyFollowers(Long outboxId, String workerId, Long artistId, String title, String content, long afterUserId) {
+        Progress progress = track(new Progress(outboxId, artistId, title, afterUserId, channels));
+        try {
+            long cursor = afterUserId;
+            while (true) {
+                long after = cursor;
+                int[] delivered = new int[channels.size()];
+                // Mỗi chunk là một transaction: dữ liệu của mọi kênh và cursor cùng commit hoặc cùng rollback
+                List<Long> userIds = transactionTemplate.execute(status -> {
+                    List<Long> chunk = notificationFanoutRepository.findFollowerIds(artistId, after, chunkSize);
+                    if (chunk.isEmpty()) {
+                        return chunk;
+                    }
+                    for (int i = 0; i < channels.size(); i++) {
+                        delivered[i] = channels.get(i).deliver(chunk, title, content);
+                    }
+                    // Worker khác đã lấy lại dòng FANOUT (lease hết hạn): rollback chunk để không ghi trùng
+                    if (!notificationOutboxRepository.advanceCursor(outboxId, workerId, chunk.get(chunk.size() - 1), leaseMs)) {
+                        throw new IllegalStateException("Fan-out " + outboxId + " is no longer leased by " + workerId);
+                    }
+                    return chunk;
+                });
+                if (userIds == null || userIds.isEmpty()) {
+                    break;
+                }
+                progress.chunkCommitted(userIds.size(), delivered);
+                cursor = userIds.get(userIds.size() - 1);
+                log.debug("Fan-out {}: {} followers done", progress.id, progress.followers.get());
+            }
+            progress.finish("COMPLETED");
+            log.info("✅ Fan-out {} for artist {} done: {} followers, delivered {}",
+                    progress.id, artistId, progress.followers.get(), progress.deliveredByChannel());
+        } catch (RuntimeException e) {
+            progress.finish("FAILED");
+            log.error("❌ Fan-out {} for artist {} stopped after {} followers: {}",
+                    progress.id, artistId, progress.followers.get(), e.getMessage());
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getProgress() {
+        synchronized (recent) {
+            return recent.stream().map(Progress::toMap).toList();
+        }
+    }
+
+    // Helper Method
+    private Progress track(Progress progress) {
+        synchronized (recent) {
+            recent.addFirst(progress);
+            while (recent.size() > MAX_TRACKED_FANOUTS) {
+                recent.removeLast();
+            }
+        }
+        return progress;
+    }
+
+    private static final class Progress {
+        private final String id = UUID.randomUUID().toString().substring(0, 8);
+        private final Long outboxId;
+        private final Long artistId;
+        private final String title;
+        private final long resumedAfterUserId;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong followers = new AtomicLong();
+        private final List<String> channelNames;
+        private final AtomicLongArray delivered;
+        private volatile String status = "RUNNING";
+        private volatile Instant finishedAt;
+
+        private Progress(Long outboxId, Long artistId, String title, long resumedAfterUserId, List<NotificationChannel> channels) {
+            this.outboxId = outboxId;
+            this.artistId = artistId;
+            this.title = title;
+            this.resumedAfterUserId = resumedAfterUserId;
+            this.channelNames = channels.stream().map(NotificationChannel::getName).toList();
+            this.delivered = new AtomicLongArray(channels.size());
+        }
+
+        // Chỉ cộng sau khi transaction của chunk đã commit
+        private void chunkCommitted(int followerCount, int[] deliveredByChannel) {
+            followers.addAndGet(followerCount);
+            for (int i = 0; i < deliveredByChannel.length; i++) {
+                delivered.addAndGet(i, deliveredByChannel[i]);
+            }
+        }
+
+        private Map<String, Long> deliveredByChannel() {
+            Map<String, Long> map = new LinkedHashMap<>();
+            for (int i = 0; i < channelNames.size(); i++) {
+                map.put(channelNames.get(i), delivered.get(i));
+            }
+            return map;
+        }
+
+        private void finish(String status) {
+            this.finishedAt = Instant.now();
+            this.status = status;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("outboxId", outboxId);
+            map.put("artistId", artistId);
+            map.put("title", title);
+            map.put("status", status);
+            map.put("resumedAfterUserId", resumedAfterUserId);
+            map.put("followersProcessed", followers.get());
+            map.put("delivered", deliveredByChannel());
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.spring.service.impl;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import com.spring.repository.NotificationOutboxRepository;
+import com.spring.repository.NotificationOutboxRepository.OutboxRow;
+import com.spring.service.NotificationFanout;
+import com.spring.service.NotificationOutbox;
+import com.spring.utils.Retries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional notification outbox. Services only insert outbox rows next to their own writes, so a publish
+ * returns as soon as it commits and a rolled-back change never notifies anyone. A single dispatcher thread per
+ * node drains the table with {@code SKIP LOCKED}:
+ * <ul>
+ *     <li>PUSH rows are sent with {@code sendEach} in batches of at most 500 (the FCM limit); transient failures
+ *     are retried with exponential backoff up to {@code notification-outbox.max-attempts}, unregistered tokens
+ *     are deleted and their rows dead-lettered;</li>
+ *     <li>each device gets at most {@code per-device-max} pushes per {@code per-device-window-ms}; rows over the
+ *     limit are put back for the next window without spending an attempt;</li>
+ *     <li>FANOUT rows are handed to {@link NotificationFanout} on the notification executor and resume from their
+ *     cursor when retried.</li>
+ * </ul>
+ * Rows are claimed under this node's worker id and every transition checks it. While a fan-out or a push batch is
+ * running, a heartbeat thread owned by the dispatcher renews its lease, so a long chunk or {@code sendEach} is not
+ * taken over by another dispatcher.
+ */
+@Service
+public class NotificationOutboxImpl implements NotificationOutbox {
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutboxImpl.class);
+    private static final int FCM_MAX_BATCH = 500;
+    // Token không còn hợp lệ (app bị gỡ, token thuộc project khác); INVALID_ARGUMENT có thể do nội dung message nên không xoá
+    private static final Set<MessagingErrorCode> INVALID_TOKEN_ERRORS = Set.of(
+            MessagingErrorCode.UNREGISTERED,
+            MessagingErrorCode.SENDER_ID_MISMATCH
+    );
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final NotificationFanout notificationFanout;
+    private final FirebaseMessaging firebaseMessaging;
+    private final Executor notificationExecutor;
+    private final String workerId;
+    private final int batchSize;
+    private final long leaseMs;
+    private final long pollIntervalMs;
+    private final long heartbeatIntervalMs;
+    private final int maxAttempts;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
+    private final int perDeviceMax;
+    private final long perDeviceWindowMs;
+    private final int maxConcurrentFanouts;
+    private final long shutdownTimeoutMs;
+    private final int retentionDays;
+
+    private final Timer deliveryLatency;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Counter invalidTokenCounter;
+    private final Counter rateLimitedCounter;
+    private final AtomicLong depth = new AtomicLong();
+
+    // Chỉ thread dispatcher đọc/ghi nên không cần đồng bộ: token -> [đầu cửa sổ (ms), số push trong cửa sổ]
+    private final Map<String, long[]> deviceWindows = new HashMap<>();
+    private long lastWindowEviction;
+    private final Set<Long> runningFanoutIds = ConcurrentHashMap.newKeySet();
+    // Các dòng PUSH của batch đang gửi, để heartbeat gia hạn lease trong lúc sendEach chạy
+    private volatile List<Long> sendingPushIds = List.of();
+    private final Semaphore wakeUp = new Semaphore(0);
+    private Thread dispatcher;
+    private ScheduledExecutorService heartbeatExecutor;
+    private volatile boolean running;
+
+    public NotificationOutboxImpl(
+            NotificationOutboxRepository notificationOutboxRepository,
+            NotificationFanout notificationFanout,
+            FirebaseMessaging firebaseMessaging,
+            @Qualifier("notificationExecutor") Executor notificationExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${notification-outbox.batch-size:500}") int batchSize,
+            @Value("${notification-outbox.lease-ms:60000}") long leaseMs,
+            @Value("${notification-outbox.poll-interval-ms:1000}") long pollIntervalMs,
+            @Value("${notification-outbox.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+            @Value("${notification-outbox.max-attempts:8}") int maxAttempts,
+            @Value("${notification-outbox.retry-base-delay-ms:5000}") long retryBaseDelayMs,
+            @Value("${notification-outbox.retry-max-delay-ms:3600000}") long retryMaxDelayMs,
+            @Value("${notification-outbox.per-device-max:10}") int perDeviceMax,
+            @Value("${notification-outbox.per-device-window-ms:60000}") long perDeviceWindowMs,
+            @Value("${notification-outbox.max-concurrent-fanouts:2}") int maxConcurrentFanouts,
+            @Value("${notification-outbox.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+            @Value("${notification-outbox.retention-days:3}") int retentionDays
+    ) {
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.notificationFanout = notificationFanout;
+        this.firebaseMessaging = firebaseMessaging;
+        this.notificationExecutor = notificationExecutor;
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.batchSize = Math.max(1, Math.min(FCM_MAX_BATCH, batchSize));
+        this.leaseMs = leaseMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.retryMaxDelayMs = retryMaxDelayMs;
+        this.perDeviceMax = Math.max(1, perDeviceMax);
+        this.perDeviceWindowMs = perDeviceWindowMs;
+        this.maxConcurrentFanouts = Math.max(1, maxConcurrentFanouts);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.retentionDays = retentionDays;
+
+        this.deliveryLatency = Timer.builder("msma.notification.delivery.latency")
+                .description("Time from a push being queued in the outbox to FCM accepting it")
+                .register(meterRegistry);
+        this.sentCounter = pushCounter(meterRegistry, "sent");
+        this.retriedCounter = pushCounter(meterRegistry, "retried");
+        this.deadCounter = pushCounter(meterRegistry, "dead");
+        this.invalidTokenCounter = pushCounter(meterRegistry, "invalid_token");
+        this.rateLimitedCounter = pushCounter(meterRegistry, "rate_limited");
+        Gauge.builder("msma.notification.outbox.depth", depth, AtomicLong::get)
+                .description("Outbox rows waiting to be delivered or expanded")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void createTable() {
+        notificationOutboxRepository.createTable();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "notification-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        dispatcher = new Thread(this::runDispatcher, "notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("✅ Notification dispatcher started: id={}, batch={}, per-device limit={}/{} ms",
+                workerId, batchSize, perDeviceMax, perDeviceWindowMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        wakeUp.release();
+        if (dispatcher != null) {
+            try {
+                dispatcher.join(shutdownTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdownNow();
+        }
+        // Dòng đang SENDING sẽ được lấy lại khi lease hết hạn
+    }
+
+    @Override
+    public void enqueuePush(Long userId, String title, String content) {
+        if (notificationOutboxRepository.enqueuePushes(List.of(userId), title, content) > 0) {
+            wakeAfterCommit();
+        }
+    }
+
+    @Override
+    public void enqueueFanout(Long artistId, String title, String content) {
+        notificationOutboxRepository.enqueueFanout(artistId, title, content);
+        wakeAfterCommit();
+    }
+
+    public void heartbeat() {
+        List<Long> ids = new ArrayList<>(runningFanoutIds);
+        ids.addAll(sendingPushIds);
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            int renewed = notificationOutboxRepository.heartbeat(ids, workerId, leaseMs);
+            if (renewed < ids.size()) {
+                log.warn("⚠️ Lost the lease on {} of {} notification outbox rows in progress", ids.size() - renewed, ids.size());
+            }
+        } catch (Exception e) {
+            log.error("❌ Notification outbox heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notification-outbox.depth-refresh-ms:15000}")
+    public void refreshDepth() {
+        try {
+            depth.set(notificationOutboxRepository.countPending());
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to read notification outbox depth: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${notification-outbox.purge-cron:0 45 3 * * *}")
+    public void purgeSent() {
+        int deleted = notificationOutboxRepository.deleteSentBefore(retentionDays);
+        if (deleted > 0) {
+            log.info("🧹 Purged {} delivered notification outbox rows", deleted);
+        }
+    }
+
+    // Helper Method
+    private void runDispatcher() {
+        while (running) {
+            try {
+                dispatchFanouts();
+                if (dispatchPushes() == 0 && wakeUp.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS)) {
+                    // Nhiều lần enqueue liên tiếp chỉ cần một lượt quét
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Notification dispatcher error: {}", e.getMessage());
+                Retries.sleep(pollIntervalMs);
+            }
+        }
+    }
+
+    private void dispatchFanouts() {
+        int capacity = maxConcurrentFanouts - runningFanoutIds.size();
+        if (capacity <= 0) {
+            return;
+        }
+        for (OutboxRow row : notificationOutboxRepository.claim(workerId, NotificationOutboxRepository.KIND_FANOUT, capacity, leaseMs)) {
+            // Lease hết hạn trong khi fan-out vẫn chạy trên chính node này: không chạy lần thứ hai song song
+            if (!runningFanoutIds.add(row.id())) {
+                log.warn("⚠️ Fan-out row {} re-claimed while still running on this node", row.id());
+                continue;
+            }
+            notificationExecutor.execute(() -> runFanout(row));
+        }
+    }
+
+    private void runFanout(OutboxRow row) {
+        try {
+            notificationFanout.notifyFollowers(row.id(), workerId, row.artistId(), row.title(), row.content(), row.cursorUserId());
+            notificationOutboxRepository.markSent(List.of(row.id()), workerId);
+            wakeUp.release();
+        } catch (Exception e) {
+            fail(List.of(row), Retries.describe(e));
+        } finally {
+            runningFanoutIds.remove(row.id());
+        }
+    }
+
+    private int dispatchPushes() {
+        List<OutboxRow> claimed = notificationOutboxRepository.claim(workerId, NotificationOutboxRepository.KIND_PUSH, batchSize, leaseMs);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        List<OutboxRow> rows = new ArrayList<>(claimed.size());
+        List<Long> limitedIds = new ArrayList<>();
+        for (OutboxRow row : claimed) {
+            if (tryAcquireDevice(row.deviceToken(), now)) {
+                rows.add(row);
+            } else {
+                limitedIds.add(row.id());
+            }
+        }
+        if (!limitedIds.isEmpty()) {
+            notificationOutboxRepository.defer(limitedIds, workerId, perDeviceWindowMs);
+            rateLimitedCounter.increment(limitedIds.size());
+        }
+        if (!rows.isEmpty()) {
+            sendingPushIds = rows.stream().map(OutboxRow::id).toList();
+            try {
+                send(rows);
+            } finally {
+                sendingPushIds = List.of();
+            }
+        }
+        return claimed.size();
+    }
+
+    private void send(List<OutboxRow> rows) {
+        List<Message> messages = rows.stream()
+                .map(row -> Message.builder()
+                        .setNotification(Notification.builder()
+                                .setTitle(row.title())
+                                .setBody(row.content())
+                                .build())
+                        .setToken(row.deviceToken())
+                        .build())
+                .toList();
+        BatchResponse response;
+        try {
+            response = firebaseMessaging.sendEach(messages);
+        } catch (Exception e) {
+            // Lỗi cả batch (mạng, quota): mọi dòng được thử lại theo backoff
+            log.warn("⚠️ Push batch of {} failed: {}", messages.size(), e.getMessage());
+            fail(rows, Retries.describe(e));
+            return;
+        }
+
+        List<Long> sentIds = new ArrayList<>();
+        List<Long> invalidIds = new ArrayList<>();
+        List<String> invalidTokens = new ArrayList<>();
+        Map<String, List<OutboxRow>> failedByError = new HashMap<>();
+        List<SendResponse> responses = response.getResponses();
+        for (int i = 0; i < responses.size(); i++) {
+            OutboxRow row = rows.get(i);
+            SendResponse sendResponse = responses.get(i);
+            if (sendResponse.isSuccessful()) {
+                sentIds.add(row.id());
+            } else if (sendResponse.getException() != null
+                    && INVALID_TOKEN_ERRORS.contains(sendResponse.getException().getMessagingErrorCode())) {
+                invalidIds.add(row.id());
+                invalidTokens.add(row.deviceToken());
+            } else {
+                String error = sendResponse.getException() != null
+                        ? String.valueOf(sendResponse.getException().getMessagingErrorCode()) + ": " + sendResponse.getException().getMessage()
+                        : "unknown";
+                failedByError.computeIfAbsent(Retries.truncate(error), k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        if (!sentIds.isEmpty()) {
+            List<Long> latencies = notificationOutboxRepository.markSent(sentIds, workerId);
+            latencies.forEach(latencyMs -> deliveryLatency.record(latencyMs, TimeUnit.MILLISECONDS));
+            sentCounter.increment(latencies.size());
+            if (latencies.size() < sentIds.size()) {
+                log.warn("⚠️ {} pushes were sent after their lease was taken over", sentIds.size() - latencies.size());
+            }
+        }
+        if (!invalidIds.isEmpty()) {
+            notificationOutboxRepository.markDead(invalidIds, workerId, "Device token no longer registered");
+            int removed = notificationOutboxRepository.deleteDeviceTokens(invalidTokens);
+            invalidTokenCounter.increment(invalidIds.size());
+            log.info("🧹 Removed {} unregistered device tokens", removed);
+        }
+        failedByError.forEach((error, failed) -> fail(failed, error));
+    }
+
+    // Dòng đã hết số lần thử thì DEAD, còn lại hẹn thử lại (gom theo attempts để mỗi nhóm là một câu UPDATE)
+    private void fail(List<OutboxRow> rows, String error) {
+        List<Long> deadIds = new ArrayList<>();
+        Map<Integer, List<Long>> retryIdsByAttempts = new TreeMap<>();
+        for (OutboxRow row : rows) {
+            if (row.attempts() >= maxAttempts) {
+                deadIds.add(row.id());
+            } else {
+                retryIdsByAttempts.computeIfAbsent(row.attempts(), k -> new ArrayList<>()).add(row.id());
+            }
+        }
+        // Dòng đã bị worker khác lấy lại thì không cập nhật (locked_by khác)
+        if (!deadIds.isEmpty()) {
+            int dead = notificationOutboxRepository.markDead(deadIds, workerId, error);
+            deadCounter.increment(dead);
+            if (dead > 0) {
+                log.error("❌ {} notification outbox rows dead-lettered after {} attempts: {}", dead, maxAttempts, error);
+            }
+        }
+        retryIdsByAttempts.forEach((attempts, ids) -> retriedCounter.increment(notificationOutboxRepository.retryLater(
+                ids, workerId, Retries.backoffMs(attempts, retryBaseDelayMs, retryMaxDelayMs), error)));
+    }
+
+    // Cửa sổ cố định theo từng thiết bị; giới hạn tính theo node, không chia sẻ giữa các node
+    private boolean tryAcquireDevice(String token, long now) {
+        if (now - lastWindowEviction >= perDeviceWindowMs) {
+            deviceWindows.values().removeIf(window -> now - window[0] >= perDeviceWindowMs);
+            lastWindowEviction = now;
+        }
+        long[] window = deviceWindows.get(token);
+        if (window == null || now - window[0] >= perDeviceWindowMs) {
+            deviceWindows.put(token, new long[]{now, 1});
+            return true;
+        }
+        if (window[1] >= perDeviceMax) {
+            return false;
+        }
+        window[1]++;
+        return true;
+    }
+
+    // Đánh thức dispatcher sau khi transaction của người gọi commit; không có transaction thì đánh thức ngay
+    private void wakeAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp.release();
+                }
+            });
+        } else {
+            wakeUp.release();
+        }
+    }
+
+    private static Counter pushCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("msma.notification.pushes")
+                .description("Outbox push rows by delivery outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,6 +1,7 @@
 package com.spring.service.impl;
 
 import com.spring.constants.*;
+import com.spring.dto.CatalogChangedEvent;
 import com.spring.dto.request.music.AddSongRequest;
 import com.spring.dto.request.music.AdminAddPlaylistRequest;
 import com.spring.dto.request.music.PlaylistRequest;
@@ -15,6 +16,7 @@ import com.spring.service.CloudinaryService;
 import com.spring.service.NotificationService;
 import com.spring.service.PlaylistService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,12 +36,12 @@ public class PlaylistServiceImpl implements PlaylistService {
     private final UserSavedPlaylistRepository userSavedPlaylistRepository;
     private final ArtistRepository artistRepository;
     private final ArtistPlaylistRepository artistPlaylistRepository;
-    private final ArtistUserFollowRepository artistUserFollowRepository;
     private final SongRepository songRepository;
     private final UserRepository userRepository;
     private final JwtHelper jwtHelper;
     private final CloudinaryService cloudinaryService;
     private final NotificationService notificationService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     public PlaylistResponse createPlaylist(PlaylistRequest request) {
@@ -191,6 +193,7 @@ public class PlaylistServiceImpl implements PlaylistService {
         playlist.setLastModifiedDate(now);
         playlist.setPlaylistAndAlbumStatus(playlist.getPlaylistAndAlbumStatus());
         Playlist updated = playlistRepository.save(playlist);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.PLAYLIST, updated.getId()));
         return convertToPlaylistResponse(updated);
     }
 
@@ -199,6 +202,7 @@ public class PlaylistServiceImpl implements PlaylistService {
         Playlist playlist = playlistRepository.findById(playlistId)
                 .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
         playlistRepository.delete(playlist);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.PLAYLIST, playlistId));
         return ApiResponse.ok("Playlist deleted successfully");
     }
 
@@ -494,12 +498,11 @@ public class PlaylistServiceImpl implements PlaylistService {
         playlist.setPlaylistAndAlbumStatus(PlaylistAndAlbumStatus.ACCEPTED);
         playlist.setLastModifiedDate(now);
         playlistRepository.save(playlist);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.PLAYLIST, playlist.getId()));
         for (ArtistPlaylist artistPlaylist : playlist.getArtistPlaylists()) {
             Long artistId = artistPlaylist.getArtistPlaylistId().getArtist().getId();
             notificationService.notifyArtistPlaylistAccepted(artistId, playlist.getPlaylistName());
-            for (Long userId : artistUserFollowRepository.findByArtistId(artistId)) {
-                notificationService.notifyUserNewPlaylist(userId, artistId, playlist.getPlaylistName());
-            }
+            notificationService.notifyFollowersNewPlaylist(artistId, playlist.getPlaylistName());
         }
         return ApiResponse.ok("Playlist accepted!");
     }
@@ -580,6 +583,7 @@ public class PlaylistServiceImpl implements PlaylistService {
         playlist.setPlaylistAndAlbumStatus(PlaylistAndAlbumStatus.ACCEPTED);
         playlist.setLastModifiedDate(now);
         playlistRepository.save(playlist);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.PLAYLIST, playlist.getId()));
 
         return ApiResponse.ok("Thêm playlist thành công!");
     }
@@ -625,8 +629,7 @@ public class PlaylistServiceImpl implements PlaylistService {
 
     private PlaylistResponse convertToPlaylistResponse(Playlist playlist) {
         Long id = jwtHelper.getIdUserRequesting();
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
+        User user = jwtHelper.getUserRequesting();
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         String formattedDate = playlist.getReleaseDate() != null
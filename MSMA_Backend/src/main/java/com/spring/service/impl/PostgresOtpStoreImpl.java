@@ -0,0 +1,84 @@
+package com.spring.service.impl;
+
+import com.spring.constants.ApiResponseCode;
+import com.spring.dto.response.Otp;
+import com.spring.exceptions.BusinessException;
+import com.spring.repository.OtpSessionRepository;
+import com.spring.service.OtpStore;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * OTP store shared by every backend instance through the {@code otp_sessions} and {@code otp_send_windows} tables.
+ * Expired rows are purged on a schedule; reads ignore them in the meantime.
+ */
+@Service
+@ConditionalOnProperty(name = "otp.store", havingValue = "postgres")
+public class PostgresOtpStoreImpl implements OtpStore {
+    private static final Logger log = LoggerFactory.getLogger(PostgresOtpStoreImpl.class);
+
+    private final OtpSessionRepository otpSessionRepository;
+    private final int maxAttempts;
+    private final int maxSendsPerWindow;
+    private final long rateWindowSeconds;
+
+    public PostgresOtpStoreImpl(
+            OtpSessionRepository otpSessionRepository,
+            @Value("${otp.max-attempts:5}") int maxAttempts,
+            @Value("${otp.rate-limit.max-sends:5}") int maxSendsPerWindow,
+            @Value("${otp.rate-limit.window-seconds:900}") long rateWindowSeconds
+    ) {
+        this.otpSessionRepository = otpSessionRepository;
+        this.maxAttempts = maxAttempts;
+        this.maxSendsPerWindow = maxSendsPerWindow;
+        this.rateWindowSeconds = rateWindowSeconds;
+    }
+
+    @PostConstruct
+    public void createTables() {
+        otpSessionRepository.createTables();
+    }
+
+    @Scheduled(cron = "${otp.postgres.cleanup-cron:0 */5 * * * *}")
+    public void purgeExpired() {
+        try {
+            int removed = otpSessionRepository.deleteExpired(rateWindowSeconds);
+            if (removed > 0) {
+                log.debug("Purged {} expired OTP rows", removed);
+            }
+        } catch (Exception e) {
+            log.error("❌ OTP cleanup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Otp issue(String sessionId, Otp otp) {
+        if (otpSessionRepository.incrementSends(otp.getEmail(), rateWindowSeconds) > maxSendsPerWindow) {
+            throw new BusinessException(ApiResponseCode.TOO_MANY_REQUESTS);
+        }
+        return otpSessionRepository.upsertSession(sessionId, otp);
+    }
+
+    @Override
+    public boolean verify(String sessionId, String code) {
+        OtpSessionRepository.Attempt attempt = otpSessionRepository.recordAttempt(sessionId, code, maxAttempts)
+                .orElseThrow(() -> new BusinessException(ApiResponseCode.SESSION_ID_NOT_FOUND));
+        if (attempt.attempts() > maxAttempts) {
+            otpSessionRepository.deleteSession(sessionId);
+            throw new BusinessException(ApiResponseCode.TOO_MANY_REQUESTS);
+        }
+        return attempt.matched();
+    }
+
+    @Override
+    public Optional<Otp> consumeVerified(String sessionId) {
+        return otpSessionRepository.consumeVerified(sessionId);
+    }
+}
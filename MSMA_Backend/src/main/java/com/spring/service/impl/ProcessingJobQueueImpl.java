@@ -0,0 +1,250 @@
+package com.spring.service.impl;
+
+import com.spring.dto.SongUploadedEvent;
+import com.spring.repository.ProcessingJobRepository;
+import com.spring.service.ProcessingJobQueue;
+import com.spring.service.SongService;
+import com.spring.utils.Retries;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs song processing from the {@code processing_jobs} table instead of an in-memory executor queue, so uploads
+ * survive restarts and every node can take work: each worker thread claims one job at a time with
+ * {@code SKIP LOCKED} and keeps it leased through a heartbeat. Failures the song service reports as transient are
+ * retried with exponential backoff; after {@code processing-jobs.max-attempts} the job is dead-lettered and the
+ * song declined. Jobs of a node that died are picked up again once their lease expires.
+ * <p>
+ * Leases are renewed from a scheduler thread owned by the queue, not from Spring's shared {@code @Scheduled} pool:
+ * a heartbeat stuck behind another scheduled job would let a second node reclaim a job that is still running.
+ */
+@Service
+public class ProcessingJobQueueImpl implements ProcessingJobQueue {
+    private static final Logger log = LoggerFactory.getLogger(ProcessingJobQueueImpl.class);
+
+    private final ProcessingJobRepository processingJobRepository;
+    private final SongService songService;
+    private final String workerId;
+    private final int parallelism;
+    private final long leaseMs;
+    private final long pollIntervalMs;
+    private final long heartbeatIntervalMs;
+    private final int maxAttempts;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
+    private final long shutdownTimeoutMs;
+    private final int retentionDays;
+
+    private final Set<Long> runningJobIds = ConcurrentHashMap.newKeySet();
+    // Đánh thức worker ngay khi có job mới trên node này, thay vì chờ tới lần poll kế tiếp
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final List<Thread> workers = new ArrayList<>();
+    private ScheduledExecutorService heartbeatExecutor;
+    private volatile boolean running;
+
+    public ProcessingJobQueueImpl(
+            ProcessingJobRepository processingJobRepository,
+            SongService songService,
+            @Value("${processing-jobs.parallelism:4}") int parallelism,
+            @Value("${processing-jobs.lease-ms:120000}") long leaseMs,
+            @Value("${processing-jobs.poll-interval-ms:5000}") long pollIntervalMs,
+            @Value("${processing-jobs.heartbeat-interval-ms:30000}") long heartbeatIntervalMs,
+            @Value("${processing-jobs.max-attempts:5}") int maxAttempts,
+            @Value("${processing-jobs.retry-base-delay-ms:30000}") long retryBaseDelayMs,
+            @Value("${processing-jobs.retry-max-delay-ms:1800000}") long retryMaxDelayMs,
+            @Value("${processing-jobs.shutdown-timeout-ms:30000}") long shutdownTimeoutMs,
+            @Value("${processing-jobs.retention-days:7}") int retentionDays
+    ) {
+        this.processingJobRepository = processingJobRepository;
+        this.songService = songService;
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+        this.parallelism = Math.max(1, parallelism);
+        this.leaseMs = leaseMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.retryMaxDelayMs = retryMaxDelayMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.retentionDays = retentionDays;
+    }
+
+    @PostConstruct
+    public void createTable() {
+        processingJobRepository.createTable();
+    }
+
+    // Chỉ bắt đầu nhận job khi toàn bộ context đã sẵn sàng
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reclaimExpiredLeases();
+        int orphans = processingJobRepository.enqueueOrphans();
+        if (orphans > 0) {
+            log.warn("⚠️ Re-queued {} songs left in PROCESSING without a job", orphans);
+        }
+
+        running = true;
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "processing-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < parallelism; i++) {
+            Thread worker = new Thread(this::runWorker, "processing-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("✅ Processing job workers started: id={}, parallelism={}, lease={} ms", workerId, parallelism, leaseMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        wakeUp.release(parallelism);
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // Vẫn gia hạn lease trong lúc chờ worker dừng, sau đó mới tắt heartbeat
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdownNow();
+        }
+        // Job chưa xong sẽ được node khác nhận lại khi lease hết hạn
+        if (!runningJobIds.isEmpty()) {
+            log.warn("⚠️ Stopping with {} processing jobs still running; they will be reclaimed after the lease expires",
+                    runningJobIds.size());
+        }
+    }
+
+    @Override
+    public void enqueue(Long songId) {
+        if (!processingJobRepository.enqueue(songId)) {
+            log.info("Song [{}] already has a pending processing job", songId);
+        }
+    }
+
+    // Ghi job trong cùng transaction với việc chuyển bài sang PROCESSING
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onSongUploaded(SongUploadedEvent event) {
+        enqueue(event.getSongId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void wakeWorkers(SongUploadedEvent event) {
+        wakeUp.release();
+    }
+
+    public void heartbeat() {
+        if (runningJobIds.isEmpty()) {
+            return;
+        }
+        List<Long> jobIds = new ArrayList<>(runningJobIds);
+        try {
+            int renewed = processingJobRepository.heartbeat(jobIds, workerId, leaseMs);
+            if (renewed < jobIds.size()) {
+                log.warn("⚠️ Lost the lease on {} of {} running processing jobs", jobIds.size() - renewed, jobIds.size());
+            }
+        } catch (Exception e) {
+            log.error("❌ Processing job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${processing-jobs.reclaim-interval-ms:60000}", initialDelayString = "${processing-jobs.reclaim-interval-ms:60000}")
+    public void reclaimExpiredLeases() {
+        try {
+            for (ProcessingJobRepository.ReclaimedJob job : processingJobRepository.reclaimExpired(maxAttempts)) {
+                if ("DEAD".equals(job.status())) {
+                    log.error("❌ Processing job {} for Song [{}] dead-lettered after its lease expired", job.id(), job.songId());
+                    songService.declineProcessing(job.songId(), "Processing lease expired after " + maxAttempts + " attempts");
+                } else {
+                    log.warn("⚠️ Processing job {} for Song [{}] re-queued after its lease expired", job.id(), job.songId());
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Failed to reclaim expired processing jobs: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${processing-jobs.purge-cron:0 30 3 * * *}")
+    public void purgeFinished() {
+        int deleted = processingJobRepository.deleteFinishedBefore(retentionDays);
+        if (deleted > 0) {
+            log.info("🧹 Purged {} finished processing jobs", deleted);
+        }
+    }
+
+    // Helper Method
+    private void runWorker() {
+        while (running) {
+            try {
+                List<ProcessingJobRepository.ClaimedJob> jobs = processingJobRepository.claim(workerId, leaseMs, 1);
+                if (jobs.isEmpty()) {
+                    wakeUp.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                process(jobs.get(0));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Lỗi DB khi claim: nghỉ một nhịp rồi thử lại
+                log.error("❌ Processing worker error: {}", e.getMessage());
+                Retries.sleep(pollIntervalMs);
+            }
+        }
+    }
+
+    private void process(ProcessingJobRepository.ClaimedJob job) {
+        runningJobIds.add(job.id());
+        try {
+            log.info("🎶 Processing job {} for Song [{}], attempt {}/{}", job.id(), job.songId(), job.attempts(), maxAttempts);
+            songService.processSong(job.songId());
+            if (!processingJobRepository.complete(job.id(), workerId)) {
+                log.warn("⚠️ Processing job {} finished after its lease was taken over", job.id());
+            }
+        } catch (Exception e) {
+            String error = Retries.describe(e);
+            if (job.attempts() >= maxAttempts) {
+                if (processingJobRepository.deadLetter(job.id(), workerId, error)) {
+                    log.error("❌ Processing job {} for Song [{}] dead-lettered after {} attempts: {}",
+                            job.id(), job.songId(), job.attempts(), error);
+                    songService.declineProcessing(job.songId(), error);
+                }
+            } else {
+                long delayMs = Retries.backoffMs(job.attempts(), retryBaseDelayMs, retryMaxDelayMs);
+                if (processingJobRepository.retryLater(job.id(), workerId, delayMs, error)) {
+                    log.warn("⚠️ Processing job {} for Song [{}] failed (attempt {}), retrying in {} ms: {}",
+                            job.id(), job.songId(), job.attempts(), delayMs, error);
+                }
+            }
+        } finally {
+            runningJobIds.remove(job.id());
+        }
+    }}
@@ -0,0 +1,30 @@
+package com.spring.service.impl;
+
+import com.spring.repository.NotificationOutboxRepository;
+import com.spring.service.NotificationChannel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Device pushes: queues one outbox PUSH row per registered device of the chunk's followers.
+ * Sending, batching and token cleanup are done by the outbox dispatcher ({@link NotificationOutboxImpl}).
+ */
+@Service
+@Order(2)
+@RequiredArgsConstructor
+public class PushNotificationChannel implements NotificationChannel {
+    private final NotificationOutboxRepository notificationOutboxRepository;
+
+    @Override
+    public String getName() {
+        return "push";
+    }
+
+    @Override
+    public int deliver(List<Long> userIds, String title, String content) {
+        return notificationOutboxRepository.enqueuePushes(userIds, title, content);
+    }
+}
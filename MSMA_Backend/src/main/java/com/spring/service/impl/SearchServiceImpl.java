@@ -1,30 +1,48 @@
 package com.spring.service.impl;
 
+import com.spring.config.SearchIndexInitializer;
 import com.spring.constants.ApiResponseCode;
+import com.spring.constants.SearchContentType;
 import com.spring.constants.UserType;
+import com.spring.dto.SearchHit;
+import com.spring.dto.SongStats;
 import com.spring.dto.request.*;
 import com.spring.dto.response.*;
 import com.spring.entities.*;
 import com.spring.exceptions.BusinessException;
 import com.spring.repository.*;
 import com.spring.security.JwtHelper;
+import com.spring.service.CatalogSearchIndex;
 import com.spring.service.SearchService;
+import com.spring.service.SongStatsLoader;
+import com.spring.utils.SortKeyCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SearchServiceImpl implements SearchService {
+    private static final int MAX_KEYSET_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final ArtistRepository artistRepository;
     private final SongRepository songRepository;
@@ -34,11 +52,19 @@ public class SearchServiceImpl implements SearchService {
     private final AlbumRepository albumRepository;
     private final ArtistAlbumRepository artistAlbumRepository;
     private final GenreRepository genreRepository;
-    private final UserSongDownloadRepository userSongDownloadRepository;
-    private final UserSongLikeRepository userSongLikeRepository;
-    private final UserSongCountRepository userSongCountRepository;
     private final ArtistUserFollowRepository artistUserFollowRepository;
+    private final SongStatsLoader songStatsLoader;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final SearchKeysetRepository searchKeysetRepository;
+    private final SearchSuggestionRepository searchSuggestionRepository;
+    private final SearchIndexInitializer searchIndexInitializer;
     private final JwtHelper jwtHelper;
+    private final PlatformTransactionManager transactionManager;
+    @Qualifier("searchExecutor")
+    private final Executor searchExecutor;
+
+    @Value("${search.contents-parallel:true}")
+    private boolean parallelContents;
 
     @Override
     public Map<String, Object> paginationAccount(PaginationAccountRequest request) {
@@ -117,15 +143,21 @@ public class SearchServiceImpl implements SearchService {
     @Override
     public Map<String, Object> paginationArtistSongs(PaginationSongRequest request) {
         Long artistId = jwtHelper.getIdUserRequesting();
+        if (request.getCursor() != null) {
+            return keysetSongs(request, artistId);
+        }
         String search = request.getSearch().trim().toLowerCase();
         Long genreId = request.getGenreId();
         String orderBy = request.getOrderBy();
         String order = request.getOrder();
 
+        orderBy = resolveOrderBy(orderBy, request.isOrderBySpecified(), request.isOrderSpecified(), order, search);
+
         Pageable pageable = createSongPageable(request.getPage(), request.getSize(), orderBy, order);
         Page<Song> songsPage;
 
         switch (orderBy) {
+            case "relevance" -> songsPage = songRepository.findArtistSongsByRelevance(pageable, search, genreId, artistId);
             case "numberOfListeners" -> {
                 if (order.equalsIgnoreCase("asc")) {
                     songsPage = songRepository.findArtistSongsOrderByNumberOfListenersAsc(pageable, search.isEmpty() ? null : search, genreId, artistId);
@@ -153,15 +185,21 @@ public class SearchServiceImpl implements SearchService {
 
     @Override
     public Map<String, Object> paginationSongs(PaginationSongRequest request) {
+        if (request.getCursor() != null) {
+            return keysetSongs(request, null);
+        }
         String search = request.getSearch().trim().toLowerCase();
         Long genreId = request.getGenreId();
         String order = request.getOrder();
         String orderBy = request.getOrderBy();
 
+        orderBy = resolveOrderBy(orderBy, request.isOrderBySpecified(), request.isOrderSpecified(), order, search);
+
         Pageable pageable = createSongPageable(request.getPage(), request.getSize(), orderBy, order);
         Page<Song> songsPage;
 
         switch (orderBy) {
+            case "relevance" -> songsPage = songRepository.findSongsByRelevance(pageable, search, genreId);
             case "numberOfListeners" -> {
                 if (order.equalsIgnoreCase("asc")) {
                     songsPage = songRepository.findSongsOrderByNumberOfListenersAsc(pageable, search.isEmpty() ? null : search, genreId);
@@ -190,24 +228,38 @@ public class SearchServiceImpl implements SearchService {
     @Override
     public Map<String, Object> paginationArtistPlaylists(PaginationPlaylistRequest request) {
         Long artistId = jwtHelper.getIdUserRequesting();
+        if (request.getCursor() != null) {
+            return keysetPlaylists(request, artistId);
+        }
         String search = request.getSearch().trim().toLowerCase();
         String orderBy = request.getOrderBy();
         String order = request.getOrder();
 
+        orderBy = resolveOrderBy(orderBy, request.isOrderBySpecified(), request.isOrderSpecified(), order, search);
+
         Pageable pageable = createPlaylistPageable(request.getPage(), request.getSize(), orderBy, order);
-        Page<Playlist> playlistPage = playListRepository.findArtistPlaylistsByFilter(pageable, search, artistId);
+        Page<Playlist> playlistPage = orderBy.equals("relevance")
+                ? playListRepository.findArtistPlaylistsByRelevance(pageable, search, artistId)
+                : playListRepository.findArtistPlaylistsByFilter(pageable, search, artistId);
 
         return buildPlaylistPaginationResult(playlistPage);
     }
 
     @Override
     public Map<String, Object> paginationPlaylists(PaginationPlaylistRequest request) {
+        if (request.getCursor() != null) {
+            return keysetPlaylists(request, null);
+        }
         String search = request.getSearch().trim().toLowerCase();
         String orderBy = request.getOrderBy();
         String order = request.getOrder();
 
+        orderBy = resolveOrderBy(orderBy, request.isOrderBySpecified(), request.isOrderSpecified(), order, search);
+
         Pageable pageable = createPlaylistPageable(request.getPage(), request.getSize(), orderBy, order);
-        Page<Playlist> playlistPage = playListRepository.findPlaylistsByFilter(pageable, search);
+        Page<Playlist> playlistPage = orderBy.equals("relevance")
+                ? playListRepository.findPlaylistsByRelevance(pageable, search)
+                : playListRepository.findPlaylistsByFilter(pageable, search);
 
         return buildPlaylistPaginationResult(playlistPage);
     }
@@ -215,24 +267,38 @@ public class SearchServiceImpl implements SearchService {
     @Override
     public Map<String, Object> paginationArtistAlbums(PaginationAlbumRequest request) {
         Long artistId = jwtHelper.getIdUserRequesting();
+        if (request.getCursor() != null) {
+            return keysetAlbums(request, artistId);
+        }
         String search = request.getSearch().trim().toLowerCase();
         String orderBy = request.getOrderBy();
         String order = request.getOrder();
 
+        orderBy = resolveOrderBy(orderBy, request.isOrderBySpecified(), request.isOrderSpecified(), order, search);
+
         Pageable pageable = createAlbumPageable(request.getPage(), request.getSize(), orderBy, order);
-        Page<Album> albumPage = albumRepository.findArtistAlbumsByFilter(pageable, search, artistId);
+        Page<Album> albumPage = orderBy.equals("relevance")
+                ? albumRepository.findArtistAlbumsByRelevance(pageable, search, artistId)
+                : albumRepository.findArtistAlbumsByFilter(pageable, search, artistId);
 
         return buildAlbumsPaginationResult(albumPage);
     }
 
     @Override
     public Map<String, Object> paginationAlbums(PaginationAlbumRequest request) {
+        if (request.getCursor() != null) {
+            return keysetAlbums(request, null);
+        }
         String search = request.getSearch().trim().toLowerCase();
         String orderBy = request.getOrderBy();
         String order = request.getOrder();
 
+        orderBy = resolveOrderBy(orderBy, request.isOrderBySpecified(), request.isOrderSpecified(), order, search);
+
         Pageable pageable = createAlbumPageable(request.getPage(), request.getSize(), orderBy, order);
-        Page<Album> albumPage = albumRepository.findAlbumsByFilter(pageable, search);
+        Page<Album> albumPage = orderBy.equals("relevance")
+                ? albumRepository.findAlbumsByRelevance(pageable, search)
+                : albumRepository.findAlbumsByFilter(pageable, search);
 
         return buildAlbumsPaginationResult(albumPage);
     }
@@ -328,10 +394,15 @@ public class SearchServiceImpl implements SearchService {
 
         int start = page * size;
         int end = Math.min(start + size, totalElements);
-        List<Object> paginatedContent = combinedContent.subList(start, end).stream()
+        List<Object> pageContent = combinedContent.subList(start, end);
+        Map<Long, SongStats> songStats = songStatsLoader.loadStats(pageContent.stream()
+                .filter(Song.class::isInstance)
+                .map(content -> ((Song) content).getId())
+                .toList());
+        List<Object> paginatedContent = pageContent.stream()
                 .map(content -> {
                     if (content instanceof Song song) {
-                        return convertToSongResponse(song);
+                        return convertToSongResponse(song, songStats.getOrDefault(song.getId(), SongStats.EMPTY));
                     } else if (content instanceof Playlist playlist) {
                         return convertToPlaylistResponse(playlist);
                     } else if (content instanceof Album album) {
@@ -356,64 +427,37 @@ public class SearchServiceImpl implements SearchService {
     public Map<String, Object> getContents(String title, Long genreId, String type, Integer limit, Integer offset) {
         String titleFilter = (title != null && !title.isEmpty()) ? title.trim().toLowerCase() : null;
 
-        List<Song> songs = songRepository.getAllSongsByTitleOrGenreSongs(
-                titleFilter,
-                genreId,
-                limit,
-                offset
-        );
-        List<SongResponse> songResponseList = songs.stream()
-                .map(this::convertToSearchSongResponse)
-                .collect(Collectors.toList());
-
-        List<Playlist> playlists = playListRepository.getAllPlaylistsByTitle(
-                titleFilter,
-                limit,
-                offset
-        );
-        List<PlaylistResponse> playlistResponseList = playlists.stream()
-                .map(this::convertToSearchPlaylistResponse)
-                .collect(Collectors.toList());
-
-        List<Album> albums = albumRepository.getAllAlbumsByTitle(
-                titleFilter,
-                limit,
-                offset
-        );
-        List<AlbumResponse> albumResponseList = albums.stream()
-                .map(this::convertToSearchAlbumResponse)
-                .collect(Collectors.toList());
-
-        List<Artist> artists = artistRepository.getAllArtistsByTitle(
-                titleFilter,
-                limit,
-                offset
-        );
-        List<ArtistPresentation> artistPresentations = artists.stream()
-                .map(this::convertToArtistPresentation)
-                .collect(Collectors.toList());
+        // Có từ khoá thì xếp hạng theo độ liên quan (index trong bộ nhớ nếu sẵn sàng, nếu không thì Postgres),
+        // không có thì giữ thứ tự mới nhất
+        boolean useIndex = titleFilter != null && catalogSearchIndex.isAvailable();
 
         Map<String, Object> response = new HashMap<>();
         switch (type.toLowerCase()) {
             case "all":
+                // Bốn truy vấn độc lập chạy song song, mỗi truy vấn trong transaction chỉ đọc riêng
+                CompletableFuture<List<SongResponse>> songs = supplyContents(() -> searchSongContents(titleFilter, genreId, useIndex, limit, offset));
+                CompletableFuture<List<PlaylistResponse>> playlists = supplyContents(() -> searchPlaylistContents(titleFilter, useIndex, limit, offset));
+                CompletableFuture<List<AlbumResponse>> albums = supplyContents(() -> searchAlbumContents(titleFilter, useIndex, limit, offset));
+                CompletableFuture<List<ArtistPresentation>> artists = supplyContents(() -> searchArtistContents(titleFilter, useIndex, limit, offset));
+
                 List<Object> combinedContent = new ArrayList<>();
-                combinedContent.addAll(songResponseList);
-                combinedContent.addAll(playlistResponseList);
-                combinedContent.addAll(albumResponseList);
-                combinedContent.addAll(artistPresentations);
+                combinedContent.addAll(joinContents(songs));
+                combinedContent.addAll(joinContents(playlists));
+                combinedContent.addAll(joinContents(albums));
+                combinedContent.addAll(joinContents(artists));
                 response.put("content", combinedContent);
                 break;
             case "songs":
-                response.put("content", songResponseList);
+                response.put("content", searchSongContents(titleFilter, genreId, useIndex, limit, offset));
                 break;
             case "playlists":
-                response.put("content", playlistResponseList);
+                response.put("content", searchPlaylistContents(titleFilter, useIndex, limit, offset));
                 break;
             case "albums":
-                response.put("content", albumResponseList);
+                response.put("content", searchAlbumContents(titleFilter, useIndex, limit, offset));
                 break;
             case "artists":
-                response.put("content", artistPresentations);
+                response.put("content", searchArtistContents(titleFilter, useIndex, limit, offset));
                 break;
             default:
                 response.put("content", Collections.emptyList());
@@ -424,6 +468,32 @@ public class SearchServiceImpl implements SearchService {
         return response;
     }
 
+    @Override
+    public List<SearchSuggestionResponse> suggest(String query, String type, Integer limit) {
+        SearchContentType contentType = parseContentType(type);
+        String search = query.trim().toLowerCase();
+        if (search.isEmpty()) {
+            return List.of();
+        }
+
+        // Index trong bộ nhớ chưa sẵn sàng (đang build, bị tắt hoặc bị cắt bớt) thì gợi ý bằng pg_trgm
+        List<SearchHit> hits;
+        if (catalogSearchIndex.isAvailable()) {
+            hits = catalogSearchIndex.search(query, contentType, null, limit, 0);
+        } else if (searchIndexInitializer.isRelevanceAvailable()) {
+            hits = searchSuggestionRepository.findSuggestions(search, contentType, limit);
+        } else {
+            throw new BusinessException(ApiResponseCode.SEARCH_UNAVAILABLE);
+        }
+        return hits.stream()
+                .map(hit -> SearchSuggestionResponse.builder()
+                        .type(hit.getType().name().toLowerCase())
+                        .id(hit.getId())
+                        .name(hit.getName())
+                        .build())
+                .toList();
+    }
+
     // Helper Method
     private String getTitle(Object content) {
         if (content instanceof Song song) {
@@ -579,10 +649,9 @@ public class SearchServiceImpl implements SearchService {
                 ).build();
     }
 
-    private SongResponse convertToSongResponse(Song song) {
+    private SongResponse convertToSongResponse(Song song, SongStats stats) {
         Long id = jwtHelper.getIdUserRequesting();
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
+        User user = jwtHelper.getUserRequesting();
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy")
                 .withZone(ZoneId.of("Asia/Ho_Chi_Minh"));
@@ -621,10 +690,10 @@ public class SearchServiceImpl implements SearchService {
                     .songStatus(song.getSongStatus() != null ? song.getSongStatus().name() : null)
                     .genreNameList(genreNames)
                     .artistNameList(additionalArtistNameList)
-                    .numberOfListeners(userSongCountRepository.countDistinctUsersBySongId(song.getId()))
-                    .countListen(userSongCountRepository.getTotalCountListenBySongId(song.getId()))
-                    .numberOfDownload(userSongDownloadRepository.countDistinctUsersBySongId(song.getId()))
-                    .numberOfUserLike(userSongLikeRepository.countDistinctUsersBySongId(song.getId()))
+                    .numberOfListeners(stats.getNumberOfListeners())
+                    .countListen(stats.getCountListen())
+                    .numberOfDownload(stats.getNumberOfDownload())
+                    .numberOfUserLike(stats.getNumberOfUserLike())
                     .build();
         } else {
             List<String> artistNameList = song.getArtistSongs() != null
@@ -646,15 +715,15 @@ public class SearchServiceImpl implements SearchService {
                     .songStatus(song.getSongStatus() != null ? song.getSongStatus().name() : null)
                     .genreNameList(genreNames)
                     .artistNameList(artistNameList)
-                    .numberOfListeners(userSongCountRepository.countDistinctUsersBySongId(song.getId()))
-                    .countListen(userSongCountRepository.getTotalCountListenBySongId(song.getId()))
-                    .numberOfDownload(userSongDownloadRepository.countDistinctUsersBySongId(song.getId()))
-                    .numberOfUserLike(userSongLikeRepository.countDistinctUsersBySongId(song.getId()))
+                    .numberOfListeners(stats.getNumberOfListeners())
+                    .countListen(stats.getCountListen())
+                    .numberOfDownload(stats.getNumberOfDownload())
+                    .numberOfUserLike(stats.getNumberOfUserLike())
                     .build();
         }
     }
 
-    private SongResponse convertToSearchSongResponse(Song song) {
+    private SongResponse convertToSearchSongResponse(Song song, SongStats stats) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy")
                 .withZone(ZoneId.of("Asia/Ho_Chi_Minh"));
 
@@ -689,18 +758,17 @@ public class SearchServiceImpl implements SearchService {
                 .songStatus(song.getSongStatus() != null ? song.getSongStatus().name() : null)
                 .genreNameList(genreNames)
                 .artistNameList(artistNameList)
-                .numberOfListeners(userSongCountRepository.countDistinctUsersBySongId(song.getId()))
-                .countListen(userSongCountRepository.getTotalCountListenBySongId(song.getId()))
-                .numberOfDownload(userSongDownloadRepository.countDistinctUsersBySongId(song.getId()))
-                .numberOfUserLike(userSongLikeRepository.countDistinctUsersBySongId(song.getId()))
+                .numberOfListeners(stats.getNumberOfListeners())
+                .countListen(stats.getCountListen())
+                .numberOfDownload(stats.getNumberOfDownload())
+                .numberOfUserLike(stats.getNumberOfUserLike())
                 .build();
 
     }
 
     private PlaylistResponse convertToPlaylistResponse(Playlist playlist) {
         Long id = jwtHelper.getIdUserRequesting();
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
+        User user = jwtHelper.getUserRequesting();
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         String formattedDate = playlist.getReleaseDate() != null
@@ -826,8 +894,7 @@ public class SearchServiceImpl implements SearchService {
 
     private AlbumResponse convertToAlbumResponse(Album album) {
         Long id = jwtHelper.getIdUserRequesting();
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
+        User user = jwtHelper.getUserRequesting();
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         String formattedDate = album.getReleaseDate() != null
@@ -971,6 +1038,238 @@ public class SearchServiceImpl implements SearchService {
                 .build();
     }
 
+    private List<SongResponse> searchSongContents(String titleFilter, Long genreId, boolean useIndex, Integer limit, Integer offset) {
+        List<Song> songs;
+        if (useIndex) {
+            songs = loadInOrder(searchIndexIds(titleFilter, SearchContentType.SONG, genreId, limit, offset),
+                    songRepository::findAllById, Song::getId);
+        } else {
+            songs = titleFilter != null && searchIndexInitializer.isRelevanceAvailable()
+                    ? songRepository.searchAcceptedSongsByRelevance(titleFilter, genreId, limit, offset)
+                    : songRepository.getAllSongsByTitleOrGenreSongs(titleFilter, genreId, limit, offset);
+        }
+        Map<Long, SongStats> songStats = songStatsLoader.loadStats(songs.stream().map(Song::getId).toList());
+        return songs.stream()
+                .map(song -> convertToSearchSongResponse(song, songStats.getOrDefault(song.getId(), SongStats.EMPTY)))
+                .collect(Collectors.toList());
+    }
+
+    private List<PlaylistResponse> searchPlaylistContents(String titleFilter, boolean useIndex, Integer limit, Integer offset) {
+        List<Playlist> playlists;
+        if (useIndex) {
+            playlists = loadInOrder(searchIndexIds(titleFilter, SearchContentType.PLAYLIST, null, limit, offset),
+                    playListRepository::findAllById, Playlist::getId);
+        } else {
+            playlists = titleFilter != null && searchIndexInitializer.isRelevanceAvailable()
+                    ? playListRepository.searchAcceptedPlaylistsByRelevance(titleFilter, limit, offset)
+                    : playListRepository.getAllPlaylistsByTitle(titleFilter, limit, offset);
+        }
+        return playlists.stream()
+                .map(this::convertToSearchPlaylistResponse)
+                .collect(Collectors.toList());
+    }
+
+    private List<AlbumResponse> searchAlbumContents(String titleFilter, boolean useIndex, Integer limit, Integer offset) {
+        List<Album> albums;
+        if (useIndex) {
+            albums = loadInOrder(searchIndexIds(titleFilter, SearchContentType.ALBUM, null, limit, offset),
+                    albumRepository::findAllById, Album::getId);
+        } else {
+            albums = titleFilter != null && searchIndexInitializer.isRelevanceAvailable()
+                    ? albumRepository.searchAcceptedAlbumsByRelevance(titleFilter, limit, offset)
+                    : albumRepository.getAllAlbumsByTitle(titleFilter, limit, offset);
+        }
+        return albums.stream()
+                .map(this::convertToSearchAlbumResponse)
+                .collect(Collectors.toList());
+    }
+
+    private List<ArtistPresentation> searchArtistContents(String titleFilter, boolean useIndex, Integer limit, Integer offset) {
+        List<Artist> artists;
+        if (useIndex) {
+            artists = loadInOrder(searchIndexIds(titleFilter, SearchContentType.ARTIST, null, limit, offset),
+                    artistRepository::findAllById, Artist::getId);
+        } else {
+            artists = titleFilter != null && searchIndexInitializer.isRelevanceAvailable()
+                    ? artistRepository.searchArtistsByRelevance(titleFilter, limit, offset)
+                    : artistRepository.getAllArtistsByTitle(titleFilter, limit, offset);
+        }
+        return artists.stream()
+                .map(this::convertToArtistPresentation)
+                .collect(Collectors.toList());
+    }
+
+    // Chạy trên searchExecutor; lazy loading cần session riêng vì open-in-view chỉ gắn với thread của request
+    private <T> CompletableFuture<T> supplyContents(Supplier<T> query) {
+        if (!parallelContents) {
+            return CompletableFuture.completedFuture(query.get());
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return CompletableFuture.supplyAsync(() -> readOnly.execute(status -> query.get()), searchExecutor);
+    }
+
+    private static <T> T joinContents(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Keyset pagination: không dùng OFFSET, chỉ đếm tổng khi includeTotal = true
+    private Map<String, Object> keysetSongs(PaginationSongRequest request, Long artistId) {
+        String search = request.getSearch().trim().toLowerCase();
+        String orderBy = resolveOrderBy(request.getOrderBy(), request.isOrderBySpecified(), request.isOrderSpecified(), request.getOrder(), search);
+        boolean ascending = isKeysetAscending(orderBy, request.getOrder());
+        int size = keysetSize(request.getSize());
+        SortKeyCursor after = decodeKeysetCursor(request.getCursor(), orderBy, ascending);
+
+        List<SearchKeysetRepository.KeysetRow> rows = searchKeysetRepository.findSongs(
+                search, request.getGenreId(), artistId, orderBy, ascending, after, size + 1);
+        List<Song> songs = loadInOrder(keysetIds(rows, size), songRepository::findAllById, Song::getId);
+        Map<Long, SongStats> songStats = songStatsLoader.loadStats(songs.stream().map(Song::getId).toList());
+        List<SongResponse> songResponses = songs.stream()
+                .map(song -> convertToSongResponse(song, songStats.getOrDefault(song.getId(), SongStats.EMPTY)))
+                .toList();
+
+        Map<String, Object> result = buildKeysetResult(rows, size, orderBy, ascending);
+        result.put("songs", songResponses);
+        if (request.isIncludeTotal()) {
+            result.put("totalElements", searchKeysetRepository.countSongs(search, request.getGenreId(), artistId, orderBy));
+        }
+        return result;
+    }
+
+    private Map<String, Object> keysetPlaylists(PaginationPlaylistRequest request, Long artistId) {
+        String search = request.getSearch().trim().toLowerCase();
+        String orderBy = resolveOrderBy(request.getOrderBy(), request.isOrderBySpecified(), request.isOrderSpecified(), request.getOrder(), search);
+        boolean ascending = isKeysetAscending(orderBy, request.getOrder());
+        int size = keysetSize(request.getSize());
+        SortKeyCursor after = decodeKeysetCursor(request.getCursor(), orderBy, ascending);
+
+        List<SearchKeysetRepository.KeysetRow> rows = searchKeysetRepository.findPlaylists(
+                search, artistId, orderBy, ascending, after, size + 1);
+        List<PlaylistResponse> playlistResponses = loadInOrder(keysetIds(rows, size), playListRepository::findAllById, Playlist::getId)
+                .stream()
+                .map(this::convertToPlaylistResponse)
+                .toList();
+
+        Map<String, Object> result = buildKeysetResult(rows, size, orderBy, ascending);
+        result.put("playlists", playlistResponses);
+        if (request.isIncludeTotal()) {
+            result.put("totalElements", searchKeysetRepository.countPlaylists(search, artistId, orderBy));
+        }
+        return result;
+    }
+
+    private Map<String, Object> keysetAlbums(PaginationAlbumRequest request, Long artistId) {
+        String search = request.getSearch().trim().toLowerCase();
+        String orderBy = resolveOrderBy(request.getOrderBy(), request.isOrderBySpecified(), request.isOrderSpecified(), request.getOrder(), search);
+        boolean ascending = isKeysetAscending(orderBy, request.getOrder());
+        int size = keysetSize(request.getSize());
+        SortKeyCursor after = decodeKeysetCursor(request.getCursor(), orderBy, ascending);
+
+        List<SearchKeysetRepository.KeysetRow> rows = searchKeysetRepository.findAlbums(
+                search, artistId, orderBy, ascending, after, size + 1);
+        List<AlbumResponse> albumResponses = loadInOrder(keysetIds(rows, size), albumRepository::findAllById, Album::getId)
+                .stream()
+                .map(this::convertToAlbumResponse)
+                .toList();
+
+        Map<String, Object> result = buildKeysetResult(rows, size, orderBy, ascending);
+        result.put("albums", albumResponses);
+        if (request.isIncludeTotal()) {
+            result.put("totalElements", searchKeysetRepository.countAlbums(search, artistId, orderBy));
+        }
+        return result;
+    }
+
+    // Độ liên quan luôn giảm dần: client gửi orderBy=relevance kèm order=asc thì bị từ chối.
+    // Khi relevance chỉ là mặc định thì không có từ khoá, thiếu hàm search_*_ids hoặc order=asc đều xếp theo releaseDate với order của client
+    private String resolveOrderBy(String orderBy, boolean orderBySpecified, boolean orderSpecified, String order, String search) {
+        if (!orderBy.equals("relevance")) {
+            return orderBy;
+        }
+        boolean ascending = orderSpecified && !order.equalsIgnoreCase("desc");
+        if (orderBySpecified && ascending) {
+            throw new BusinessException(ApiResponseCode.INVALID_FORMAT);
+        }
+        if (ascending || search.isEmpty() || !searchIndexInitializer.isRelevanceAvailable()) {
+            return "releaseDate";
+        }
+        return orderBy;
+    }
+
+    // Độ liên quan luôn giảm dần
+    private static boolean isKeysetAscending(String orderBy, String order) {
+        return !orderBy.equals("relevance") && order.equalsIgnoreCase("asc");
+    }
+
+    private static int keysetSize(int size) {
+        return Math.max(1, Math.min(size, MAX_KEYSET_PAGE_SIZE));
+    }
+
+    private static SortKeyCursor decodeKeysetCursor(String cursor, String orderBy, boolean ascending) {
+        return cursor.isEmpty() ? null : SortKeyCursor.decode(cursor, SortKeyCursor.sortOf(orderBy, ascending));
+    }
+
+    private static List<Long> keysetIds(List<SearchKeysetRepository.KeysetRow> rows, int size) {
+        return rows.stream()
+                .limit(size)
+                .map(SearchKeysetRepository.KeysetRow::id)
+                .toList();
+    }
+
+    private static Map<String, Object> buildKeysetResult(List<SearchKeysetRepository.KeysetRow> rows, int size,
+                                                         String orderBy, boolean ascending) {
+        boolean hasNext = rows.size() > size;
+        Map<String, Object> result = new HashMap<>();
+        result.put("hasNext", hasNext);
+        if (hasNext) {
+            SearchKeysetRepository.KeysetRow last = rows.get(size - 1);
+            result.put("nextCursor", new SortKeyCursor(SortKeyCursor.sortOf(orderBy, ascending), last.sortKey(), last.id()).encode());
+        } else {
+            result.put("nextCursor", null);
+        }
+        return result;
+    }
+
+    private List<Long> searchIndexIds(String title, SearchContentType type, Long genreId, Integer limit, Integer offset) {
+        return catalogSearchIndex.search(title, type, genreId, limit, offset).stream()
+                .map(SearchHit::getId)
+                .toList();
+    }
+
+    // findAllById không giữ thứ tự, sắp xếp lại theo thứ tự của index
+    private <T> List<T> loadInOrder(List<Long> ids, Function<List<Long>, List<T>> loader, Function<T, Long> idGetter) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, T> byId = loader.apply(ids).stream()
+                .collect(Collectors.toMap(idGetter, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private SearchContentType parseContentType(String type) {
+        if (type == null || type.isBlank() || type.equalsIgnoreCase("all")) {
+            return null;
+        }
+        return switch (type.toLowerCase()) {
+            case "songs" -> SearchContentType.SONG;
+            case "playlists" -> SearchContentType.PLAYLIST;
+            case "albums" -> SearchContentType.ALBUM;
+            case "artists" -> SearchContentType.ARTIST;
+            default -> throw new BusinessException(ApiResponseCode.INVALID_TYPE);
+        };
+    }
+
     // Pageable for Song Methods
     private Pageable createSongPageable(int page, int size, String orderBy, String order) {
         Sort sort = switch (orderBy) {
@@ -978,7 +1277,7 @@ public class SearchServiceImpl implements SearchService {
                     order.equalsIgnoreCase("asc") ? Sort.by("title").ascending() : Sort.by("title").descending();
             case "releaseDate" ->
                     order.equalsIgnoreCase("asc") ? Sort.by("releaseDate").ascending() : Sort.by("releaseDate").descending();
-            default -> Sort.unsorted(); // numberOfListeners, countListen cho songs
+            default -> Sort.unsorted(); // relevance, numberOfListeners, countListen cho songs
         };
 
         return PageRequest.of(page - 1, size, sort);
@@ -990,6 +1289,7 @@ public class SearchServiceImpl implements SearchService {
                     order.equalsIgnoreCase("asc") ? Sort.by("playlistName").ascending() : Sort.by("playlistName").descending();
             case "releaseDate" ->
                     order.equalsIgnoreCase("asc") ? Sort.by("releaseDate").ascending() : Sort.by("releaseDate").descending();
+            case "relevance" -> Sort.unsorted(); // Thứ tự nằm trong truy vấn
             default -> Sort.unsorted();
         };
 
@@ -1002,6 +1302,7 @@ public class SearchServiceImpl implements SearchService {
                     order.equalsIgnoreCase("asc") ? Sort.by("albumName").ascending() : Sort.by("albumName").descending();
             case "releaseDate" ->
                     order.equalsIgnoreCase("asc") ? Sort.by("releaseDate").ascending() : Sort.by("releaseDate").descending();
+            case "relevance" -> Sort.unsorted(); // Thứ tự nằm trong truy vấn
             default -> Sort.unsorted();
         };
 
@@ -1009,8 +1310,9 @@ public class SearchServiceImpl implements SearchService {
     }
 
     private Map<String, Object> buildSongsPaginationResult(Page<Song> songsPage) {
+        Map<Long, SongStats> songStats = songStatsLoader.loadStats(songsPage.getContent().stream().map(Song::getId).toList());
         List<SongResponse> songResponses = songsPage.getContent().stream()
-                .map(this::convertToSongResponse)
+                .map(song -> convertToSongResponse(song, songStats.getOrDefault(song.getId(), SongStats.EMPTY)))
                 .toList();
 
         int currentPage = songsPage.getNumber() + 1;
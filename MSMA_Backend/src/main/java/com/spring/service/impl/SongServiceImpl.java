@@ -3,13 +3,19 @@ package com.spring.service.impl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spring.constants.ApiResponseCode;
 import com.spring.constants.CommonStatus;
+import com.spring.constants.SearchContentType;
 import com.spring.constants.SongStatus;
+import com.spring.constants.TrendingMetric;
+import com.spring.constants.TrendingWindow;
 import com.spring.constants.UserType;
+import com.spring.dto.SongStats;
+import com.spring.dto.CatalogChangedEvent;
 import com.spring.dto.SongUploadedEvent;
 import com.spring.dto.request.music.AdminAddSongRequest;
 import com.spring.dto.request.music.EditSongRequest;
 import com.spring.dto.request.music.SongUploadRequest;
 import com.spring.dto.response.ApiResponse;
+import com.spring.dto.response.DailyListenResponse;
 import com.spring.dto.response.FastApiResponse;
 import com.spring.dto.response.SongResponse;
 import com.spring.dto.response.SongUploadResponse;
@@ -17,19 +23,23 @@ import com.spring.entities.*;
 import com.spring.exceptions.BusinessException;
 import com.spring.repository.*;
 import com.spring.security.JwtHelper;
+import com.spring.service.AudioStagingStore;
 import com.spring.service.CloudinaryService;
 import com.spring.service.FastApiService;
 import com.spring.service.NotificationService;
 import com.spring.service.SongService;
+import com.spring.service.SongStatisticsService;
+import com.spring.service.SongStatsLoader;
+import com.spring.service.TrendingService;
+import com.spring.utils.CancellableStages;
 import com.spring.utils.JavaFileToMultipartFile;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -46,11 +56,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
@@ -70,8 +82,28 @@ public class SongServiceImpl implements SongService {
     private final JwtHelper jwtHelper;
     private final CloudinaryService cloudinaryService;
     private final NotificationService notificationService;
+    private final SongStatsLoader songStatsLoader;
+    private final SongStatisticsService songStatisticsService;
+    private final SongDailyListenRepository songDailyListenRepository;
+    private final TrendingService trendingService;
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final AudioStagingStore audioStagingStore;
+    private final ObjectMapper objectMapper;
+    @Qualifier("processingExecutor")
+    private final Executor processingExecutor;
     private static final Logger log = LoggerFactory.getLogger(SongServiceImpl.class);
+    // Lỗi có thể tự hết (FastAPI quá tải/khởi động lại, tải file thất bại): job sẽ được thử lại thay vì DECLINED
+    private static final Set<String> TRANSIENT_PROCESSING_FAILURES = Set.of(
+            ApiResponseCode.FASTAPI_UNAVAILABLE.name(),
+            ApiResponseCode.FASTAPI_TIMEOUT.name(),
+            ApiResponseCode.FASTAPI_ERROR.name(),
+            ApiResponseCode.FILE_NOT_FOUND.name()
+    );
+
+    @Value("${trending.top-listens-window:all}")
+    private String topListensWindow;
+    @Value("${trending.top-downloads-window:all}")
+    private String topDownloadsWindow;
 
     // Initialize HttpClient for concurrent downloads
     private final HttpClient httpClient = HttpClient.newBuilder()
@@ -97,8 +129,11 @@ public class SongServiceImpl implements SongService {
         String description = songUploadRequest.getDescription();
         Boolean downloadPermission = songUploadRequest.getDownloadPermission();
 
-        // Upload file lên Cloudinary
+        // Giữ bản sao cục bộ để processSong không phải tải lại từ Cloudinary
         MultipartFile mp3File = songUploadRequest.getFile();
+        String audioSha256 = audioStagingStore.stage(mp3File).orElse(null);
+
+        // Upload file lên Cloudinary
         SongUploadResponse uploaded = cloudinaryService.uploadAudioToCloudinary(songUploadRequest.getFile());
         String audioUrl = uploaded.getMp3Url();
         String formattedDuration = uploaded.getDuration();
@@ -109,6 +144,7 @@ public class SongServiceImpl implements SongService {
         return SongUploadResponse.builder()
                 .mp3File(mp3File)
                 .mp3Url(audioUrl)
+                .audioSha256(audioSha256)
                 .image(image)
                 .imageUrl(imageUrl)
                 .duration(formattedDuration)
@@ -120,9 +156,19 @@ public class SongServiceImpl implements SongService {
     }
 
     private SongResponse convertToSongResponse(Song song) {
+        return convertToSongResponse(song, songStatsLoader.loadStats(song.getId()));
+    }
+
+    private List<SongResponse> convertToSongResponses(List<Song> songs) {
+        Map<Long, SongStats> statsBySongId = songStatsLoader.loadStats(songs.stream().map(Song::getId).toList());
+        return songs.stream()
+                .map(song -> convertToSongResponse(song, statsBySongId.getOrDefault(song.getId(), SongStats.EMPTY)))
+                .collect(Collectors.toList());
+    }
+
+    private SongResponse convertToSongResponse(Song song, SongStats stats) {
         Long id = jwtHelper.getIdUserRequesting();
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
+        User user = jwtHelper.getUserRequesting();
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy")
                 .withZone(ZoneId.of("Asia/Ho_Chi_Minh"));
@@ -161,10 +207,10 @@ public class SongServiceImpl implements SongService {
                     .songStatus(song.getSongStatus() != null ? song.getSongStatus().name() : null)
                     .genreNameList(genreNames)
                     .artistNameList(additionalArtistNameList)
-                    .numberOfListeners(userSongCountRepository.countDistinctUsersBySongId(song.getId()))
-                    .countListen(userSongCountRepository.getTotalCountListenBySongId(song.getId()))
-                    .numberOfDownload(userSongDownloadRepository.countDistinctUsersBySongId(song.getId()))
-                    .numberOfUserLike(userSongLikeRepository.countDistinctUsersBySongId(song.getId()))
+                    .numberOfListeners(stats.getNumberOfListeners())
+                    .countListen(stats.getCountListen())
+                    .numberOfDownload(stats.getNumberOfDownload())
+                    .numberOfUserLike(stats.getNumberOfUserLike())
                     .build();
         } else {
             List<String> artistNameList = song.getArtistSongs() != null
@@ -186,23 +232,34 @@ public class SongServiceImpl implements SongService {
                     .songStatus(song.getSongStatus() != null ? song.getSongStatus().name() : null)
                     .genreNameList(genreNames)
                     .artistNameList(artistNameList)
-                    .numberOfListeners(userSongCountRepository.countDistinctUsersBySongId(song.getId()))
-                    .countListen(userSongCountRepository.getTotalCountListenBySongId(song.getId()))
-                    .numberOfDownload(userSongDownloadRepository.countDistinctUsersBySongId(song.getId()))
-                    .numberOfUserLike(userSongLikeRepository.countDistinctUsersBySongId(song.getId()))
+                    .numberOfListeners(stats.getNumberOfListeners())
+                    .countListen(stats.getCountListen())
+                    .numberOfDownload(stats.getNumberOfDownload())
+                    .numberOfUserLike(stats.getNumberOfUserLike())
                     .build();
         }
     }
 
     private FastApiResponse extractResponseFromJson(String responseBody) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(responseBody, FastApiResponse.class);
+            return objectMapper.readValue(responseBody, FastApiResponse.class);
         } catch (IOException e) {
             throw new RuntimeException("Lỗi khi phân tích JSON: " + e.getMessage(), e);
         }
     }
 
+    // Lý do DECLINED của một bước trong processSong
+    private record Rejection(String message, String notification) {
+    }
+
+    private String predictGenreFromLyrics(String lyrics) {
+        if (lyrics == null || lyrics.isBlank()) {
+            return null;
+        }
+        FastApiResponse result = extractResponseFromJson(fastApiService.lyricsPredictGenre(lyrics).getBody());
+        return result != null ? result.getGenre() : null;
+    }
+
     public CompletableFuture<Path> downloadAudioFromCloudinary(String cloudinaryUrl, String destinationFolder, String name) {
         try {
             // Generate unique file name to avoid conflicts
@@ -245,6 +302,21 @@ public class SongServiceImpl implements SongService {
         }
     }
 
+    // File staged có thể dùng chung giữa các bài trùng nội dung: chỉ xoá khi không còn bài nào chờ xử lý nó
+    private void releaseStagedAudio(String audioSha256, Long songId) {
+        if (audioSha256 == null) {
+            return;
+        }
+        try {
+            if (!songRepository.existsByAudioSha256AndSongStatusInAndIdNot(
+                    audioSha256, List.of(SongStatus.DRAFT, SongStatus.PROCESSING), songId)) {
+                audioStagingStore.release(audioSha256);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to release staged audio {}: {}", audioSha256, e.getMessage());
+        }
+    }
+
     public void sendRejectedNotification(Song song, String reason) {
         for (ArtistSong artistSong : song.getArtistSongs()) {
             Long artistId = artistSong.getArtistSongId().getArtist().getId();
@@ -278,12 +350,14 @@ public class SongServiceImpl implements SongService {
                 .downloadPermission(enriched.getDownloadPermission())
                 .description(enriched.getDescription())
                 .mp3Url(enriched.getMp3Url())
+                .audioSha256(enriched.getAudioSha256())
                 .countListener(0L)
                 .songStatus(SongStatus.DRAFT)
                 .createdDate(now)
                 .lastModifiedDate(now)
                 .build();
         songRepository.save(song);
+        songStatisticsService.createStats(song.getId());
 
         Artist artist = artistRepository.findById(artistId)
                 .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
@@ -315,6 +389,7 @@ public class SongServiceImpl implements SongService {
     }
 
     @Override
+    @Transactional
     public ApiResponse uploadSong(Long songId) {
         ZonedDateTime dueDateInVietnam = ZonedDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).plusSeconds(60);
         Instant now = dueDateInVietnam.toInstant();
@@ -335,129 +410,144 @@ public class SongServiceImpl implements SongService {
         return ApiResponse.ok("Upload song successful!");
     }
 
-    @EventListener
-    @Async
-    public CompletableFuture<ApiResponse> processSong(SongUploadedEvent songUploadedEvent) {
+    // Được gọi bởi ProcessingJobQueue; ném lỗi tạm thời ra ngoài để job được thử lại
+    @Override
+    public ApiResponse processSong(Long songId) {
         ZonedDateTime dueDateInVietnam = ZonedDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).plusSeconds(60);
         Instant now = dueDateInVietnam.toInstant();
 
         String message;
-        Long songId = songUploadedEvent.getSongId();
-        Song song = songRepository.findById(songId)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
+        Song song = songRepository.findById(songId).orElse(null);
 
-        if (song.getSongStatus() != SongStatus.PROCESSING) {
+        // Bài đã bị xoá hoặc đã được xử lý xong: job kết thúc, không thử lại
+        if (song == null || song.getSongStatus() != SongStatus.PROCESSING) {
             message = "Song with ID [" + songId + "] not in PROCESSING state.";
             log.warn("❗ {}", message);
-            return CompletableFuture.completedFuture(ApiResponse.ok("🎶 Processing failed", message));
+            return ApiResponse.ok("🎶 Processing failed", message);
         }
 
         boolean isFirstSong = songRepository.countAllSongs() == 0;
         File file = null;
+        boolean staged = false;
+        boolean retrying = false;
 
         try {
-            // Download audio asynchronously
-            CompletableFuture<Path> downloadFuture = downloadAudioFromCloudinary(song.getMp3Url(), uploadDirPath, song.getTitle());
-            Path filePath = downloadFuture.join(); // Wait for download to complete
+            // Dùng file đã giữ lại lúc tạo draft; chỉ tải từ Cloudinary khi không còn (bị evict, đổi node, restart)
+            Path filePath = audioStagingStore.find(song.getAudioSha256()).orElse(null);
+            if (filePath != null) {
+                staged = true;
+                log.info("✅ Using staged audio for Song [{}]: {}", song.getId(), filePath.toAbsolutePath());
+            } else {
+                // Download audio asynchronously
+                CompletableFuture<Path> downloadFuture = downloadAudioFromCloudinary(song.getMp3Url(), uploadDirPath, song.getTitle());
+                filePath = downloadFuture.join(); // Wait for download to complete
+            }
             if (filePath == null) {
-                message = "Failed to download audio for Song [" + song.getId() + "]";
-                log.error("❌ {}", message);
-                return CompletableFuture.completedFuture(ApiResponse.ok("🎶 Processing failed", message));
+                log.error("❌ Failed to download audio for Song [{}]", song.getId());
+                throw new BusinessException(ApiResponseCode.FILE_NOT_FOUND);
             }
 
             file = filePath.toFile();
             if (!file.exists()) {
-                message = "Local file not found: " + filePath;
-                log.error("❗ {}", message);
-                return CompletableFuture.completedFuture(ApiResponse.ok("🎶 Processing failed", message));
+                log.error("❗ Local file not found: {}", filePath);
+                throw new BusinessException(ApiResponseCode.FILE_NOT_FOUND);
             }
 
             MultipartFile mp3File = new JavaFileToMultipartFile(file);
-            FastApiResponse fastApiResult;
-            String requestId;
-
-            if (!isFirstSong) {
-                // 1. Check lyrics similarity
-                if (song.getLyrics() != null && !song.getLyrics().isBlank()) {
-                    fastApiResult = extractResponseFromJson(fastApiService.checkLyricsSimilarity(song.getLyrics()).getBody());
-                    if (Boolean.TRUE.equals(fastApiResult.getMatch())) {
-                        message = "Song [" + song.getId() + "]: Lyrics match another song.";
-                        log.warn("❌ {}", message);
-                        song.setSongStatus(SongStatus.DECLINED);
-                        songRepository.save(song);
-                        sendRejectedNotification(song, "Song failed, your %s song match another song!" + song.getTitle());
-                        return CompletableFuture.completedFuture(ApiResponse.ok("🎶 Processing failed", message));
+            String inputLyrics = song.getLyrics();
+            boolean hasLyrics = inputLyrics != null && !inputLyrics.isBlank();
+
+            // Các bước chạy theo đồ thị phụ thuộc; bước nào DECLINED thì huỷ các bước còn lại
+            CancellableStages<Rejection> stages = new CancellableStages<>(processingExecutor);
+
+            // 1. Lyrics similarity, song song với bước audio
+            if (!isFirstSong && hasLyrics) {
+                stages.supply(() -> {
+                    FastApiResponse result = extractResponseFromJson(fastApiService.checkLyricsSimilarity(inputLyrics).getBody());
+                    if (Boolean.TRUE.equals(result.getMatch())) {
+                        stages.reject(new Rejection("Song [" + song.getId() + "]: Lyrics match another song.",
+                                "Song failed, your %s song match another song!" + song.getTitle()));
                     }
-                }
+                    return result;
+                });
+            }
 
-                // 2. Check audio similarity
-                fastApiResult = extractResponseFromJson(fastApiService.checkAudioSimilarity(mp3File).getBody());
-                if (Boolean.TRUE.equals(fastApiResult.getMatch())) {
-                    message = "Song [" + song.getId() + "]: Audio matches another song.";
-                    log.warn("❌ {}", message);
-                    song.setSongStatus(SongStatus.DECLINED);
-                    songRepository.save(song);
-                    sendRejectedNotification(song, "Song failed, your %s song match another song!" + song.getTitle());
-                    return CompletableFuture.completedFuture(ApiResponse.ok("🎶 Processing failed", message));
+            // 2. Audio similarity (bài đầu tiên thì chỉ transcribe); trả về lyrics nhận dạng và requestId
+            CompletableFuture<FastApiResponse> audioStage = stages.supply(() -> {
+                if (isFirstSong) {
+                    return extractResponseFromJson(fastApiService.transcribeLyricsFromAudio(mp3File).getBody());
                 }
-
-                requestId = fastApiResult.getRequestId();
-
-                // 3. Lyrics transcription or cross-check
-                String transcribedLyrics = fastApiResult.getLyrics();
-                if (song.getLyrics() == null || song.getLyrics().isBlank()) {
-                    song.setLyrics(transcribedLyrics);
-                } else {
-                    FastApiResponse checkResult = extractResponseFromJson(
-                            fastApiService.checkSimilarityBetweenLyricsAndAudio(song.getLyrics(), transcribedLyrics).getBody()
-                    );
-                    if (Boolean.TRUE.equals(checkResult.getIsNotMatch())) {
-                        message = "Song [" + song.getId() + "]: Lyrics ";
-                        log.warn("⚠️ {}", message);
-                        song.setSongStatus(SongStatus.DECLINED);
-                        songRepository.save(song);
-                        sendRejectedNotification(song, "Song failed, your %s song's lyrics and audio do not match. Please try again!" + song.getTitle());
-                        return CompletableFuture.completedFuture(ApiResponse.ok("🎶 Processing failed", message));
-                    }
+                FastApiResponse result = extractResponseFromJson(fastApiService.checkAudioSimilarity(mp3File).getBody());
+                if (Boolean.TRUE.equals(result.getMatch())) {
+                    stages.reject(new Rejection("Song [" + song.getId() + "]: Audio matches another song.",
+                            "Song failed, your %s song match another song!" + song.getTitle()));
                 }
-            } else {
-                // Transcribe only
-                fastApiResult = extractResponseFromJson(fastApiService.transcribeLyricsFromAudio(mp3File).getBody());
-                String transcribedLyrics = fastApiResult.getLyrics();
-                requestId = fastApiResult.getRequestId();
+                return result;
+            });
 
-                if (song.getLyrics() == null || song.getLyrics().isBlank()) {
-                    song.setLyrics(transcribedLyrics);
-                } else {
+            // 3. Cross-check lyrics nhập vào với lyrics nhận dạng từ audio
+            if (hasLyrics) {
+                stages.then(audioStage, audioResult -> {
                     FastApiResponse checkResult = extractResponseFromJson(
-                            fastApiService.checkSimilarityBetweenLyricsAndAudio(song.getLyrics(), transcribedLyrics).getBody()
+                            fastApiService.checkSimilarityBetweenLyricsAndAudio(inputLyrics, audioResult.getLyrics()).getBody()
                     );
                     if (Boolean.TRUE.equals(checkResult.getIsNotMatch())) {
-                        message = "Song [" + song.getId() + "]: Lyrics and audio do not match.";
-                        log.warn("⚠️ {}", message);
-                        song.setSongStatus(SongStatus.DECLINED);
-                        songRepository.save(song);
-                        sendRejectedNotification(song, "Song failed, your %s song match another song!" + song.getTitle());
-                        return CompletableFuture.completedFuture(ApiResponse.ok("🎶 Processing failed", message));
+                        stages.reject(new Rejection("Song [" + song.getId() + "]: Lyrics and audio do not match.",
+                                "Song failed, your %s song's lyrics and audio do not match. Please try again!" + song.getTitle()));
                     }
-                }
+                    return checkResult;
+                });
+            }
+
+            // 4. Predict genres, chạy chồng lên cross-check
+            CompletableFuture<String> lyricsGenreStage = hasLyrics
+                    ? stages.supply(() -> predictGenreFromLyrics(inputLyrics))
+                    : stages.then(audioStage, audioResult -> predictGenreFromLyrics(audioResult.getLyrics()));
+            CompletableFuture<String> audioGenreStage = stages.then(audioStage, audioResult ->
+                    extractResponseFromJson(fastApiService.audioPredictGenre(mp3File, audioResult.getRequestId()).getBody()).getGenre());
+
+            stages.awaitAll();
+
+            Rejection rejection = stages.getRejection();
+            if (rejection != null) {
+                message = rejection.message();
+                log.warn("❌ {}", message);
+                song.setSongStatus(SongStatus.DECLINED);
+                songRepository.save(song);
+                sendRejectedNotification(song, rejection.notification());
+                return ApiResponse.ok("🎶 Processing failed", message);
             }
 
-            // 4. Predict genres & save
-            fastApiService.handleGenres(song, null, song.getLyrics(), mp3File, requestId);
+            if (!hasLyrics) {
+                song.setLyrics(audioStage.join().getLyrics());
+            }
+            fastApiService.saveFinalGenre(song, lyricsGenreStage.join(), audioGenreStage.join());
             song.setSongStatus(SongStatus.PENDING);
             song.setLastModifiedDate(now);
             songRepository.save(song);
             message = "Song [" + song.getId() + "] processed successfully.";
             log.info("✅ {}", message);
+        } catch (BusinessException ex) {
+            if (TRANSIENT_PROCESSING_FAILURES.contains(ex.getMessage())) {
+                // Giữ PROCESSING và file staged để lần thử lại dùng tiếp
+                retrying = true;
+                log.warn("⚠️ Song [{}] processing failed temporarily: {}", song.getId(), ex.getMessage());
+                throw ex;
+            }
+            message = "Song [" + song.getId() + "] failed with error: " + ex.getMessage();
+            song.setSongStatus(SongStatus.DECLINED);
+            songRepository.save(song);
+            log.error("❗ {}", message, ex);
         } catch (Exception ex) {
             message = "Song [" + song.getId() + "] failed with error: " + ex.getMessage();
             song.setSongStatus(SongStatus.DECLINED);
             songRepository.save(song);
             log.error("❗ {}", message, ex);
         } finally {
-            // Ensure file deletion
-            if (file != null && file.exists()) {
+            if (staged && !retrying) {
+                releaseStagedAudio(song.getAudioSha256(), song.getId());
+            } else if (!staged && file != null && file.exists()) {
+                // Ensure file deletion
                 boolean deleted = file.delete();
                 if (deleted) {
                     log.info("🧹 Deleted temporary file: {}", file.getAbsolutePath());
@@ -467,10 +557,24 @@ public class SongServiceImpl implements SongService {
             }
         }
 
-        return CompletableFuture.completedFuture(ApiResponse.ok("🎶 Processing completed", message));
+        return ApiResponse.ok("🎶 Processing completed", message);
     }
 
     @Override
+    public void declineProcessing(Long songId, String reason) {
+        Song song = songRepository.findById(songId).orElse(null);
+        if (song == null || song.getSongStatus() != SongStatus.PROCESSING) {
+            return;
+        }
+        song.setSongStatus(SongStatus.DECLINED);
+        songRepository.save(song);
+        releaseStagedAudio(song.getAudioSha256(), song.getId());
+        log.error("❌ Song [{}] declined after repeated processing failures: {}", songId, reason);
+        sendRejectedNotification(song, "Song failed, your %s song could not be processed. Please upload it again!" + song.getTitle());
+    }
+
+    @Override
+    @Transactional
     public ApiResponse publishSong(Long id) {
         ZonedDateTime dueDateInVietnam = ZonedDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).plusSeconds(60);
         Instant now = dueDateInVietnam.toInstant();
@@ -485,18 +589,18 @@ public class SongServiceImpl implements SongService {
             song.setCountListener(0L);
             song.setLastModifiedDate(now);
             songRepository.save(song);
+            applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.SONG, song.getId()));
             for (ArtistSong artistSong : song.getArtistSongs()) {
                 Long artistId = artistSong.getArtistSongId().getArtist().getId();
                 notificationService.notifyArtistSongAccepted(artistId, song.getTitle());
-                for (Long userId : artistUserFollowRepository.findByArtistId(artistId)) {
-                    notificationService.notifyUserNewSong(userId, artistId, song.getTitle());
-                }
+                notificationService.notifyFollowersNewSong(artistId, song.getTitle());
             }
             return ApiResponse.ok("Song accepted!");
         }
     }
 
     @Override
+    @Transactional
     public ApiResponse declineSong(Long id) {
         ZonedDateTime dueDateInVietnam = ZonedDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh")).plusSeconds(60);
         Instant now = dueDateInVietnam.toInstant();
@@ -613,12 +717,22 @@ public class SongServiceImpl implements SongService {
 
             song.setMp3Url(audioUrl);
             song.setDuration(formattedDuration);
+
+            // Draft đổi file: thay bản staged cũ bằng file mới
+            if (song.getSongStatus() == SongStatus.DRAFT) {
+                String previousSha256 = song.getAudioSha256();
+                song.setAudioSha256(audioStagingStore.stage(request.getFile()).orElse(null));
+                if (previousSha256 != null && !previousSha256.equals(song.getAudioSha256())) {
+                    releaseStagedAudio(previousSha256, song.getId());
+                }
+            }
         }
 
         song.setLastModifiedDate(now);
         song.setSongStatus(song.getSongStatus());
         Song updated = songRepository.save(song);
         songRepository.save(updated);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.SONG, songId));
 
         return ApiResponse.ok();
     }
@@ -631,6 +745,8 @@ public class SongServiceImpl implements SongService {
 
         // Xoá bài hát
         songRepository.delete(song);
+        trendingService.removeSong(id);
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.SONG, id));
 
         return ApiResponse.ok("Xoá bài hát thành công!");
     }
@@ -639,44 +755,37 @@ public class SongServiceImpl implements SongService {
     public List<SongResponse> getAllSongs() {
         List<Song> songs = songRepository.findAll();
 
-        return songs.stream()
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+        return convertToSongResponses(songs);
     }
 
     @Override
     public List<SongResponse> getAllSongsByArtistId(Long artistId) {
         List<Song> songs = songRepository.findByArtistId(artistId);
-        return songs.stream()
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+        return convertToSongResponses(songs);
     }
 
     @Override
     public List<SongResponse> getAllAcceptedSongsByArtistId(Long artistId) {
         List<Song> songs = songRepository.findByArtistId(artistId);
-        return songs.stream()
+        return convertToSongResponses(songs.stream()
                 .filter(p -> p.getSongStatus().equals(SongStatus.ACCEPTED))
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+                .toList());
     }
 
     @Override
     public List<SongResponse> getAllAcceptedSongsByPlaylistId(Long playlistId) {
         List<Song> songs = songRepository.findByPlaylistId(playlistId);
-        return songs.stream()
+        return convertToSongResponses(songs.stream()
                 .filter(p -> p.getSongStatus().equals(SongStatus.ACCEPTED))
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+                .toList());
     }
 
     @Override
     public List<SongResponse> getAllAcceptedSongsByAlbumId(Long albumId) {
         List<Song> songs = songRepository.findByAlbumId(albumId);
-        return songs.stream()
+        return convertToSongResponses(songs.stream()
                 .filter(p -> p.getSongStatus().equals(SongStatus.ACCEPTED))
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+                .toList());
     }
 
     @Override
@@ -692,14 +801,12 @@ public class SongServiceImpl implements SongService {
         List<Song> songs = genreSongs.stream()
                 .map(gs -> gs.getGenreSongId().getSong())
                 .toList();
-        return songs.stream()
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+        return convertToSongResponses(songs);
     }
 
     @Override
     public Long getNumberOfListener(Long songId) {
-        Long numberOfListener = userSongCountRepository.countDistinctUsersBySongId(songId);
+        Long numberOfListener = songStatsLoader.loadStats(songId).getNumberOfListeners();
         Song song = songRepository.findById(songId)
                 .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
         if (numberOfListener >= 10) {
@@ -714,29 +821,46 @@ public class SongServiceImpl implements SongService {
 
     @Override
     public Long getCountListen(Long songId) {
-        return userSongCountRepository.getTotalCountListenBySongId(songId);
+        return songStatsLoader.loadStats(songId).getCountListen();
+    }
+
+    @Override
+    public List<DailyListenResponse> getDailyListens(Long songId, LocalDate from, LocalDate to) {
+        if (!songRepository.existsById(songId)) {
+            throw new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND);
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new BusinessException(ApiResponseCode.BAD_REQUEST);
+        }
+
+        // Đọc từ bảng tổng hợp theo ngày thay vì history_listens
+        return songDailyListenRepository.findBySongIdAndDayBetween(songId, start, end).stream()
+                .map(daily -> DailyListenResponse.builder()
+                        .day(daily.getSongDailyListenId().getDay().toString())
+                        .listens(daily.getListens())
+                        .listeners(daily.getListeners())
+                        .build())
+                .toList();
     }
 
     @Override
     public List<SongResponse> getAcceptedSongsByArtistId() {
         Long artistId = jwtHelper.getIdUserRequesting();
         List<Song> songs = songRepository.findByArtistIdAndStatus(artistId, SongStatus.ACCEPTED);
-        return songs.stream()
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+        return convertToSongResponses(songs);
     }
 
     @Override
     public List<SongResponse> getAllAcceptedSongs() {
         List<Song> songs = songRepository.findAllBySongStatus(SongStatus.ACCEPTED);
-        return songs.stream()
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+        return convertToSongResponses(songs);
     }
 
     @Override
     public Long getNumberOfDownload(Long songId) {
-        Long numberOfDownload = userSongDownloadRepository.countDistinctUsersBySongId(songId);
+        Long numberOfDownload = songStatsLoader.loadStats(songId).getNumberOfDownload();
         Song song = songRepository.findById(songId)
                 .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
         if (numberOfDownload >= 10) {
@@ -751,40 +875,35 @@ public class SongServiceImpl implements SongService {
 
     @Override
     public List<SongResponse> getTop10TrendingSongs() {
-        List<Object[]> topSongs = userSongCountRepository.findTopSongsByListenCount(10, 0);
-
-        List<Song> songs = topSongs.stream()
-                .map(obj -> {
-                    Long songId = ((Number) obj[0]).longValue();
-                    return songRepository.findById(songId).orElse(null);
-                })
-                .filter(Objects::nonNull)
-                .toList();
-
-        return songs.stream()
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+        return getTrendingSongs(TrendingMetric.LISTENS, TrendingWindow.fromValue(topListensWindow), 10);
     }
 
     @Override
     public List<SongResponse> getTop15MostDownloadSong() {
-        List<Song> songs = songRepository.findAll().stream()
-                .sorted((s1, s2) -> {
-                    Long count1 = userSongDownloadRepository.countDistinctUsersBySongId(s1.getId());
-                    Long count2 = userSongDownloadRepository.countDistinctUsersBySongId(s2.getId());
-                    return count2.compareTo(count1);
-                })
-                .limit(15)
+        return getTrendingSongs(TrendingMetric.DOWNLOADS, TrendingWindow.fromValue(topDownloadsWindow), 15);
+    }
+
+    @Override
+    public List<SongResponse> getTrendingSongs(TrendingMetric metric, TrendingWindow window, int limit) {
+        List<Long> songIds = trendingService.getTopSongIds(metric, window, limit);
+        if (songIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Giữ nguyên thứ tự xếp hạng, bỏ qua bài hát đã bị xoá
+        Map<Long, Song> songsById = songRepository.findAllById(songIds).stream()
+                .collect(Collectors.toMap(Song::getId, song -> song));
+        List<Song> songs = songIds.stream()
+                .map(songsById::get)
+                .filter(Objects::nonNull)
                 .toList();
 
-        return songs.stream()
-                .map(this::convertToSongResponse)
-                .collect(Collectors.toList());
+        return convertToSongResponses(songs);
     }
 
     @Override
     public Long getNumberOfUserLike(Long songId) {
-        return userSongLikeRepository.countDistinctUsersBySongId(songId);
+        return songStatsLoader.loadStats(songId).getNumberOfUserLike();
     }
 
     @Override
@@ -823,6 +942,7 @@ public class SongServiceImpl implements SongService {
                 .lastModifiedDate(now)
                 .build();
         song = songRepository.save(song);
+        songStatisticsService.createStats(song.getId());
 
         List<Long> artistIds = request.getArtistIds();
         for (Long artistId : artistIds) {
@@ -839,6 +959,8 @@ public class SongServiceImpl implements SongService {
             genreSongRepository.save(new GenreSong(new GenreSongId(song, genre)));
         }
 
+        applicationEventPublisher.publishEvent(new CatalogChangedEvent(this, SearchContentType.SONG, song.getId()));
+
         return ApiResponse.ok("Thêm bài hát thành công!");
     }
 
@@ -0,0 +1,49 @@
+package com.spring.service.impl;
+
+import com.spring.repository.SongStatisticsRepository;
+import com.spring.service.SongStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class SongStatisticsServiceImpl implements SongStatisticsService {
+    private static final Logger log = LoggerFactory.getLogger(SongStatisticsServiceImpl.class);
+    // Khoá advisory dùng chung giữa các node cho việc rebuild song_stats
+    private static final long REBUILD_LOCK_KEY = 0x736f6e675f737461L;
+
+    private final SongStatisticsRepository songStatisticsRepository;
+
+    @Override
+    public void createStats(Long songId) {
+        songStatisticsRepository.createIfAbsent(songId);
+    }
+
+    @Override
+    public void incrementLikes(Long songId, long delta) {
+        songStatisticsRepository.incrementLikes(songId, delta);
+    }
+
+    @Override
+    public void incrementDownloads(Long songId, long delta) {
+        songStatisticsRepository.incrementDownloads(songId, delta);
+    }
+
+    @Override
+    public int reconcile() {
+        if (!songStatisticsRepository.tryLockRebuild(REBUILD_LOCK_KEY)) {
+            log.info("Skip reconciling song_stats: another node is already rebuilding it");
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        int removed = songStatisticsRepository.deleteOrphans();
+        int rebuilt = songStatisticsRepository.rebuildAll();
+        log.info("Reconciled song_stats: {} rows rebuilt, {} orphan rows removed in {} ms",
+                rebuilt, removed, System.currentTimeMillis() - start);
+        return rebuilt;
+    }
+}
@@ -0,0 +1,49 @@
+package com.spring.service.impl;
+
+import com.spring.dto.SongStats;
+import com.spring.entities.SongStatistics;
+import com.spring.repository.SongStatisticsRepository;
+import com.spring.service.SongStatsLoader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class SongStatsLoaderImpl implements SongStatsLoader {
+    private final SongStatisticsRepository songStatisticsRepository;
+
+    @Override
+    public Map<Long, SongStats> loadStats(Collection<Long> songIds) {
+        if (songIds == null || songIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Set<Long> ids = new HashSet<>(songIds);
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // Một truy vấn duy nhất trên bảng song_stats cho cả trang
+        Map<Long, SongStats> result = new HashMap<>(ids.size() * 2);
+        for (SongStatistics statistics : songStatisticsRepository.findAllById(ids)) {
+            result.put(statistics.getSongId(), new SongStats(
+                    statistics.getDistinctListeners(),
+                    statistics.getTotalListens(),
+                    statistics.getDownloads(),
+                    statistics.getLikes()
+            ));
+        }
+        for (Long id : ids) {
+            result.putIfAbsent(id, SongStats.EMPTY);
+        }
+        return result;
+    }
+
+    @Override
+    public SongStats loadStats(Long songId) {
+        return loadStats(List.of(songId)).getOrDefault(songId, SongStats.EMPTY);
+    }
+}
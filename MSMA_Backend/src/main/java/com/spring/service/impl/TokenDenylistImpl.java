@@ -0,0 +1,109 @@
+package com.spring.service.impl;
+
+import com.spring.repository.RevokedTokenRepository;
+import com.spring.service.TokenDenylist;
+import com.spring.utils.StringBloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access tokens held in memory as a Bloom filter in front of an exact {@code jti -> expiry} map.
+ * Loaded from {@code revoked_tokens} at startup and kept in sync by polling rows newer than the last one seen,
+ * so revocations made on another instance apply here within {@code token-denylist.sync-interval-ms}.
+ * Entries are dropped once the token would have expired anyway, and the filter is rebuilt to forget them.
+ */
+@Service
+public class TokenDenylistImpl implements TokenDenylist {
+    private static final Logger log = LoggerFactory.getLogger(TokenDenylistImpl.class);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // Đọc lùi một chút để không bỏ sót dòng được ghi (revoked_at) trước nhưng commit sau lần đồng bộ trước
+    private static final long SYNC_OVERLAP_MS = 5_000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedRevocations;
+
+    private final ConcurrentHashMap<String, Long> expiresAtByJti = new ConcurrentHashMap<>();
+    private volatile StringBloomFilter bloomFilter;
+    private volatile Instant lastSeenRevokedAt;
+
+    public TokenDenylistImpl(
+            RevokedTokenRepository revokedTokenRepository,
+            @Value("${token-denylist.expected-revocations:100000}") int expectedRevocations
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.bloomFilter = new StringBloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+    }
+
+    @PostConstruct
+    public void load() {
+        revokedTokenRepository.createTable();
+        sync();
+        log.info("✅ Token denylist loaded with {} revoked tokens", expiresAtByJti.size());
+    }
+
+    @Scheduled(fixedDelayString = "${token-denylist.sync-interval-ms:5000}")
+    public void sync() {
+        try {
+            Instant since = lastSeenRevokedAt != null ? lastSeenRevokedAt.minusMillis(SYNC_OVERLAP_MS) : null;
+            List<RevokedTokenRepository.RevokedToken> rows = revokedTokenRepository.findActiveSince(since);
+            for (RevokedTokenRepository.RevokedToken row : rows) {
+                addLocal(row.jti(), row.expiresAt());
+                lastSeenRevokedAt = row.revokedAt();
+            }
+        } catch (Exception e) {
+            log.error("❌ Token denylist sync failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${token-denylist.purge-cron:0 */10 * * * *}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        expiresAtByJti.values().removeIf(expiresAt -> expiresAt <= now);
+
+        StringBloomFilter fresh = new StringBloomFilter(Math.max(expectedRevocations, expiresAtByJti.size() * 2), FALSE_POSITIVE_RATE);
+        expiresAtByJti.keySet().forEach(fresh::add);
+        bloomFilter = fresh;
+        // Lượt thứ hai bắt các jti được thêm vào filter cũ trong lúc đang dựng filter mới
+        expiresAtByJti.keySet().forEach(fresh::add);
+
+        try {
+            revokedTokenRepository.deleteExpired();
+        } catch (Exception e) {
+            log.error("❌ Revoked token cleanup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = expiresAtByJti.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    @Override
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        revokedTokenRepository.insert(jti, expiresAt);
+        addLocal(jti, expiresAt);
+    }
+
+    // Helper Method
+    private void addLocal(String jti, Instant expiresAt) {
+        // Ghi vào map trước filter: filter chỉ là bộ lọc nhanh, map mới là nguồn quyết định
+        expiresAtByJti.put(jti, expiresAt.toEpochMilli());
+        bloomFilter.add(jti);
+    }
+}
@@ -0,0 +1,191 @@
+package com.spring.service.impl;
+
+import com.spring.constants.TrendingMetric;
+import com.spring.constants.TrendingWindow;
+import com.spring.entities.SongStatistics;
+import com.spring.repository.HistoryListenRepository;
+import com.spring.repository.SongStatisticsRepository;
+import com.spring.repository.UserSongDownloadRepository;
+import com.spring.repository.UserSongLikeRepository;
+import com.spring.service.TrendingService;
+import com.spring.utils.WindowedTopK;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Service
+public class TrendingServiceImpl implements TrendingService {
+    private static final Logger log = LoggerFactory.getLogger(TrendingServiceImpl.class);
+
+    // Cửa sổ trượt theo từng giờ, khớp với date_trunc('hour') của truy vấn seed
+    private static final Duration BUCKET = Duration.ofHours(1);
+
+    private final HistoryListenRepository historyListenRepository;
+    private final UserSongLikeRepository userSongLikeRepository;
+    private final UserSongDownloadRepository userSongDownloadRepository;
+    private final SongStatisticsRepository songStatisticsRepository;
+    private final int capacity;
+
+    // Thay cả bộ bảng xếp hạng khi seed lại để không phải khóa đường ghi
+    private volatile Map<TrendingMetric, Map<TrendingWindow, WindowedTopK>> boards;
+
+    public TrendingServiceImpl(
+            HistoryListenRepository historyListenRepository,
+            UserSongLikeRepository userSongLikeRepository,
+            UserSongDownloadRepository userSongDownloadRepository,
+            SongStatisticsRepository songStatisticsRepository,
+            @Value("${trending.capacity:1000}") int capacity
+    ) {
+        this.historyListenRepository = historyListenRepository;
+        this.userSongLikeRepository = userSongLikeRepository;
+        this.userSongDownloadRepository = userSongDownloadRepository;
+        this.songStatisticsRepository = songStatisticsRepository;
+        this.capacity = capacity;
+        this.boards = newBoards(System.currentTimeMillis());
+    }
+
+    @Override
+    public List<Long> getTopSongIds(TrendingMetric metric, TrendingWindow window, int limit) {
+        return boards.get(metric).get(window).top(limit);
+    }
+
+    @Override
+    public void recordListen(Long songId) {
+        record(TrendingMetric.LISTENS, songId, 1L);
+    }
+
+    @Override
+    public void recordDownload(Long songId, long delta) {
+        record(TrendingMetric.DOWNLOADS, songId, delta);
+    }
+
+    @Override
+    public void recordLike(Long songId, long delta) {
+        record(TrendingMetric.LIKES, songId, delta);
+    }
+
+    @Override
+    public void removeSong(Long songId) {
+        for (Map<TrendingWindow, WindowedTopK> byWindow : boards.values()) {
+            byWindow.values().forEach(board -> board.remove(songId));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${trending.reseed-cron:0 15 * * * *}")
+    @Override
+    public void reseed() {
+        long start = System.currentTimeMillis();
+        try {
+            Map<TrendingMetric, Map<TrendingWindow, WindowedTopK>> seeded = newBoards(start);
+            Duration longest = TrendingWindow.WEEK.getDuration();
+            Instant since = Instant.ofEpochMilli(start).minus(longest);
+
+            seedWindows(seeded.get(TrendingMetric.LISTENS),
+                    historyListenRepository.countListensBySongAndHourSince(LocalDateTime.ofInstant(since, ZoneId.systemDefault())));
+            seedWindows(seeded.get(TrendingMetric.LIKES), userSongLikeRepository.countLikesBySongAndHourSince(since));
+            seedWindows(seeded.get(TrendingMetric.DOWNLOADS), userSongDownloadRepository.countDownloadsBySongAndHourSince(since));
+
+            // Tổng toàn thời gian lấy đủ mọi bài hát (mỗi bài một dòng song_stats) để đếm chính xác
+            List<SongStatistics> allStats = songStatisticsRepository.findAll();
+            seedAllTime(seeded.get(TrendingMetric.LISTENS).get(TrendingWindow.ALL_TIME), allStats, SongStatistics::getTotalListens, start);
+            seedAllTime(seeded.get(TrendingMetric.LIKES).get(TrendingWindow.ALL_TIME), allStats, SongStatistics::getLikes, start);
+            seedAllTime(seeded.get(TrendingMetric.DOWNLOADS).get(TrendingWindow.ALL_TIME), allStats, SongStatistics::getDownloads, start);
+
+            refresh(seeded);
+            boards = seeded;
+            log.info("Trending boards seeded in {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("❌ Seeding trending boards failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trending.refresh-interval-ms:5000}")
+    public void refresh() {
+        refresh(boards);
+    }
+
+    private void record(TrendingMetric metric, Long songId, long delta) {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<TrendingWindow, WindowedTopK> entry : boards.get(metric).entrySet()) {
+            // Bỏ thích / xóa tải xuống chỉ trừ vào tổng, các cửa sổ đếm lượt mới trong khoảng thời gian
+            if (delta < 0 && entry.getKey() != TrendingWindow.ALL_TIME) {
+                continue;
+            }
+            entry.getValue().add(songId, delta, now);
+        }
+    }
+
+    private void refresh(Map<TrendingMetric, Map<TrendingWindow, WindowedTopK>> target) {
+        long now = System.currentTimeMillis();
+        for (Map<TrendingWindow, WindowedTopK> byWindow : target.values()) {
+            byWindow.values().forEach(board -> board.refresh(now));
+        }
+    }
+
+    private void seedWindows(Map<TrendingWindow, WindowedTopK> byWindow, List<Object[]> buckets) {
+        for (Object[] row : buckets) {
+            long songId = ((Number) row[0]).longValue();
+            long bucketMs = toEpochMilli(row[1]);
+            long count = ((Number) row[2]).longValue();
+            for (Map.Entry<TrendingWindow, WindowedTopK> entry : byWindow.entrySet()) {
+                if (entry.getKey() != TrendingWindow.ALL_TIME) {
+                    entry.getValue().add(songId, count, bucketMs);
+                }
+            }
+        }
+    }
+
+    private void seedAllTime(WindowedTopK board, List<SongStatistics> rows, Function<SongStatistics, Long> scoreOf, long now) {
+        for (SongStatistics row : rows) {
+            Long score = scoreOf.apply(row);
+            if (score != null && score > 0) {
+                board.add(row.getSongId(), score, now);
+            }
+        }
+    }
+
+    private Map<TrendingMetric, Map<TrendingWindow, WindowedTopK>> newBoards(long now) {
+        Map<TrendingMetric, Map<TrendingWindow, WindowedTopK>> result = new EnumMap<>(TrendingMetric.class);
+        for (TrendingMetric metric : TrendingMetric.values()) {
+            Map<TrendingWindow, WindowedTopK> byWindow = new EnumMap<>(TrendingWindow.class);
+            for (TrendingWindow window : TrendingWindow.values()) {
+                if (window.getDuration() == null) {
+                    byWindow.put(window, new WindowedTopK(0L, 0, capacity, now));
+                } else {
+                    int bucketCount = (int) window.getDuration().dividedBy(BUCKET);
+                    byWindow.put(window, new WindowedTopK(BUCKET.toMillis(), bucketCount, capacity, now));
+                }
+            }
+            result.put(metric, byWindow);
+        }
+        return result;
+    }
+
+    private static long toEpochMilli(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.getTime();
+        }
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        if (value instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.toInstant().toEpochMilli();
+        }
+        if (value instanceof Instant instant) {
+            return instant.toEpochMilli();
+        }
+        throw new IllegalArgumentException("Unsupported timestamp type: " + value);
+    }
+}
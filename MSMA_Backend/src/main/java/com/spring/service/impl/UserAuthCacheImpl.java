@@ -0,0 +1,175 @@
+package com.spring.service.impl;
+
+import com.spring.dto.UserAuthChangedEvent;
+import com.spring.entities.User;
+import com.spring.repository.UserRepository;
+import com.spring.service.UserAuthCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Size- and TTL-bounded cache of user snapshots used on the authentication hot path, keyed by id and by email.
+ * Entries are dropped after {@code auth-cache.ttl-seconds} at the latest, and immediately when a
+ * {@link UserAuthChangedEvent} is committed, so a lock or delete takes effect on the next request.
+ */
+@Service
+public class UserAuthCacheImpl implements UserAuthCache {
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxSize;
+
+    // ReentrantLock thay cho synchronized: virtual thread chờ lock không giữ chặt carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+    // LRU theo id; idByEmail luôn được cập nhật cùng lúc dưới cùng một lock
+    private final LinkedHashMap<Long, Entry> byId = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> idByEmail = new HashMap<>();
+    // Tăng mỗi lần invalidate: kết quả đọc DB trước đó không được ghi đè lên trạng thái mới
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserAuthCacheImpl(
+            UserRepository userRepository,
+            @Value("${auth-cache.enabled:true}") boolean enabled,
+            @Value("${auth-cache.ttl-seconds:30}") long ttlSeconds,
+            @Value("${auth-cache.max-size:10000}") int maxSize
+    ) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxSize = maxSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAuthChanged(UserAuthChangedEvent event) {
+        invalidate(event.getUserId(), event.getEmail());
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        if (!enabled || email == null) {
+            return userRepository.findByEmail(email);
+        }
+        lock.lock();
+        try {
+            Long id = idByEmail.get(email);
+            User cached = id != null ? getFresh(id) : null;
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return load(() -> userRepository.findByEmail(email));
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        if (!enabled || id == null) {
+            return userRepository.findById(id);
+        }
+        lock.lock();
+        try {
+            User cached = getFresh(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return load(() -> userRepository.findById(id));
+    }
+
+    @Override
+    public void invalidate(Long userId, String email) {
+        generation.incrementAndGet();
+        lock.lock();
+        try {
+            if (userId != null) {
+                remove(userId);
+            }
+            if (email != null) {
+                Long id = idByEmail.get(email);
+                if (id != null) {
+                    remove(id);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        lock.lock();
+        try {
+            byId.clear();
+            idByEmail.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Helper Method
+    private Optional<User> load(Supplier<Optional<User>> loader) {
+        long loadedAtGeneration = generation.get();
+        Optional<User> user = loader.get();
+        user.ifPresent(u -> put(u, loadedAtGeneration));
+        return user;
+    }
+
+    private void put(User user, long loadedAtGeneration) {
+        lock.lock();
+        try {
+            if (generation.get() != loadedAtGeneration) {
+                return;
+            }
+            remove(user.getId());
+            byId.put(user.getId(), new Entry(user, System.nanoTime() + ttlNanos));
+            idByEmail.put(user.getEmail(), user.getId());
+
+            Iterator<Map.Entry<Long, Entry>> eldest = byId.entrySet().iterator();
+            while (byId.size() > maxSize && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                idByEmail.remove(evicted.user().getEmail());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gọi khi đang giữ lock
+    private User getFresh(Long id) {
+        Entry entry = byId.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            remove(id);
+            return null;
+        }
+        return entry.user();
+    }
+
+    // Gọi khi đang giữ lock
+    private void remove(Long id) {
+        Entry entry = byId.remove(id);
+        if (entry != null) {
+            idByEmail.remove(entry.user().getEmail(), id);
+        }
+    }
+
+    private record Entry(User user, long expiresAt) {
+    }
+}
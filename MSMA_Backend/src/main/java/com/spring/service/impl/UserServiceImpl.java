@@ -1,7 +1,7 @@
 package com.spring.service.impl;
 
 import com.spring.entities.User;
-import com.spring.repository.UserRepository;
+import com.spring.service.UserAuthCache;
 import com.spring.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,7 +12,7 @@ import org.springframework.stereotype.Service;
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
-    private final UserRepository userRepository;
+    private final UserAuthCache userAuthCache;
     private final UserDetailsCustomServiceImpl userDetailsCustomServiceImpl;
 
     @Override
@@ -22,12 +22,16 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserDetails loadUserByUsername(String username) {
-        return this.userDetailsCustomServiceImpl.loadUserByUsername(username);
+        // Bản ghi cache chỉ dùng khi còn ACTIVE; các trường hợp khác đi qua truy vấn gốc để giữ nguyên lỗi trả về
+        return userAuthCache.findByEmail(username)
+                .filter(User::isEnabled)
+                .map(UserDetails.class::cast)
+                .orElseGet(() -> this.userDetailsCustomServiceImpl.loadUserByUsername(username));
     }
 
     @Override
     public User findByEmail(String email) {
-        return userRepository.findByEmail(email)
+        return userAuthCache.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Không tìm thấy người dùng với email: " + email));
     }
 }
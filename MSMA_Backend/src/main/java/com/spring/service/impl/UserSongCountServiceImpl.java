@@ -1,13 +1,20 @@
 package com.spring.service.impl;
 
 import com.spring.constants.ApiResponseCode;
+import com.spring.dto.ListenEvent;
+import com.spring.dto.SongStats;
 import com.spring.dto.response.ApiResponse;
 import com.spring.dto.response.HistoryListenResponse;
 import com.spring.entities.*;
 import com.spring.exceptions.BusinessException;
 import com.spring.repository.*;
 import com.spring.security.JwtHelper;
+import com.spring.service.HistoryListenPartitionService;
+import com.spring.service.ListenEventBuffer;
+import com.spring.service.SongStatsLoader;
+import com.spring.service.TrendingService;
 import com.spring.service.UserSongCountService;
+import com.spring.utils.KeysetCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -15,133 +22,99 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserSongCountServiceImpl implements UserSongCountService {
-    private final UserSongCountRepository userSongCountRepository;
-    private final UserSongDownloadRepository userSongDownloadRepository;
-    private final UserSongLikeRepository userSongLikeRepository;
-    private final UserRepository userRepository;
+    private static final int RECENT_LISTENING_LIMIT = 5;
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
+    private static final int RECENT_WINDOW_MONTHS = 1;
+
     private final SongRepository songRepository;
     private final HistoryListenRepository historyListenRepository;
+    private final SongStatsLoader songStatsLoader;
+    private final ListenEventBuffer listenEventBuffer;
+    private final TrendingService trendingService;
+    private final HistoryListenPartitionService historyListenPartitionService;
     private final JwtHelper jwtHelper;
 
     @Override
     public ApiResponse incrementListenCount(Long songId) {
         Long userId = jwtHelper.getIdUserRequesting();
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
-        Song song = songRepository.findById(songId)
-                .orElseThrow(() -> new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND));
-
-        UserSongCountId countId = new UserSongCountId(song, user);
-
-        UserSongCount userSongCount = userSongCountRepository.findById(countId)
-                .orElse(UserSongCount.builder()
-                        .userSongCountId(countId)
-                        .countListen(0L)
-                        .build());
-
-        boolean isFirstListen = userSongCount.getCountListen() == 0;
-
-        userSongCount.setCountListen(userSongCount.getCountListen() + 1);
-        userSongCountRepository.save(userSongCount);
-
-        if (isFirstListen) {
-            song.setCountListener(song.getCountListener() != null ? song.getCountListener() + 1 : 1);
-            songRepository.save(song);
+        if (!songRepository.existsById(songId)) {
+            throw new BusinessException(ApiResponseCode.ENTITY_NOT_FOUND);
         }
 
-        HistoryListen historyListen = HistoryListen.builder()
-                .user(user)
-                .song(song)
-                .dateTime(LocalDateTime.now())
-                .build();
-        historyListenRepository.save(historyListen);
+        // Ghi trễ: user_song_count, history_listens và song_stats được cập nhật theo lô
+        listenEventBuffer.record(new ListenEvent(userId, songId, LocalDateTime.now()));
+        trendingService.recordListen(songId);
 
         return ApiResponse.ok("Listen count incremented successfully");
     }
 
     @Override
-    public List<HistoryListenResponse> getAllHistoryListenByCurrentUser() {
+    public List<HistoryListenResponse> getAllHistoryListenByCurrentUser(String cursor, Integer size) {
         Long currentUserId = jwtHelper.getIdUserRequesting();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        KeysetCursor position = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
 
-        // Lấy tất cả lịch sử người dùng hiện tại
-        return historyListenRepository.findAll().stream()
-                .filter(hs -> hs.getUser() != null && hs.getUser().getId().equals(currentUserId))
-                // Nhóm theo songId, lấy bản ghi có thời gian mới nhất
-                .collect(Collectors.toMap(
-                        hs -> hs.getSong().getId(), // key: songId
-                        hs -> hs,                   // value: bản ghi ban đầu
-                        (hs1, hs2) -> hs1.getDateTime().isAfter(hs2.getDateTime()) ? hs1 : hs2 // lấy bản mới hơn
-                ))
-                .values().stream()
-                // Sắp xếp lại theo thời gian mới nhất trước
-                .sorted((a, b) -> b.getDateTime().compareTo(a.getDateTime()))
-                .map(hs -> {
-                    String formattedDate = hs.getDateTime().format(formatter);
-                    String message = "🎧 Last played on " + formattedDate;
-
-                    List<String> genreNames = hs.getSong().getGenreSongs() != null
-                            ? hs.getSong().getGenreSongs().stream()
-                            .map(gs -> gs.getGenreSongId().getGenre().getGenresName())
-                            .filter(Objects::nonNull)
-                            .toList()
-                            : new ArrayList<>();
+        // Client cũ không gửi cursor/size: trả về toàn bộ lịch sử như trước, không cắt trang
+        if (position == null && size == null) {
+            List<HistoryListen> histories = findLatestPerSongSince(
+                    currentUserId, null, historyListenPartitionService.getRetentionStart(), Integer.MAX_VALUE);
+            return convertToHistoryListenResponses(histories);
+        }
 
-                    List<String> artistNameList = hs.getSong().getArtistSongs() != null
-                            ? hs.getSong().getArtistSongs().stream()
-                            .map(as -> as.getArtistSongId().getArtist().getArtistName())
-                            .toList()
-                            : new ArrayList<>();
+        // Mỗi bài hát một dòng (lần nghe mới nhất), phân trang theo (date, id)
+        int limit = Math.min(Math.max(size != null ? size : DEFAULT_HISTORY_PAGE_SIZE, 1), MAX_HISTORY_PAGE_SIZE);
+        List<HistoryListen> histories = findLatestPerSong(currentUserId, position, limit);
 
-                    return HistoryListenResponse.builder()
-                            .id(hs.getSong().getId())
-                            .title(hs.getSong().getTitle() != null ? hs.getSong().getTitle() : "")
-                            .releaseDate(formattedDate)
-                            .lyrics(hs.getSong().getLyrics() != null ? hs.getSong().getLyrics() : "")
-                            .duration(hs.getSong().getDuration() != null ? hs.getSong().getDuration() : "")
-                            .imageUrl(hs.getSong().getImageUrl() != null ? hs.getSong().getImageUrl() : "")
-                            .downloadPermission(hs.getSong().getDownloadPermission() != null ? hs.getSong().getDownloadPermission() : false)
-                            .description(hs.getSong().getDescription() != null ? hs.getSong().getDescription() : "")
-                            .mp3Url(hs.getSong().getMp3Url() != null ? hs.getSong().getMp3Url() : "")
-                            .songStatus(hs.getSong().getSongStatus() != null ? hs.getSong().getSongStatus().name() : null)
-                            .genreNameList(genreNames)
-                            .artistNameList(artistNameList)
-                            .numberOfListeners(userSongCountRepository.countDistinctUsersBySongId(hs.getSong().getId()))
-                            .countListen(userSongCountRepository.getTotalCountListenBySongId(hs.getSong().getId()))
-                            .numberOfDownload(userSongDownloadRepository.countDistinctUsersBySongId(hs.getSong().getId()))
-                            .numberOfUserLike(userSongLikeRepository.countDistinctUsersBySongId(hs.getSong().getId()))
-                            .message(message)
-                            .build();
-                })
-                .toList();
+        return convertToHistoryListenResponses(histories);
     }
 
     @Override
     public List<HistoryListenResponse> getAllRecentListeningCurrentUser() {
         Long currentUserId = jwtHelper.getIdUserRequesting();
+        List<HistoryListen> histories = findLatestPerSong(currentUserId, null, RECENT_LISTENING_LIMIT);
+        return convertToHistoryListenResponses(histories);
+    }
+
+    // Helpers
+    private List<HistoryListen> findLatestPerSong(Long userId, KeysetCursor position, int limit) {
+        LocalDateTime retentionStart = historyListenPartitionService.getRetentionStart();
+        LocalDateTime recentStart = LocalDateTime.now().minusMonths(RECENT_WINDOW_MONTHS);
+
+        // Thử trước với cửa sổ gần đây (1-2 partition), chỉ mở rộng tới hết retention khi chưa đủ dòng
+        if (recentStart.isAfter(retentionStart) && (position == null || position.getDate().isAfter(recentStart))) {
+            List<HistoryListen> recent = findLatestPerSongSince(userId, position, recentStart, limit);
+            if (recent.size() >= limit) {
+                return recent;
+            }
+        }
+        return findLatestPerSongSince(userId, position, retentionStart, limit);
+    }
+
+    private List<HistoryListen> findLatestPerSongSince(Long userId, KeysetCursor position, LocalDateTime since, int limit) {
+        if (position == null) {
+            return historyListenRepository.findLatestPerSongByUserId(userId, since, limit);
+        }
+        return historyListenRepository.findLatestPerSongByUserIdBefore(
+                userId, since, position.getDate(), position.getId(), limit);
+    }
+
+    private List<HistoryListenResponse> convertToHistoryListenResponses(List<HistoryListen> histories) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+        Map<Long, SongStats> statsBySongId = songStatsLoader.loadStats(histories.stream()
+                .map(hs -> hs.getSong().getId())
+                .toList());
 
-        // Lấy tất cả lịch sử người dùng hiện tại
-        return historyListenRepository.findAll().stream()
-                .filter(hs -> hs.getUser() != null && hs.getUser().getId().equals(currentUserId))
-                // Nhóm theo songId, lấy bản ghi có thời gian mới nhất
-                .collect(Collectors.toMap(
-                        hs -> hs.getSong().getId(), // key: songId
-                        hs -> hs,                   // value: bản ghi ban đầu
-                        (hs1, hs2) -> hs1.getDateTime().isAfter(hs2.getDateTime()) ? hs1 : hs2 // lấy bản mới hơn
-                ))
-                .values().stream()
-                // Sắp xếp lại theo thời gian mới nhất trước
-                .sorted((a, b) -> b.getDateTime().compareTo(a.getDateTime()))
+        return histories.stream()
                 .map(hs -> {
                     String formattedDate = hs.getDateTime().format(formatter);
                     String message = "🎧 Last played on " + formattedDate;
+                    SongStats stats = statsBySongId.getOrDefault(hs.getSong().getId(), SongStats.EMPTY);
 
                     List<String> genreNames = hs.getSong().getGenreSongs() != null
                             ? hs.getSong().getGenreSongs().stream()
@@ -169,15 +142,14 @@ public class UserSongCountServiceImpl implements UserSongCountService {
                             .songStatus(hs.getSong().getSongStatus() != null ? hs.getSong().getSongStatus().name() : null)
                             .genreNameList(genreNames)
                             .artistNameList(artistNameList)
-                            .numberOfListeners(userSongCountRepository.countDistinctUsersBySongId(hs.getSong().getId()))
-                            .countListen(userSongCountRepository.getTotalCountListenBySongId(hs.getSong().getId()))
-                            .numberOfDownload(userSongDownloadRepository.countDistinctUsersBySongId(hs.getSong().getId()))
-                            .numberOfUserLike(userSongLikeRepository.countDistinctUsersBySongId(hs.getSong().getId()))
+                            .numberOfListeners(stats.getNumberOfListeners())
+                            .countListen(stats.getCountListen())
+                            .numberOfDownload(stats.getNumberOfDownload())
+                            .numberOfUserLike(stats.getNumberOfUserLike())
                             .message(message)
+                            .cursor(KeysetCursor.encode(hs.getDateTime(), hs.getId()))
                             .build();
                 })
-                .limit(5)
                 .toList();
     }
-
 }
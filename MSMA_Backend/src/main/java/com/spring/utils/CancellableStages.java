@@ -0,0 +1,98 @@
+package com.spring.utils;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A small graph of async stages that share one fate: the first stage to {@link #reject} the work, or to fail,
+ * cancels every sibling. Stages that have not started yet are skipped; a stage already blocked in I/O keeps
+ * running on its thread, but its result is discarded and nothing waits for it.
+ *
+ * @param <R> the rejection reason reported back to the caller
+ */
+public class CancellableStages<R> {
+    private final Executor executor;
+    private final List<CompletableFuture<?>> stages = new CopyOnWriteArrayList<>();
+    private final AtomicReference<R> rejection = new AtomicReference<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+
+    public CancellableStages(Executor executor) {
+        this.executor = executor;
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return register(CompletableFuture.supplyAsync(() -> run(task), executor));
+    }
+
+    public <T, U> CompletableFuture<U> then(CompletableFuture<T> upstream, Function<T, U> task) {
+        return register(upstream.thenApplyAsync(value -> run(() -> task.apply(value)), executor));
+    }
+
+    /**
+     * Records the reason (first one wins) and cancels all stages.
+     */
+    public void reject(R reason) {
+        if (rejection.compareAndSet(null, reason)) {
+            cancelAll();
+        }
+    }
+
+    public R getRejection() {
+        return rejection.get();
+    }
+
+    /**
+     * Waits until every stage has completed or been cancelled.
+     *
+     * @throws RuntimeException the first stage failure, unless the work was rejected
+     */
+    public void awaitAll() {
+        try {
+            CompletableFuture.allOf(stages.toArray(new CompletableFuture[0])).join();
+        } catch (CancellationException | CompletionException e) {
+            if (rejection.get() != null) {
+                return;
+            }
+            // Stage lỗi cũng bị huỷ cùng các stage khác, nên lỗi gốc được giữ riêng
+            throw failure.get() != null ? failure.get() : e;
+        }
+    }
+
+    // Helper Method
+    private <T> T run(Supplier<T> task) {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        try {
+            return task.get();
+        } catch (RuntimeException e) {
+            // Một stage lỗi thì các stage còn lại cũng vô nghĩa
+            failure.compareAndSet(null, e);
+            cancelAll();
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<T> register(CompletableFuture<T> stage) {
+        stages.add(stage);
+        if (cancelled) {
+            stage.cancel(true);
+        }
+        return stage;
+    }
+
+    private void cancelAll() {
+        cancelled = true;
+        for (CompletableFuture<?> stage : stages) {
+            stage.cancel(true);
+        }
+    }
+}
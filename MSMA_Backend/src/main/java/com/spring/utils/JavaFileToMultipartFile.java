@@ -1,6 +1,8 @@
 package com.spring.utils;
 
 import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
@@ -51,6 +53,15 @@ public class JavaFileToMultipartFile implements MultipartFile {
         return Files.readAllBytes(file.toPath());
     }
 
+    /**
+     * Backed by the file itself, so HTTP clients stream it from disk instead of copying it into memory.
+     */
+    @NotNull
+    @Override
+    public Resource getResource() {
+        return new FileSystemResource(file);
+    }
+
     @NotNull
     @Override
     public InputStream getInputStream() throws IOException {
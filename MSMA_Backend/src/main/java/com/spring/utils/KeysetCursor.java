@@ -0,0 +1,42 @@
+package com.spring.utils;
+
+import com.spring.constants.ApiResponseCode;
+import com.spring.exceptions.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque (date, id) position used for keyset pagination. Clients only ever see the encoded string.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+    private final LocalDateTime date;
+    private final Long id;
+
+    public String encode() {
+        String raw = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(LocalDateTime date, Long id) {
+        return new KeysetCursor(date, id).encode();
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new BusinessException(ApiResponseCode.INVALID_FORMAT);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.spring.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff and error-message helpers shared by the components that retry failed work
+ * (processing jobs, the notification outbox and the FastAPI client).
+ */
+public final class Retries {
+    public static final int MAX_ERROR_LENGTH = 2000;
+
+    private Retries() {
+    }
+
+    /**
+     * Exponential backoff: {@code baseDelayMs * 2^(attempt - 1)} capped at {@code maxDelayMs}, with the delay drawn
+     * from [50%, 100%] of that value so that work failing at the same moment is not retried at the same moment.
+     *
+     * @param attempt 1 for the delay after the first failure
+     */
+    public static long backoffMs(int attempt, long baseDelayMs, long maxDelayMs) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(Math.max(attempt - 1, 0), 20));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    /**
+     * "ExceptionType: message", cut to {@link #MAX_ERROR_LENGTH} so it fits a last_error column.
+     */
+    public static String describe(Throwable error) {
+        return truncate(error.getClass().getSimpleName() + ": " + error.getMessage());
+    }
+
+    public static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    /**
+     * Sleeps without throwing; an interrupt restores the thread's interrupt flag.
+     *
+     * @return false if the sleep was interrupted
+     */
+    public static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.spring.utils;
+
+import com.spring.constants.ApiResponseCode;
+import com.spring.exceptions.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque (sort key, id) position for keyset pagination over an arbitrary sort column.
+ * The sort the cursor was issued for is embedded so it cannot be replayed against a different ordering.
+ */
+@Getter
+@AllArgsConstructor
+public class SortKeyCursor {
+    private static final char SEPARATOR = '\n';
+
+    private final String sort;      // orderBy:asc | orderBy:desc
+    private final String value;     // Giá trị khoá sắp xếp ở dạng text của Postgres
+    private final Long id;
+
+    public String encode() {
+        String raw = sort + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sortOf(String orderBy, boolean ascending) {
+        return orderBy + (ascending ? ":asc" : ":desc");
+    }
+
+    public static SortKeyCursor decode(String cursor, String expectedSort) {
+        SortKeyCursor decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int last = raw.lastIndexOf(SEPARATOR);
+            decoded = new SortKeyCursor(
+                    raw.substring(0, first),
+                    raw.substring(first + 1, last),
+                    Long.parseLong(raw.substring(last + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new BusinessException(ApiResponseCode.INVALID_FORMAT);
+        }
+        if (!decoded.getSort().equals(expectedSort)) {
+            throw new BusinessException(ApiResponseCode.INVALID_FORMAT);
+        }
+        return decoded;
+    }
+}
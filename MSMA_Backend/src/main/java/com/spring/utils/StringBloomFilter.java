@@ -0,0 +1,63 @@
+package com.spring.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings, using double hashing ({@code h1 + i * h2}) so that adding and probing
+ * only read the string's characters and allocate nothing. {@link #add} is lock-free and safe to call concurrently
+ * with {@link #mightContain}. Entries cannot be removed; owners rebuild a fresh filter to forget them.
+ */
+public class StringBloomFilter {
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions number of keys at which {@code falsePositiveRate} is reached
+     * @param falsePositiveRate desired probability that an absent key is reported present, e.g. {@code 0.01}
+     */
+    public StringBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, optimalBits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * ln2));
+        this.bits = new AtomicLongArray((bitCount + 63) >>> 6);
+    }
+
+    public void add(String key) {
+        int h1 = key.hashCode();
+        int h2 = secondaryHash(key);
+        for (int i = 0; i < hashCount; i++) {
+            int index = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << index;
+            int word = index >>> 6;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    public boolean mightContain(String key) {
+        int h1 = key.hashCode();
+        int h2 = secondaryHash(key);
+        for (int i = 0; i < hashCount; i++) {
+            int index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a trên các ký tự, độc lập với String.hashCode(); luôn lẻ để các bước nhảy không trùng nhau
+    private static int secondaryHash(String key) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x01000193;
+        }
+        return hash | 1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.spring.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: {@code wheelSize} buckets of {@code tickMs} each, so scheduling and expiring are O(1)
+ * regardless of how many keys are pending. A deadline further away than one revolution simply stays in its bucket
+ * for extra rounds.
+ * <p>
+ * {@link #schedule} is lock-free and may be called from any thread; {@link #advance} must be called from a single
+ * thread (a scheduler tick). Expiry is a hint, not a guarantee of exact timing: owners must still check deadlines on
+ * read, and a callback may fire for a key that has since been rescheduled.
+ */
+public class TimerWheel<K> {
+    private final long tickMs;
+    private final Queue<Timeout<K>>[] buckets;
+    private volatile long processedTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMs, int wheelSize, long nowMs) {
+        this.tickMs = tickMs;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.processedTick = nowMs / tickMs;
+    }
+
+    public void schedule(K key, long deadlineMs) {
+        // Không bao giờ đặt vào bucket đã quét xong, nếu không phải chờ thêm một vòng
+        long tick = Math.max(deadlineMs / tickMs, processedTick + 1);
+        buckets[(int) (tick % buckets.length)].add(new Timeout<>(key, deadlineMs));
+    }
+
+    /**
+     * Fires {@code onExpire} for every key whose deadline is at or before {@code nowMs}.
+     *
+     * @return number of keys expired
+     */
+    public int advance(long nowMs, Consumer<K> onExpire) {
+        long targetTick = nowMs / tickMs;
+        // Sau một khoảng dừng dài chỉ cần quét mỗi bucket một lần
+        long fromTick = Math.max(processedTick + 1, targetTick - buckets.length + 1);
+        int expired = 0;
+        List<Timeout<K>> notYetDue = new ArrayList<>();
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            Queue<Timeout<K>> bucket = buckets[(int) (tick % buckets.length)];
+            Timeout<K> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                if (timeout.deadlineMs() <= nowMs) {
+                    onExpire.accept(timeout.key());
+                    expired++;
+                } else {
+                    notYetDue.add(timeout);
+                }
+            }
+            // Đưa lại sau khi đã rút hết bucket để không quét lặp vô hạn
+            bucket.addAll(notYetDue);
+            notYetDue.clear();
+        }
+        processedTick = Math.max(processedTick, targetTick);
+        return expired;
+    }
+
+    private record Timeout<K>(K key, long deadlineMs) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.spring.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Exact per-key counts over a sliding time window, ranked into a top-K snapshot.
+ * <p>
+ * The window is a ring of fixed-size buckets (e.g. 24 hourly buckets for "24h"): a hit is added both to its
+ * bucket and to the running total of its key, and when a bucket falls out of the window its counts are
+ * subtracted from the totals. The window therefore slides with bucket granularity and covers between
+ * {@code bucketCount - 1} and {@code bucketCount} buckets. With {@code bucketMs == 0} there is no window and
+ * the totals are all-time counts.
+ * <p>
+ * Counts are never trimmed; memory is bounded by the number of distinct keys seen inside the window (at most
+ * the catalog size). {@link #refresh(long)} slides the window and publishes a sorted snapshot of the
+ * {@code capacity} highest totals that {@link #top(int)} serves without locking.
+ */
+public class WindowedTopK {
+    private static final long EMPTY = -1L;
+
+    private final long bucketMs;
+    private final int bucketCount;
+    private final int capacity;
+    private final ConcurrentHashMap<Long, LongAdder> totals = new ConcurrentHashMap<>();
+    private final List<ConcurrentHashMap<Long, LongAdder>> buckets;
+    private final AtomicLongArray bucketEpochs;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long currentEpoch;
+    private volatile List<Long> snapshot = List.of();
+
+    /**
+     * @param bucketMs    bucket length; {@code 0} for an all-time counter without a window
+     * @param bucketCount number of buckets in the window (window length = bucketMs * bucketCount)
+     */
+    public WindowedTopK(long bucketMs, int bucketCount, int capacity, long nowMs) {
+        this.bucketMs = bucketMs;
+        this.bucketCount = bucketMs > 0 ? bucketCount : 0;
+        this.capacity = capacity;
+        this.buckets = new ArrayList<>(this.bucketCount);
+        this.bucketEpochs = new AtomicLongArray(this.bucketCount);
+        for (int i = 0; i < this.bucketCount; i++) {
+            buckets.add(new ConcurrentHashMap<>());
+            bucketEpochs.set(i, EMPTY);
+        }
+        this.currentEpoch = epochOf(nowMs);
+    }
+
+    public void add(long key, long delta, long atMs) {
+        if (bucketCount == 0) {
+            totals.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+            return;
+        }
+
+        long epoch = epochOf(atMs);
+        if (epoch > currentEpoch) {
+            advance(epoch);
+        }
+        lock.readLock().lock();
+        try {
+            // Quá cũ so với cửa sổ hiện tại
+            if (epoch <= currentEpoch - bucketCount) {
+                return;
+            }
+            int slot = (int) Math.floorMod(epoch, (long) bucketCount);
+            // Ô đã hết hạn luôn được advance() dọn về EMPTY dưới write lock
+            bucketEpochs.compareAndSet(slot, EMPTY, epoch);
+            if (bucketEpochs.get(slot) != epoch) {
+                return;
+            }
+            buckets.get(slot).computeIfAbsent(key, k -> new LongAdder()).add(delta);
+            totals.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            totals.remove(key);
+            buckets.forEach(bucket -> bucket.remove(key));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long count(long key) {
+        LongAdder total = totals.get(key);
+        return total != null ? total.sum() : 0L;
+    }
+
+    public void refresh(long nowMs) {
+        if (bucketCount > 0) {
+            advance(epochOf(nowMs));
+        }
+
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(totals.size());
+        for (Map.Entry<Long, LongAdder> entry : totals.entrySet()) {
+            long total = entry.getValue().sum();
+            if (total > 0) {
+                entries.add(Map.entry(entry.getKey(), total));
+            }
+        }
+        entries.sort(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        List<Long> ranked = new ArrayList<>(Math.min(entries.size(), capacity));
+        for (int i = 0; i < entries.size() && i < capacity; i++) {
+            ranked.add(entries.get(i).getKey());
+        }
+        snapshot = Collections.unmodifiableList(ranked);
+    }
+
+    public List<Long> top(int n) {
+        List<Long> current = snapshot;
+        return current.size() <= n ? current : current.subList(0, n);
+    }
+
+    // Helper Method
+    // Trượt cửa sổ tới epoch: trừ các ô đã ra khỏi cửa sổ khỏi tổng rồi dọn ô
+    private void advance(long epoch) {
+        lock.writeLock().lock();
+        try {
+            if (epoch <= currentEpoch) {
+                return;
+            }
+            currentEpoch = epoch;
+            for (int slot = 0; slot < bucketCount; slot++) {
+                long slotEpoch = bucketEpochs.get(slot);
+                if (slotEpoch == EMPTY || slotEpoch > epoch - bucketCount) {
+                    continue;
+                }
+                for (Map.Entry<Long, LongAdder> expired : buckets.get(slot).entrySet()) {
+                    LongAdder total = totals.get(expired.getKey());
+                    if (total == null) {
+                        continue;
+                    }
+                    total.add(-expired.getValue().sum());
+                    if (total.sum() == 0) {
+                        totals.remove(expired.getKey());
+                    }
+                }
+                buckets.get(slot).clear();
+                bucketEpochs.set(slot, EMPTY);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long epochOf(long atMs) {
+        return bucketMs > 0 ? Math.floorDiv(atMs, bucketMs) : 0L;
+    }
+}
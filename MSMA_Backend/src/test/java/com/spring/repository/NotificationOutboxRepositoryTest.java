@@ -0,0 +1,224 @@
+package com.spring.repository;
+
+import com.spring.repository.NotificationOutboxRepository.OutboxRow;
+import com.spring.service.NotificationChannel;
+import com.spring.service.impl.InAppNotificationChannel;
+import com.spring.service.impl.NotificationFanoutImpl;
+import com.spring.service.impl.PushNotificationChannel;
+import com.spring.support.PostgresContainerSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.spring.repository.NotificationOutboxRepository.KIND_FANOUT;
+import static com.spring.repository.NotificationOutboxRepository.KIND_PUSH;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationOutboxRepositoryTest extends PostgresContainerSupport {
+    private static final long LEASE_MS = 60_000;
+    private static final long ARTIST_ID = 100L;
+    private static final String NODE_A = "node-a";
+    private static final String NODE_B = "node-b";
+
+    private NotificationOutboxRepository repository;
+    // Kết nối riêng, giống một node khác đang chạy dispatcher
+    private JdbcTemplate otherJdbcTemplate;
+    private TransactionTemplate otherTransaction;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS notification_outbox, notification_tokens, notifications, artist_user_follows");
+        jdbcTemplate.execute("CREATE TABLE notification_tokens (user_id BIGINT, device_token TEXT)");
+        jdbcTemplate.execute("""
+                CREATE TABLE notifications (
+                    id BIGSERIAL PRIMARY KEY, title TEXT, content TEXT, user_id BIGINT,
+                    target_notifications VARCHAR(32), created_date TIMESTAMP
+                )
+                """);
+        jdbcTemplate.execute("CREATE TABLE artist_user_follows (artist_id BIGINT, user_id BIGINT, PRIMARY KEY (artist_id, user_id))");
+        for (long userId = 1; userId <= 5; userId++) {
+            jdbcTemplate.update("INSERT INTO notification_tokens VALUES (?, ?)", userId, "token-" + userId);
+            jdbcTemplate.update("INSERT INTO artist_user_follows VALUES (?, ?)", ARTIST_ID, userId);
+        }
+        repository = new NotificationOutboxRepository(jdbcTemplate);
+        repository.createTable();
+
+        DriverManagerDataSource otherDataSource =
+                new DriverManagerDataSource(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+        otherJdbcTemplate = new JdbcTemplate(otherDataSource);
+        otherTransaction = new TransactionTemplate(new DataSourceTransactionManager(otherDataSource));
+    }
+
+    @Test
+    void claimSkipsRowsLockedByAnotherTransaction() {
+        repository.enqueuePushes(List.of(1L, 2L, 3L), "New song", "content");
+        Long lockedId = jdbcTemplate.queryForObject(
+                "SELECT id FROM notification_outbox WHERE device_token = 'token-1'", Long.class);
+
+        // Một dispatcher khác đang giữ khoá dòng đầu: claim không chờ mà lấy các dòng còn lại
+        List<OutboxRow> claimed = otherTransaction.execute(status -> {
+            otherJdbcTemplate.queryForList("SELECT id FROM notification_outbox WHERE id = ? FOR UPDATE", lockedId);
+            return repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS);
+        });
+
+        assertThat(claimed).extracting(OutboxRow::deviceToken).containsExactlyInAnyOrder("token-2", "token-3");
+        assertThat(claimed).allMatch(row -> row.attempts() == 1);
+        // Dòng đang SENDING với lease còn hạn không bị claim lần nữa
+        assertThat(repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS)).extracting(OutboxRow::id).containsExactly(lockedId);
+        assertThat(repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS)).isEmpty();
+    }
+
+    @Test
+    void deferKeepsAttemptsUnchanged() {
+        repository.enqueuePushes(List.of(1L), "New song", "content");
+        OutboxRow row = repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS).get(0);
+        repository.retryLater(List.of(row.id()), NODE_A, 0, "UNAVAILABLE");
+        assertThat(attempts(row.id())).isEqualTo(1);
+
+        OutboxRow retried = repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS).get(0);
+        assertThat(retried.attempts()).isEqualTo(2);
+        repository.defer(List.of(retried.id()), NODE_A, 0);
+
+        assertThat(attempts(row.id())).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM notification_outbox WHERE id = ?", String.class, row.id()))
+                .isEqualTo("PENDING");
+        assertThat(repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS).get(0).attempts()).isEqualTo(2);
+    }
+
+    @Test
+    void deferredRowWaitsForItsWindow() {
+        repository.enqueuePushes(List.of(1L), "New song", "content");
+        OutboxRow row = repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS).get(0);
+
+        repository.defer(List.of(row.id()), NODE_A, 60_000);
+
+        assertThat(repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS)).isEmpty();
+    }
+
+    @Test
+    void markSentReturnsLatencyFromTheDatabaseClock() {
+        repository.enqueuePushes(List.of(1L, 2L), "New song", "content");
+        jdbcTemplate.update("UPDATE notification_outbox SET created_at = now() - INTERVAL '1500 milliseconds'");
+        List<Long> ids = repository.claim(NODE_A, KIND_PUSH, 10, LEASE_MS).stream().map(OutboxRow::id).toList();
+
+        List<Long> latencies = repository.markSent(ids, NODE_A);
+
+        assertThat(latencies).hasSize(2).allMatch(latencyMs -> latencyMs >= 1500 && latencyMs < 10_000);
+    }
+
+    @Test
+    void failedFanoutResumesFromItsCursor() {
+        repository.enqueueFanout(ARTIST_ID, "New song", "content");
+        OutboxRow fanoutRow = repository.claim(NODE_A, KIND_FANOUT, 1, 0).get(0);
+        NotificationFanoutRepository fanoutRepository = new NotificationFanoutRepository(jdbcTemplate);
+        NotificationChannel inApp = new InAppNotificationChannel(fanoutRepository);
+        NotificationChannel push = new PushNotificationChannel(repository);
+        // Kênh push lỗi ở chunk thứ hai (follower 3, 4)
+        NotificationChannel failingPush = new NotificationChannel() {
+            @Override
+            public String getName() {
+                return "push";
+            }
+
+            @Override
+            public int deliver(List<Long> userIds, String title, String content) {
+                if (userIds.contains(3L)) {
+                    throw new IllegalStateException("outbox unavailable");
+                }
+                return push.deliver(userIds, title, content);
+            }
+        };
+
+        assertThatThrownBy(() -> fanout(fanoutRepository, List.of(inApp, failingPush))
+                .notifyFollowers(fanoutRow.id(), NODE_A, ARTIST_ID, "New song", "content", fanoutRow.cursorUserId()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(countRows("notifications")).isEqualTo(2);
+
+        // Lease 0 ms: node khác claim lại dòng FANOUT ngay, kèm cursor của chunk cuối đã commit
+        OutboxRow resumed = repository.claim(NODE_B, KIND_FANOUT, 1, LEASE_MS).get(0);
+        assertThat(resumed.id()).isEqualTo(fanoutRow.id());
+        assertThat(resumed.cursorUserId()).isEqualTo(2L);
+        assertThat(resumed.attempts()).isEqualTo(2);
+
+        fanout(fanoutRepository, List.of(inApp, push))
+                .notifyFollowers(resumed.id(), NODE_B, ARTIST_ID, "New song", "content", resumed.cursorUserId());
+
+        assertThat(jdbcTemplate.queryForList("SELECT user_id FROM notifications ORDER BY user_id", Long.class))
+                .containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT device_token FROM notification_outbox WHERE kind = 'PUSH' ORDER BY device_token", String.class))
+                .containsExactly("token-1", "token-2", "token-3", "token-4", "token-5");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT cursor_user_id FROM notification_outbox WHERE id = ?", Long.class, resumed.id())).isEqualTo(5L);
+    }
+
+    @Test
+    void staleWorkerCannotOverwriteTheNewOwner() {
+        repository.enqueuePushes(List.of(1L, 2L), "New song", "content");
+        List<Long> ids = repository.claim(NODE_A, KIND_PUSH, 10, 0).stream().map(OutboxRow::id).toList();
+        // Lease của node A hết hạn, node B lấy lại cả hai dòng
+        assertThat(repository.claim(NODE_B, KIND_PUSH, 10, LEASE_MS)).hasSize(2);
+
+        assertThat(repository.markSent(ids, NODE_A)).isEmpty();
+        assertThat(repository.retryLater(ids, NODE_A, 0, "UNAVAILABLE")).isZero();
+        assertThat(repository.markDead(ids, NODE_A, "UNREGISTERED")).isZero();
+        assertThat(repository.defer(ids, NODE_A, 0)).isZero();
+        assertThat(repository.heartbeat(ids, NODE_A, LEASE_MS)).isZero();
+
+        assertThat(repository.heartbeat(ids, NODE_B, LEASE_MS)).isEqualTo(2);
+        assertThat(repository.markSent(ids, NODE_B)).hasSize(2);
+    }
+
+    @Test
+    void heartbeatKeepsTheRowFromBeingClaimedAgain() {
+        repository.enqueuePushes(List.of(1L), "New song", "content");
+        List<Long> ids = repository.claim(NODE_A, KIND_PUSH, 10, 0).stream().map(OutboxRow::id).toList();
+
+        repository.heartbeat(ids, NODE_A, LEASE_MS);
+
+        assertThat(repository.claim(NODE_B, KIND_PUSH, 10, LEASE_MS)).isEmpty();
+    }
+
+    @Test
+    void fanoutThatLostItsLeaseWritesNothing() {
+        repository.enqueueFanout(ARTIST_ID, "New song", "content");
+        OutboxRow stale = repository.claim(NODE_A, KIND_FANOUT, 1, 0).get(0);
+        OutboxRow current = repository.claim(NODE_B, KIND_FANOUT, 1, LEASE_MS).get(0);
+        NotificationFanoutRepository fanoutRepository = new NotificationFanoutRepository(jdbcTemplate);
+        List<NotificationChannel> channels = List.of(
+                new InAppNotificationChannel(fanoutRepository), new PushNotificationChannel(repository));
+
+        // Node A chạy chậm hơn lease: chunk đầu tiên bị rollback, không ghi gì
+        assertThatThrownBy(() -> fanout(fanoutRepository, channels)
+                .notifyFollowers(stale.id(), NODE_A, ARTIST_ID, "New song", "content", stale.cursorUserId()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(countRows("notifications")).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox WHERE kind = 'PUSH'", Long.class))
+                .isZero();
+
+        fanout(fanoutRepository, channels)
+                .notifyFollowers(current.id(), NODE_B, ARTIST_ID, "New song", "content", current.cursorUserId());
+        assertThat(countRows("notifications")).isEqualTo(5);
+    }
+
+    // Helper Method
+    private NotificationFanoutImpl fanout(NotificationFanoutRepository fanoutRepository, List<NotificationChannel> channels) {
+        return new NotificationFanoutImpl(fanoutRepository, repository, channels, transactionTemplate, 2, 0);
+    }
+
+    private int attempts(Long id) {
+        Integer attempts = jdbcTemplate.queryForObject("SELECT attempts FROM notification_outbox WHERE id = ?", Integer.class, id);
+        return attempts != null ? attempts : -1;
+    }
+
+    private long countRows(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count != null ? count : 0L;
+    }
+}
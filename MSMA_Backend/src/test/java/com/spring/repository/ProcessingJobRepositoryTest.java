@@ -0,0 +1,68 @@
+package com.spring.repository;
+
+import com.spring.support.PostgresContainerSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessingJobRepositoryTest extends PostgresContainerSupport {
+    private static final long LEASE_MS = 300;
+
+    private ProcessingJobRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS processing_jobs");
+        repository = new ProcessingJobRepository(jdbcTemplate);
+        repository.createTable();
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedAndOldWorkerIsFencedOff() throws InterruptedException {
+        repository.enqueue(1L);
+        ProcessingJobRepository.ClaimedJob first = repository.claim("node-a", LEASE_MS, 1).get(0);
+
+        assertThat(repository.reclaimExpired(5)).isEmpty();
+        Thread.sleep(LEASE_MS * 2);
+        assertThat(repository.reclaimExpired(5))
+                .containsExactly(new ProcessingJobRepository.ReclaimedJob(first.id(), 1L, "QUEUED"));
+
+        ProcessingJobRepository.ClaimedJob second = repository.claim("node-b", LEASE_MS, 1).get(0);
+        assertThat(second.id()).isEqualTo(first.id());
+        assertThat(second.attempts()).isEqualTo(2);
+
+        // node-a vẫn chạy tiếp sau khi mất lease: không được gia hạn hay ghi đè kết quả của node-b
+        assertThat(repository.heartbeat(List.of(first.id()), "node-a", LEASE_MS)).isZero();
+        assertThat(repository.complete(first.id(), "node-a")).isFalse();
+        assertThat(repository.complete(second.id(), "node-b")).isTrue();
+    }
+
+    @Test
+    void heartbeatKeepsLeaseFromExpiring() throws InterruptedException {
+        repository.enqueue(1L);
+        ProcessingJobRepository.ClaimedJob job = repository.claim("node-a", LEASE_MS, 1).get(0);
+
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(LEASE_MS / 2);
+            assertThat(repository.heartbeat(List.of(job.id()), "node-a", LEASE_MS)).isEqualTo(1);
+        }
+
+        assertThat(repository.reclaimExpired(5)).isEmpty();
+        assertThat(repository.claim("node-b", LEASE_MS, 1)).isEmpty();
+    }
+
+    @Test
+    void expiredJobOutOfAttemptsIsDeadLettered() throws InterruptedException {
+        repository.enqueue(1L);
+        ProcessingJobRepository.ClaimedJob job = repository.claim("node-a", LEASE_MS, 1).get(0);
+
+        Thread.sleep(LEASE_MS * 2);
+
+        assertThat(repository.reclaimExpired(1))
+                .containsExactly(new ProcessingJobRepository.ReclaimedJob(job.id(), 1L, "DEAD"));
+        assertThat(repository.claim("node-b", LEASE_MS, 1)).isEmpty();
+    }
+}
@@ -0,0 +1,58 @@
+package com.spring.repository;
+
+import com.spring.config.SearchIndexInitializer;
+import com.spring.constants.SearchContentType;
+import com.spring.dto.SearchHit;
+import com.spring.support.PostgresContainerSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SearchSuggestionRepositoryTest extends PostgresContainerSupport {
+    private SearchSuggestionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS songs, playlists, albums, artists, genres, users, artist_songs, genre_songs, song_stats CASCADE");
+        jdbcTemplate.execute("CREATE TABLE songs (id BIGINT PRIMARY KEY, title TEXT, lyrics TEXT, status TEXT, release_date TIMESTAMPTZ)");
+        jdbcTemplate.execute("CREATE TABLE playlists (id BIGINT PRIMARY KEY, playlist_name TEXT, status TEXT, release_date TIMESTAMPTZ)");
+        jdbcTemplate.execute("CREATE TABLE albums (id BIGINT PRIMARY KEY, album_name TEXT, status TEXT, release_date TIMESTAMPTZ)");
+        jdbcTemplate.execute("CREATE TABLE artists (id BIGINT PRIMARY KEY, artist_name TEXT)");
+        jdbcTemplate.execute("CREATE TABLE genres (id BIGINT PRIMARY KEY, genre_name TEXT)");
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, first_name TEXT, last_name TEXT, email TEXT)");
+        jdbcTemplate.execute("CREATE TABLE artist_songs (artist_id BIGINT, song_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE genre_songs (genre_id BIGINT, song_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE song_stats (song_id BIGINT PRIMARY KEY, total_listens BIGINT, distinct_listeners BIGINT)");
+        SearchIndexInitializer initializer = new SearchIndexInitializer(jdbcTemplate, null);
+        initializer.init();
+        assertThat(initializer.isRelevanceAvailable()).isTrue();
+
+        jdbcTemplate.update("INSERT INTO songs (id, title, status) VALUES (1, 'Love Story', 'ACCEPTED'), (2, 'Lovely', 'PENDING')");
+        jdbcTemplate.update("INSERT INTO playlists (id, playlist_name, status) VALUES (3, 'Love songs', 'ACCEPTED')");
+        jdbcTemplate.update("INSERT INTO albums (id, album_name, status) VALUES (4, 'Winter', 'ACCEPTED')");
+        jdbcTemplate.update("INSERT INTO artists (id, artist_name) VALUES (5, 'Love')");
+        repository = new SearchSuggestionRepository(jdbcTemplate);
+    }
+
+    @Test
+    void everyTypeIsRankedTogetherAndOnlyAcceptedContentIsSuggested() {
+        assertThat(repository.findSuggestions("love", null, 10))
+                .extracting(SearchHit::getType, SearchHit::getId)
+                .containsExactly(
+                        tuple(SearchContentType.ARTIST, 5L),
+                        tuple(SearchContentType.SONG, 1L),
+                        tuple(SearchContentType.PLAYLIST, 3L));
+    }
+
+    @Test
+    void typeAndLimitAreApplied() {
+        assertThat(repository.findSuggestions("love", SearchContentType.PLAYLIST, 10))
+                .extracting(SearchHit::getName)
+                .containsExactly("Love songs");
+        assertThat(repository.findSuggestions("love", null, 1))
+                .extracting(SearchHit::getId)
+                .containsExactly(5L);
+    }
+}
@@ -0,0 +1,39 @@
+package com.spring.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermittedPathMatcherTest {
+    private final PermittedPathMatcher matcher = new PermittedPathMatcher();
+
+    @Test
+    void exactPathMatchesOnlyItself() {
+        assertThat(matcher.matches("/api/v1/auth/sign-in")).isTrue();
+        assertThat(matcher.matches("/api/v1/auth/sign-in/extra")).isFalse();
+        assertThat(matcher.matches("/api/v1/auth/sign-i")).isFalse();
+    }
+
+    @Test
+    void prefixPatternStopsAtSegmentBoundary() {
+        assertThat(matcher.matches("/api/v1/account/song")).isTrue();
+        assertThat(matcher.matches("/api/v1/account/song/42/stream")).isTrue();
+        assertThat(matcher.matches("/api/v1/account/songs")).isFalse();
+    }
+
+    @Test
+    void permittedPathEmbeddedInAnotherPathIsNotPermitted() {
+        // Vòng lặp cũ dùng contains(), nên "/x/api/v1/auth/sign-in" được bỏ qua JWT
+        assertThat(matcher.matches("/x/api/v1/auth/sign-in")).isFalse();
+        assertThat(matcher.matches("/api/v1/user/playlists/7")).isFalse();
+    }
+
+    @Test
+    void contextPathIsStrippedFromRequestUri() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/msma/api/v1/account/search/songs");
+        request.setContextPath("/msma");
+
+        assertThat(matcher.matches(request)).isTrue();
+    }
+}
@@ -0,0 +1,71 @@
+package com.spring.service.impl;
+
+import com.spring.dto.response.Otp;
+import com.spring.entities.User;
+import com.spring.service.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.ZonedDateTime;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+
+// Chạy qua proxy @Async thật để chắc OTP/reset password không bị đẩy sang emailExecutor
+@SpringJUnitConfig(EmailServiceImplTest.AsyncEmailConfig.class)
+class EmailServiceImplTest {
+    @Autowired
+    private EmailService emailService;
+    @Autowired
+    private JavaMailSender javaMailSender;
+
+    @BeforeEach
+    void setUp() {
+        reset(javaMailSender);
+        doThrow(new MailSendException("SMTP down")).when(javaMailSender).send(any(SimpleMailMessage.class));
+    }
+
+    @Test
+    void otpMailFailureReachesTheCaller() {
+        Otp otp = Otp.builder().email("user@example.com").otp("123456").dueDate(ZonedDateTime.now()).build();
+
+        assertThatThrownBy(() -> emailService.sendEmailVerificationOtp(otp)).isInstanceOf(MailSendException.class);
+    }
+
+    @Test
+    void resetPasswordMailFailureReachesTheCaller() {
+        User user = new User();
+        user.setEmail("user@example.com");
+        user.setResetKey("654321");
+
+        assertThatThrownBy(() -> emailService.sendResetPasswordMail(user)).isInstanceOf(MailSendException.class);
+    }
+
+    @Configuration
+    @EnableAsync
+    @Import(EmailServiceImpl.class)
+    static class AsyncEmailConfig {
+        @Bean
+        JavaMailSender javaMailSender() {
+            return mock(JavaMailSender.class);
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor emailExecutor() {
+            return new ThreadPoolTaskExecutor();
+        }
+    }
+}
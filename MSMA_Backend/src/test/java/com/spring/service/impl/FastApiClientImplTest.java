@@ -0,0 +1,87 @@
+package com.spring.service.impl;
+
+import com.spring.constants.FastApiEndpoint;
+import com.spring.exceptions.BusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FastApiClientImplTest {
+    private CloseableHttpClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+    private MultiValueMap<String, String> body;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClients.custom().disableAutomaticRetries().build();
+        meterRegistry = new SimpleMeterRegistry();
+        body = new LinkedMultiValueMap<>();
+        body.add("lyrics", "la la la");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+    }
+
+    @Test
+    void doesNotRetryWhenTheConnectionDropsAfterTheRequestWasSent() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            AtomicInteger received = new AtomicInteger();
+            Thread acceptor = new Thread(() -> {
+                // Nhận request rồi đóng kết nối không trả lời: client thấy NoHttpResponseException
+                while (!server.isClosed()) {
+                    try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+                        received.incrementAndGet();
+                        in.read(new byte[8192]);
+                    } catch (IOException ignored) {
+                        return;
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            FastApiClientImpl client = client("http://localhost:" + server.getLocalPort());
+
+            assertThatThrownBy(() -> client.post(FastApiEndpoint.LYRICS_GENRE, body, MediaType.APPLICATION_FORM_URLENCODED))
+                    .isInstanceOf(BusinessException.class);
+            assertThat(received.get()).isEqualTo(1);
+            assertThat(meterRegistry.find("msma.fastapi.retries").counter()).isNull();
+        }
+    }
+
+    @Test
+    void retriesWhenTheConnectionIsRefused() throws Exception {
+        int closedPort;
+        try (ServerSocket server = new ServerSocket(0)) {
+            closedPort = server.getLocalPort();
+        }
+        FastApiClientImpl client = client("http://localhost:" + closedPort);
+
+        assertThatThrownBy(() -> client.post(FastApiEndpoint.LYRICS_GENRE, body, MediaType.APPLICATION_FORM_URLENCODED))
+                .isInstanceOf(BusinessException.class);
+        assertThat(meterRegistry.get("msma.fastapi.retries").counter().count()).isEqualTo(2.0);
+    }
+
+    private FastApiClientImpl client(String baseUrl) {
+        return new FastApiClientImpl(httpClient, meterRegistry, new MockEnvironment(), baseUrl,
+                1000, 3, 1, 2, 100, 30_000);
+    }
+}
@@ -0,0 +1,107 @@
+package com.spring.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.utils.JavaFileToMultipartFile;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FastApiServiceImplTest {
+    private static final long MB = 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private FastApiServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // FastAPI giả: đọc hết body rồi trả "{}"
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[64 * 1024];
+                for (int read; (read = in.read(buffer)) != -1; ) {
+                    receivedBytes.addAndGet(read);
+                }
+            }
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        httpClient = HttpClients.custom().disableAutomaticRetries().build();
+        FastApiClientImpl client = new FastApiClientImpl(httpClient, new SimpleMeterRegistry(), new MockEnvironment(),
+                "http://localhost:" + server.getAddress().getPort(), 1000, 1, 1, 2, 100, 30_000);
+        service = new FastApiServiceImpl(null, null, client, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void audioIsStreamedFromDiskWithoutCopyingItIntoTheHeap() throws IOException {
+        long size = 64 * MB;
+        File audio = sparseFile("song.mp3", size);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // Lượt đầu nạp class của httpclient/converter, không tính vào phép đo
+        service.checkAudioSimilarity(new JavaFileToMultipartFile(sparseFile("warmup.mp3", MB)));
+        receivedBytes.set(0);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        service.checkAudioSimilarity(new JavaFileToMultipartFile(audio));
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(receivedBytes.get()).isGreaterThan(size);
+        // Bản cũ (ByteArrayResource(getBytes())) cấp phát ít nhất một lần kích thước file
+        assertThat(allocated).isLessThan(2 * MB);
+    }
+
+    // Chạy trong execution small-heap của surefire (-Xmx64m)
+    @Test
+    @Tag("small-heap")
+    void largeAudioUploadFitsInSmallHeap() throws IOException {
+        long size = 200 * MB;
+
+        service.audioPredictGenre(new JavaFileToMultipartFile(sparseFile("large.mp3", size)), "request-1");
+
+        assertThat(receivedBytes.get()).isGreaterThan(size);
+    }
+
+    private File sparseFile(String name, long size) throws IOException {
+        File file = tempDir.resolve(name).toFile();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,93 @@
+package com.spring.service.impl;
+
+import com.spring.repository.SongDailyListenRepository;
+import com.spring.repository.UserDailyListenRepository;
+import com.spring.support.PostgresContainerSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class HistoryListenPartitionServiceImplTest extends PostgresContainerSupport {
+    private HistoryListenPartitionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS history_listens, history_listens_new, history_listens_legacy, songs, users CASCADE");
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE songs (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("INSERT INTO users VALUES (1), (2)");
+        jdbcTemplate.execute("INSERT INTO songs VALUES (1), (2)");
+        // Bảng như Hibernate tạo ra
+        jdbcTemplate.execute("""
+                CREATE TABLE history_listens (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    user_id BIGINT REFERENCES users (id),
+                    song_id BIGINT REFERENCES songs (id),
+                    date TIMESTAMP(6)
+                )
+                """);
+        jdbcTemplate.execute("CREATE INDEX idx_history_listens_user_date ON history_listens (user_id, date DESC)");
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 2500; i++) {
+            jdbcTemplate.update("INSERT INTO history_listens (user_id, song_id, date) VALUES (?, ?, ?)",
+                    1 + i % 2, 1 + i % 2, Timestamp.valueOf(now.minusDays(i % 90)));
+        }
+        jdbcTemplate.update("INSERT INTO history_listens (user_id, song_id, date) VALUES (1, 1, NULL)");
+
+        service = new HistoryListenPartitionServiceImpl(jdbcTemplate, transactionTemplate,
+                mock(SongDailyListenRepository.class), mock(UserDailyListenRepository.class), 12, 1, 1000);
+    }
+
+    @Test
+    void copiesEveryRowInBatchesAndSwapsTables() {
+        assertThat(service.isPartitioned()).isFalse();
+
+        Map<String, Object> report = service.migrateToPartitionedTable();
+
+        assertThat(report).containsEntry("status", "MIGRATED").containsEntry("rowsCopied", 2501L);
+        assertThat((Integer) report.get("batches")).isGreaterThanOrEqualTo(3);
+        assertThat(service.isPartitioned()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM history_listens", Long.class)).isEqualTo(2501L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM history_listens_legacy", Long.class)).isEqualTo(2501L);
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('idx_history_listens_user_date') IS NOT NULL", Boolean.class)).isTrue();
+
+        // Sequence phải tiếp tục sau id lớn nhất đã chép
+        jdbcTemplate.update("INSERT INTO history_listens (user_id, song_id, date) VALUES (2, 2, LOCALTIMESTAMP)");
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(id) FROM history_listens", Long.class)).isEqualTo(2502L);
+    }
+
+    @Test
+    void resumesAnInterruptedCopyWithoutDuplicates() {
+        jdbcTemplate.execute("""
+                CREATE TABLE history_listens_new (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+                    user_id BIGINT REFERENCES users (id),
+                    song_id BIGINT REFERENCES songs (id),
+                    date TIMESTAMP(6) NOT NULL,
+                    PRIMARY KEY (id, date)
+                ) PARTITION BY RANGE (date)
+                """);
+        jdbcTemplate.execute("CREATE INDEX idx_history_listens_new_user_date ON history_listens_new (user_id, date DESC)");
+        jdbcTemplate.execute("CREATE TABLE history_listens_default PARTITION OF history_listens_new DEFAULT");
+        jdbcTemplate.execute("INSERT INTO history_listens_new SELECT * FROM history_listens WHERE id <= 1200 AND date IS NOT NULL");
+
+        Map<String, Object> report = service.migrateToPartitionedTable();
+
+        assertThat(report).containsEntry("status", "MIGRATED");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM history_listens", Long.class)).isEqualTo(2501L);
+    }
+
+    @Test
+    void isNoOpOnceAlreadyPartitioned() {
+        service.migrateToPartitionedTable();
+
+        assertThat(service.migrateToPartitionedTable()).containsEntry("status", "ALREADY_PARTITIONED");
+    }
+}
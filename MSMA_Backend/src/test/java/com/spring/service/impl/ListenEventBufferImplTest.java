@@ -0,0 +1,115 @@
+package com.spring.service.impl;
+
+import com.spring.dto.ListenEvent;
+import com.spring.repository.ListenEventBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ListenEventBufferImplTest {
+    private static final long BAD_SONG_ID = 666L;
+
+    private ListenEventBatchRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private ListenEventBufferImpl buffer;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ListenEventBatchRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Không gọi start(): test tự gọi flush() trên thread hiện tại
+        buffer = new ListenEventBufferImpl(repository, meterRegistry, 2, 100, 50, 1000, 10, 1000);
+    }
+
+    @Test
+    void dataErrorDropsOnlyTheBadEvent() {
+        when(repository.writeBatch(anyList())).thenAnswer(invocation -> {
+            List<ListenEvent> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(event -> event.getSongId() == BAD_SONG_ID)) {
+                throw new DataIntegrityViolationException("song_id violates foreign key");
+            }
+            return batch.size();
+        });
+        for (long songId = 1; songId <= 7; songId++) {
+            buffer.record(event(songId));
+        }
+        buffer.record(event(BAD_SONG_ID));
+
+        assertThat(buffer.flush()).isEqualTo(7);
+        assertThat(dropped()).isEqualTo(1.0);
+        assertThat(buffer.pendingCount()).isZero();
+    }
+
+    @Test
+    void transientFailureKeepsBatchForNextFlush() {
+        when(repository.writeBatch(anyList()))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"))
+                .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        for (long songId = 1; songId <= 5; songId++) {
+            buffer.record(event(songId));
+        }
+
+        assertThat(buffer.flush()).isZero();
+        assertThat(buffer.pendingCount()).isEqualTo(5);
+        assertThat(buffer.flush()).isEqualTo(5);
+        assertThat(buffer.pendingCount()).isZero();
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void repeatedFailureSplitsBatchBeforeDropping() {
+        when(repository.writeBatch(anyList())).thenAnswer(invocation -> {
+            List<ListenEvent> batch = invocation.getArgument(0);
+            // Giả lập lỗi chỉ xảy ra với batch lớn (ví dụ statement timeout)
+            if (batch.size() > 2) {
+                throw new CannotAcquireLockException("statement timeout");
+            }
+            return batch.size();
+        });
+        for (long songId = 1; songId <= 8; songId++) {
+            buffer.record(event(songId));
+        }
+
+        assertThat(buffer.flush()).isZero();
+        assertThat(buffer.flush()).isZero();
+        assertThat(buffer.flush()).isEqualTo(8);
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void lostConnectionDropsWholeBatchAfterMaxAttempts() {
+        when(repository.writeBatch(anyList())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+        for (long songId = 1; songId <= 4; songId++) {
+            buffer.record(event(songId));
+        }
+
+        buffer.flush();
+        buffer.flush();
+        buffer.flush();
+
+        assertThat(dropped()).isEqualTo(4.0);
+        assertThat(buffer.pendingCount()).isZero();
+        verify(repository, times(3)).writeBatch(anyList());
+    }
+
+    private double dropped() {
+        return meterRegistry.get("msma.listen.buffer.dropped").counter().count();
+    }
+
+    private static ListenEvent event(long songId) {
+        return new ListenEvent(1L, songId, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,125 @@
+package com.spring.service.impl;
+
+import com.spring.repository.NotificationFanoutRepository;
+import com.spring.repository.NotificationOutboxRepository;
+import com.spring.service.NotificationChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationFanoutImplTest {
+    private static final long OUTBOX_ID = 9L;
+    private static final long ARTIST_ID = 5L;
+    private static final String WORKER_ID = "node-a";
+
+    private NotificationFanoutRepository fanoutRepository;
+    private NotificationOutboxRepository outboxRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        fanoutRepository = mock(NotificationFanoutRepository.class);
+        outboxRepository = mock(NotificationOutboxRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(fanoutRepository.findFollowerIds(ARTIST_ID, 0L, 2)).thenReturn(List.of(1L, 2L));
+        when(fanoutRepository.findFollowerIds(ARTIST_ID, 2L, 2)).thenReturn(List.of(3L));
+        when(fanoutRepository.findFollowerIds(ARTIST_ID, 3L, 2)).thenReturn(List.of());
+        when(outboxRepository.advanceCursor(anyLong(), eq(WORKER_ID), anyLong(), anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void everyChannelReceivesEveryChunkAndCursorFollows() {
+        RecordingChannel inApp = new RecordingChannel("inApp", false);
+        RecordingChannel email = new RecordingChannel("email", false);
+
+        fanout(List.of(inApp, email)).notifyFollowers(OUTBOX_ID, WORKER_ID, ARTIST_ID, "New song", "content", 0L);
+
+        assertThat(inApp.chunks).containsExactly(List.of(1L, 2L), List.of(3L));
+        assertThat(email.chunks).containsExactly(List.of(1L, 2L), List.of(3L));
+        verify(outboxRepository).advanceCursor(eq(OUTBOX_ID), eq(WORKER_ID), eq(2L), anyLong());
+        verify(outboxRepository).advanceCursor(eq(OUTBOX_ID), eq(WORKER_ID), eq(3L), anyLong());
+    }
+
+    @Test
+    void failingChannelStopsFanoutBeforeCursorMoves() {
+        NotificationFanoutImpl fanout = fanout(List.of(new RecordingChannel("inApp", false), new RecordingChannel("push", true)));
+
+        assertThatThrownBy(() -> fanout.notifyFollowers(OUTBOX_ID, WORKER_ID, ARTIST_ID, "New song", "content", 0L))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(outboxRepository, never()).advanceCursor(anyLong(), anyString(), anyLong(), anyLong());
+        Map<String, Object> progress = fanout.getProgress().get(0);
+        assertThat(progress).containsEntry("status", "FAILED").containsEntry("followersProcessed", 0L);
+        assertThat(progress.get("delivered")).isEqualTo(Map.of("inApp", 0L, "push", 0L));
+    }
+
+    @Test
+    void lostLeaseStopsFanoutAtTheChunkItWasWriting() {
+        when(outboxRepository.advanceCursor(OUTBOX_ID, WORKER_ID, 3L, 60_000)).thenReturn(false);
+        RecordingChannel inApp = new RecordingChannel("inApp", false);
+        NotificationFanoutImpl fanout = fanout(List.of(inApp));
+
+        assertThatThrownBy(() -> fanout.notifyFollowers(OUTBOX_ID, WORKER_ID, ARTIST_ID, "New song", "content", 0L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("no longer leased");
+        verify(transactionManager).rollback(any());
+        assertThat(fanout.getProgress().get(0)).containsEntry("status", "FAILED").containsEntry("followersProcessed", 2L);
+    }
+
+    @Test
+    void progressCountsDeliveriesPerChannel() {
+        NotificationFanoutImpl fanout = fanout(List.of(new RecordingChannel("inApp", false), new RecordingChannel("push", false)));
+
+        fanout.notifyFollowers(OUTBOX_ID, WORKER_ID, ARTIST_ID, "New song", "content", 0L);
+
+        Map<String, Object> progress = fanout.getProgress().get(0);
+        assertThat(progress).containsEntry("status", "COMPLETED").containsEntry("followersProcessed", 3L);
+        assertThat(progress.get("delivered")).isEqualTo(Map.of("inApp", 3L, "push", 3L));
+    }
+
+    private NotificationFanoutImpl fanout(List<NotificationChannel> channels) {
+        return new NotificationFanoutImpl(fanoutRepository, outboxRepository, channels,
+                new TransactionTemplate(transactionManager), 2, 60_000);
+    }
+
+    private static final class RecordingChannel implements NotificationChannel {
+        private final String name;
+        private final boolean failing;
+        private final List<List<Long>> chunks = new ArrayList<>();
+
+        private RecordingChannel(String name, boolean failing) {
+            this.name = name;
+            this.failing = failing;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int deliver(List<Long> userIds, String title, String content) {
+            if (failing) {
+                throw new IllegalStateException(name + " unavailable");
+            }
+            chunks.add(userIds);
+            return userIds.size();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.spring.service.impl;
+
+import com.spring.repository.ProcessingJobRepository;
+import com.spring.service.SongService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProcessingJobQueueImplTest {
+    private static final long JOB_ID = 7L;
+    private static final long LEASE_MS = 200;
+
+    private ProcessingJobRepository repository;
+    private SongService songService;
+    private ProcessingJobQueueImpl queue;
+    private final CountDownLatch finishProcessing = new CountDownLatch(1);
+    private final Set<String> heartbeatThreads = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProcessingJobRepository.class);
+        songService = mock(SongService.class);
+        when(repository.claim(anyString(), anyLong(), anyInt()))
+                .thenReturn(List.of(new ProcessingJobRepository.ClaimedJob(JOB_ID, 42L, 1)))
+                .thenReturn(List.of());
+        when(repository.heartbeat(eq(List.of(JOB_ID)), anyString(), eq(LEASE_MS))).thenAnswer(invocation -> {
+            heartbeatThreads.add(Thread.currentThread().getName());
+            return 1;
+        });
+        when(repository.complete(eq(JOB_ID), anyString())).thenReturn(true);
+        // Bài hát xử lý lâu hơn nhiều lần thời hạn lease
+        doAnswer(invocation -> {
+            finishProcessing.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(songService).processSong(42L);
+
+        queue = new ProcessingJobQueueImpl(repository, songService, 1, LEASE_MS, 50, 20, 5, 1000, 10_000, 1000, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        finishProcessing.countDown();
+        queue.stop();
+    }
+
+    @Test
+    void leaseIsRenewedFromQueueOwnedThreadWhileJobRuns() {
+        queue.start();
+
+        verify(repository, timeout(2000).atLeast(5)).heartbeat(eq(List.of(JOB_ID)), anyString(), eq(LEASE_MS));
+        assertThat(heartbeatThreads).containsExactly("processing-heartbeat");
+
+        finishProcessing.countDown();
+        verify(repository, timeout(2000)).complete(eq(JOB_ID), anyString());
+    }
+}
@@ -0,0 +1,144 @@
+package com.spring.service.impl;
+
+import com.spring.config.SearchIndexInitializer;
+import com.spring.constants.ApiResponseCode;
+import com.spring.constants.SearchContentType;
+import com.spring.dto.SearchHit;
+import com.spring.dto.request.PaginationSongRequest;
+import com.spring.dto.response.SearchSuggestionResponse;
+import com.spring.exceptions.BusinessException;
+import com.spring.repository.SearchSuggestionRepository;
+import com.spring.repository.SongRepository;
+import com.spring.service.CatalogSearchIndex;
+import com.spring.service.SongStatsLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SearchServiceImplTest {
+    @Mock
+    private SongRepository songRepository;
+    @Mock
+    private SongStatsLoader songStatsLoader;
+    @Mock
+    private CatalogSearchIndex catalogSearchIndex;
+    @Mock
+    private SearchSuggestionRepository searchSuggestionRepository;
+    @Mock
+    private SearchIndexInitializer searchIndexInitializer;
+    @InjectMocks
+    private SearchServiceImpl searchService;
+
+    @BeforeEach
+    void setUp() {
+        when(searchIndexInitializer.isRelevanceAvailable()).thenReturn(true);
+        when(songRepository.findSongsByFilter(any(), any(), any())).thenReturn(Page.empty());
+        when(songRepository.findSongsByRelevance(any(), any(), any())).thenReturn(Page.empty());
+    }
+
+    @Test
+    void orderAscWithoutOrderBySortsByReleaseDateAscending() {
+        searchService.paginationSongs(songRequest(null, "asc", ""));
+
+        assertThat(filterPageable(null).getSort()).isEqualTo(Sort.by("releaseDate").ascending());
+    }
+
+    @Test
+    void orderAscWithSearchAndDefaultRelevanceSortsByReleaseDate() {
+        searchService.paginationSongs(songRequest(null, "asc", "love"));
+
+        assertThat(filterPageable("love").getSort()).isEqualTo(Sort.by("releaseDate").ascending());
+    }
+
+    @Test
+    void orderDescFallsBackToReleaseDateDescendingWithoutRanking() {
+        when(searchIndexInitializer.isRelevanceAvailable()).thenReturn(false);
+
+        searchService.paginationSongs(songRequest(null, "desc", "love"));
+
+        assertThat(filterPageable("love").getSort()).isEqualTo(Sort.by("releaseDate").descending());
+    }
+
+    @Test
+    void searchWithoutOrderIsRankedByRelevance() {
+        searchService.paginationSongs(songRequest(null, null, "love"));
+
+        verify(songRepository).findSongsByRelevance(any(), eq("love"), isNull());
+    }
+
+    @Test
+    void explicitRelevanceAscendingIsRejected() {
+        assertThatThrownBy(() -> searchService.paginationSongs(songRequest("relevance", "asc", "love")))
+                .isInstanceOf(BusinessException.class)
+                .extracting("message")
+                .isEqualTo(ApiResponseCode.INVALID_FORMAT.name());
+    }
+
+    @Test
+    void suggestionsComeFromTheIndexWhenItIsReady() {
+        when(catalogSearchIndex.isAvailable()).thenReturn(true);
+        when(catalogSearchIndex.search("Lo", SearchContentType.SONG, null, 5, 0))
+                .thenReturn(List.of(new SearchHit(SearchContentType.SONG, 1L, "Love", 2f)));
+
+        assertThat(searchService.suggest("Lo", "songs", 5)).extracting(SearchSuggestionResponse::getName).containsExactly("Love");
+        verifyNoInteractions(searchSuggestionRepository);
+    }
+
+    @Test
+    void suggestionsFallBackToPostgresWhileTheIndexIsNotReady() {
+        when(searchSuggestionRepository.findSuggestions("lo", null, 5))
+                .thenReturn(List.of(new SearchHit(SearchContentType.ARTIST, 7L, "Lorde", 1f)));
+
+        assertThat(searchService.suggest(" Lo ", "all", 5))
+                .extracting(SearchSuggestionResponse::getType, SearchSuggestionResponse::getId)
+                .containsExactly(tuple("artist", 7L));
+    }
+
+    @Test
+    void suggestionsAreUnavailableWithoutIndexOrRanking() {
+        when(searchIndexInitializer.isRelevanceAvailable()).thenReturn(false);
+
+        assertThatThrownBy(() -> searchService.suggest("lo", "all", 5))
+                .isInstanceOf(BusinessException.class)
+                .extracting("status")
+                .isEqualTo("503");
+    }
+
+    // Helper Method
+    private Pageable filterPageable(String search) {
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(songRepository).findSongsByFilter(pageable.capture(), eq(search), isNull());
+        return pageable.getValue();
+    }
+
+    private static PaginationSongRequest songRequest(String orderBy, String order, String search) {
+        PaginationSongRequest request = new PaginationSongRequest();
+        request.setOrderBy(orderBy);
+        request.setOrder(order);
+        request.setSearch(search);
+        return request;
+    }
+}
@@ -0,0 +1,32 @@
+package com.spring.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetriesTest {
+    @Test
+    void backoffDoublesWithJitterInTheUpperHalfAndIsCapped() {
+        for (int i = 0; i < 1000; i++) {
+            assertThat(Retries.backoffMs(1, 100, 10_000)).isBetween(50L, 100L);
+            assertThat(Retries.backoffMs(3, 100, 10_000)).isBetween(200L, 400L);
+            assertThat(Retries.backoffMs(30, 100, 10_000)).isBetween(5_000L, 10_000L);
+        }
+    }
+
+    @Test
+    void describeKeepsTypeAndCutsLongMessages() {
+        assertThat(Retries.describe(new IOException("reset"))).isEqualTo("IOException: reset");
+        assertThat(Retries.describe(new IllegalStateException("x".repeat(5000)))).hasSize(Retries.MAX_ERROR_LENGTH);
+    }
+
+    @Test
+    void interruptedSleepRestoresTheFlag() {
+        Thread.currentThread().interrupt();
+
+        assertThat(Retries.sleep(1000)).isFalse();
+        assertThat(Thread.interrupted()).isTrue();
+    }
+}
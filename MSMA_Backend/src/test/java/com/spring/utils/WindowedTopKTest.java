@@ -0,0 +1,75 @@
+package com.spring.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WindowedTopKTest {
+    private static final long HOUR = 3_600_000L;
+    private static final long T0 = 1_000 * HOUR;
+
+    @Test
+    void hitsLeaveTheWindowExactlyWhenTheirBucketExpires() {
+        WindowedTopK board = new WindowedTopK(HOUR, 24, 10, T0);
+        board.add(1L, 5, T0);
+        board.add(2L, 3, T0 + 10 * HOUR);
+
+        board.refresh(T0 + 23 * HOUR);
+        assertThat(board.count(1L)).isEqualTo(5);
+        assertThat(board.top(10)).containsExactly(1L, 2L);
+
+        // Bucket của T0 trượt ra khỏi cửa sổ 24 giờ
+        board.refresh(T0 + 24 * HOUR);
+        assertThat(board.count(1L)).isZero();
+        assertThat(board.top(10)).containsExactly(2L);
+    }
+
+    @Test
+    void ignoresHitsOlderThanTheWindow() {
+        WindowedTopK board = new WindowedTopK(HOUR, 24, 10, T0 + 48 * HOUR);
+        board.add(1L, 7, T0);
+        board.refresh(T0 + 48 * HOUR);
+
+        assertThat(board.count(1L)).isZero();
+        assertThat(board.top(10)).isEmpty();
+    }
+
+    @Test
+    void keepsExactCountsBeyondCapacity() {
+        WindowedTopK board = new WindowedTopK(HOUR, 24, 2, T0);
+        for (long song = 1; song <= 5; song++) {
+            board.add(song, song, T0);
+        }
+        board.refresh(T0);
+        assertThat(board.top(10)).containsExactly(5L, 4L);
+
+        // Bài ngoài top vẫn giữ đủ số đếm, có thể vươn lên
+        board.add(1L, 10, T0);
+        board.refresh(T0);
+        assertThat(board.count(1L)).isEqualTo(11);
+        assertThat(board.top(10)).containsExactly(1L, 5L);
+    }
+
+    @Test
+    void allTimeBoardNeverExpires() {
+        WindowedTopK board = new WindowedTopK(0L, 0, 10, T0);
+        board.add(1L, 4, T0);
+        board.add(1L, -1, T0 + 1000 * HOUR);
+        board.refresh(T0 + 1000 * HOUR);
+
+        assertThat(board.count(1L)).isEqualTo(3);
+        assertThat(board.top(1)).containsExactly(1L);
+    }
+
+    @Test
+    void removeDropsTheSongFromEveryBucket() {
+        WindowedTopK board = new WindowedTopK(HOUR, 24, 10, T0);
+        board.add(1L, 2, T0);
+        board.add(1L, 2, T0 + HOUR);
+        board.remove(1L);
+        board.refresh(T0 + 30 * HOUR);
+
+        assertThat(board.count(1L)).isZero();
+        assertThat(board.top(10)).isEmpty();
+    }
+}